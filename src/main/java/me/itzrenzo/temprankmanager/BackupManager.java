@@ -0,0 +1,148 @@
+package me.itzrenzo.temprankmanager;
+
+import me.itzrenzo.temprankmanager.scheduler.TaskHandle;
+import me.itzrenzo.temprankmanager.storage.IoThrottle;
+import me.itzrenzo.temprankmanager.storage.StorageBackup;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Online backups of the rank data. The storage provider captures a consistent snapshot on the
+ * calling thread; writing, throttling and rotation happen on a dedicated background thread.
+ */
+public class BackupManager {
+    private static final String PREFIX = "tempranks-";
+    private static final DateTimeFormatter FILE_TIME = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+    private final TempRankManager plugin;
+    private final ExecutorService executor;
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final File directory;
+    private final int keep;
+    private final long bytesPerSecond;
+    private TaskHandle scheduledTask;
+
+    public BackupManager(TempRankManager plugin) {
+        this.plugin = plugin;
+        this.directory = new File(plugin.getDataFolder(), plugin.getConfig().getString("backup.directory", "backups"));
+        this.keep = Math.max(1, plugin.getConfig().getInt("backup.keep", 5));
+        this.bytesPerSecond = Math.max(0, plugin.getConfig().getLong("backup.max-kb-per-second", 4096)) * 1024;
+        this.executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "TempRankManager-Backup");
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        });
+    }
+
+    /**
+     * Start the periodic backup if backup.interval-hours is above zero
+     */
+    public void startSchedule() {
+        int intervalHours = plugin.getConfig().getInt("backup.interval-hours", 0);
+        if (intervalHours <= 0) {
+            return;
+        }
+        
+        long intervalTicks = intervalHours * 60 * 60 * 20L;
+        scheduledTask = plugin.getTaskScheduler().runGlobalTimer(() -> backup().whenComplete((file, error) -> {
+            if (error != null) {
+                plugin.getLogger().warning("Scheduled backup failed: " + error.getMessage());
+            }
+        }), intervalTicks, intervalTicks);
+        plugin.getLogger().info("Scheduled backups every " + intervalHours + " hour(s), keeping the " + keep + " most recent");
+    }
+
+    /**
+     * Capture a snapshot of everything written so far and write it in the background.
+     * Completes with the backup file, or exceptionally if a backup is already running or writing failed.
+     */
+    public CompletableFuture<File> backup() {
+        if (!running.compareAndSet(false, true)) {
+            return CompletableFuture.failedFuture(new IllegalStateException("A backup is already in progress"));
+        }
+        
+        DataManager dataManager = plugin.getDataManager();
+        File target = new File(directory, PREFIX + LocalDateTime.now().format(FILE_TIME) + "." + dataManager.getStorageProvider().getBackupExtension());
+        // The snapshot is taken in the write queue, so it holds everything submitted before this call
+        return dataManager.createBackup()
+                .thenApplyAsync(snapshot -> write(snapshot, target), executor)
+                .whenComplete((file, error) -> running.set(false));
+    }
+
+    public boolean isRunning() {
+        return running.get();
+    }
+
+    public void close() {
+        if (scheduledTask != null && !scheduledTask.isCancelled()) {
+            scheduledTask.cancel();
+        }
+        
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(10, TimeUnit.SECONDS)) {
+                plugin.getLogger().warning("Timed out waiting for a running backup to finish.");
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private File write(StorageBackup snapshot, File target) {
+        if (!directory.exists() && !directory.mkdirs()) {
+            throw new IllegalStateException("Could not create backup directory " + directory.getPath());
+        }
+        
+        // Written under a temporary name so a partial file is never mistaken for a backup
+        File partial = new File(directory, target.getName() + ".part");
+        long started = System.nanoTime();
+        IoThrottle throttle = new IoThrottle(bytesPerSecond);
+        
+        if (!snapshot.writeTo(partial, throttle)) {
+            partial.delete();
+            throw new IllegalStateException("Writing the backup failed, see the console for details");
+        }
+        
+        try {
+            Files.move(partial.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            partial.delete();
+            throw new IllegalStateException("Could not finish backup " + target.getName() + ": " + e.getMessage(), e);
+        }
+        
+        long tookMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+        plugin.getLogger().info("Backed up temporary ranks to " + target.getName() + " (" + (target.length() / 1024) + " KB in " + tookMillis + " ms)");
+        rotate();
+        return target;
+    }
+
+    private void rotate() {
+        File[] backups = directory.listFiles((dir, name) -> name.startsWith(PREFIX) && !name.endsWith(".part"));
+        if (backups == null || backups.length <= keep) {
+            return;
+        }
+        
+        // Timestamped names sort chronologically; keep the newest
+        Arrays.sort(backups, Comparator.comparing(File::getName).reversed());
+        for (int i = keep; i < backups.length; i++) {
+            if (!backups[i].delete()) {
+                plugin.getLogger().warning("Could not delete old backup " + backups[i].getName());
+            }
+        }
+    }
+}
@@ -1,18 +1,58 @@
 package me.itzrenzo.temprankmanager;
 
+import me.itzrenzo.temprankmanager.storage.AsyncStorageProvider;
+import me.itzrenzo.temprankmanager.storage.BlockingStorageAdapter;
+import me.itzrenzo.temprankmanager.storage.InstrumentedStorageProvider;
+import me.itzrenzo.temprankmanager.storage.RankFilter;
+import me.itzrenzo.temprankmanager.storage.RankVisitor;
 import me.itzrenzo.temprankmanager.storage.SQLiteStorageProvider;
+import me.itzrenzo.temprankmanager.storage.ShardedSQLiteStorageProvider;
+import me.itzrenzo.temprankmanager.storage.StorageBackup;
 import me.itzrenzo.temprankmanager.storage.StorageProvider;
 import me.itzrenzo.temprankmanager.storage.YamlStorageProvider;
 
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
 
+/**
+ * Owns the rank records. Reads are served from the in-memory {@link RankIndex}; writes update the
+ * index right away and are persisted on a virtual-thread I/O executor, so no caller ever waits on the
+ * database or the data file. Each player's writes reach storage in order; players in different write
+ * lanes of the provider (shards) are written in parallel.
+ */
 public class DataManager {
+    // Calls allowed into the blocking provider at once; more would only queue on its connection
+    private static final int MAX_CONCURRENT_IO = 4;
+    private static final long DRAIN_TIMEOUT_SECONDS = 10;
+
     private final TempRankManager plugin;
     private StorageProvider storageProvider;
+    private final ExecutorService ioExecutor;
+    private final AsyncStorageProvider asyncStorage;
+    private final WriteQueue writes;
+    private final AtomicLong version = new AtomicLong();
+    private final RankIndex rankIndex = new RankIndex();
+    // Serializes read-modify-write per player, across all of their ranks; index updates and write submission for one UUID happen under its stripe
+    private final StripedLock locks = new StripedLock(64);
 
     public DataManager(TempRankManager plugin) {
         this.plugin = plugin;
+        this.ioExecutor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("TempRankManager-IO-", 0).factory());
         initializeStorageProvider();
+        int lanes = storageProvider.getWriteLanes();
+        this.writes = new WriteQueue(lanes, plugin.getLogger());
+        // Enough calls at once for every lane to have a write in flight
+        this.asyncStorage = new BlockingStorageAdapter(() -> storageProvider, ioExecutor, Math.max(MAX_CONCURRENT_IO, lanes));
     }
 
     private void initializeStorageProvider() {
@@ -21,7 +61,11 @@ public class DataManager {
         switch (storageType) {
             case "sqlite":
                 String dbFile = plugin.getConfig().getString("sqlite.database-file", "tempranks.db");
-                storageProvider = new SQLiteStorageProvider(plugin, dbFile);
+                int shards = Math.max(1, plugin.getConfig().getInt("sqlite.shards", 1));
+                // A previously sharded database keeps the sharded provider so its records can be merged back
+                storageProvider = shards > 1 || ShardedSQLiteStorageProvider.isSharded(plugin, dbFile)
+                        ? new ShardedSQLiteStorageProvider(plugin, dbFile, shards)
+                        : new SQLiteStorageProvider(plugin, dbFile);
                 break;
             case "yaml":
                 String yamlFile = plugin.getConfig().getString("yaml.data-file", "data.yml");
@@ -33,13 +77,21 @@ public class DataManager {
                 break;
         }
         
+        // Storage calls show up as JFR events while a recording enables them
+        storageProvider = new InstrumentedStorageProvider(storageProvider);
         storageProvider.initialize();
         plugin.getLogger().info("Using " + storageProvider.getProviderName() + " storage provider");
     }
 
     public void loadData() {
-        // Data is loaded automatically during storage provider initialization
-        plugin.getLogger().info("Data loaded using " + storageProvider.getProviderName() + " storage");
+        // Nothing can be scheduled before the index exists, so startup waits for this one read.
+        // Records go straight from the storage cursor into the index, never into a full list.
+        rankIndex.clear();
+        asyncStorage.forEach(RankFilter.all(), data -> {
+            rankIndex.put(data);
+            return true;
+        }).join();
+        plugin.getLogger().info("Data loaded using " + storageProvider.getProviderName() + " storage (" + rankIndex.size() + " temporary ranks of " + rankIndex.playerCount() + " players indexed)");
     }
 
     public void saveData() {
@@ -47,39 +99,312 @@ public class DataManager {
         // This method is kept for compatibility
     }
 
+    /**
+     * Wait a bounded time for queued writes to reach storage, then close the provider
+     */
     public void close() {
+        try {
+            flush().get(DRAIN_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (TimeoutException e) {
+            plugin.getLogger().warning("Timed out waiting for " + writes.getPending() + " pending storage write(s); they will be lost.");
+        } catch (ExecutionException e) {
+            plugin.getLogger().severe("Failed to flush pending storage writes: " + e.getCause().getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        
+        ioExecutor.shutdown();
+        try {
+            if (!ioExecutor.awaitTermination(5, TimeUnit.SECONDS)) {
+                plugin.getLogger().warning("Timed out waiting for pending storage lookups to finish.");
+                ioExecutor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            ioExecutor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+        
         if (storageProvider != null) {
             storageProvider.close();
         }
     }
 
+    /**
+     * Run a blocking task on the I/O executor instead of the calling thread
+     */
+    public <T> CompletableFuture<T> supplyAsync(Supplier<T> supplier) {
+        return CompletableFuture.supplyAsync(supplier, ioExecutor);
+    }
+
+    /**
+     * Completes once every write submitted so far has reached storage
+     */
+    public CompletableFuture<Void> flush() {
+        return writes.flush();
+    }
+
+    /**
+     * Capture a storage backup that includes every write submitted before this call
+     */
+    public CompletableFuture<StorageBackup> createBackup() {
+        return submitBarrier(AsyncStorageProvider::createBackup);
+    }
+
+    /**
+     * Grants that have not started yet, read once at startup
+     */
+    public Collection<PendingGrant> loadPendingGrants() {
+        return asyncStorage.loadPendingGrants().join();
+    }
+    
+    public CompletableFuture<Void> savePendingGrant(PendingGrant grant) {
+        return submitWrite(grant.playerUUID(), storage -> storage.savePendingGrant(grant));
+    }
+    
+    /**
+     * Queued behind the rank writes of the activation, so a grant is only dropped after its rank is stored
+     */
+    public CompletableFuture<Void> removePendingGrants(Collection<PendingGrant> grants) {
+        List<PendingGrant> copy = List.copyOf(grants);
+        return submitBarrier(storage -> storage.removePendingGrants(copy));
+    }
+    
+    public int getPendingWrites() {
+        return writes.getPending();
+    }
+
+    /**
+     * Counter bumped on every change made through this manager, used to detect stale snapshots
+     */
+    public long getVersion() {
+        return version.get();
+    }
+
     public void addTempRank(UUID playerUUID, String rankName, long expirationTimestamp) {
         TempRankData data = new TempRankData(playerUUID, rankName, expirationTimestamp);
-        storageProvider.saveTempRank(data);
+        locks.withLock(playerUUID, () -> write(playerUUID, rankName, data));
+    }
+
+    public void removeTempRank(UUID playerUUID, String rankName) {
+        locks.withLock(playerUUID, () -> write(playerUUID, rankName, null));
+    }
+
+    /**
+     * Atomically replace one of a player's ranks with the result of the function.
+     * The function receives the current record (or null) and returns the new one, or null to remove it.
+     * It runs while the player's lock is held, so it must be quick and must not call back into this manager for other players.
+     * @return the record after the update, or null if there is none
+     */
+    public TempRankData compute(UUID playerUUID, String rankName, UnaryOperator<TempRankData> remapping) {
+        return locks.withLock(playerUUID, () -> {
+            TempRankData current = getTempRank(playerUUID, rankName);
+            TempRankData updated = remapping.apply(current);
+            if (!Objects.equals(current, updated)) {
+                write(playerUUID, rankName, updated);
+            }
+            return updated;
+        });
+    }
+
+    /**
+     * Replace a player's record for one rank only if it still equals the expected one (null meaning no record).
+     * A null update removes the record.
+     * @return true if the record matched and was replaced
+     */
+    public boolean compareAndSet(UUID playerUUID, String rankName, TempRankData expected, TempRankData updated) {
+        return locks.withLock(playerUUID, () -> {
+            if (!Objects.equals(getTempRank(playerUUID, rankName), expected)) {
+                return false;
+            }
+            write(playerUUID, rankName, updated);
+            return true;
+        });
     }
 
-    public void removeTempRank(UUID playerUUID) {
-        storageProvider.removeTempRank(playerUUID);
+    /**
+     * One record change for {@link #applyChanges(List)}. The updated record is never null.
+     * @param conditional only apply if the current record for the same rank still equals expected
+     */
+    public record Change(UUID playerUUID, TempRankData expected, TempRankData updated, boolean conditional) {
     }
 
-    public TempRankData getTempRank(UUID playerUUID) {
-        return storageProvider.getTempRank(playerUUID);
+    /**
+     * Apply many record changes together and save them in one storage transaction.
+     * Conditional changes whose record no longer matches are skipped.
+     * @return ranks whose conditional change was skipped
+     */
+    public Set<RankKey> applyChanges(List<Change> changes) {
+        return locks.withAllLocks(() -> {
+            Set<RankKey> conflicts = new HashSet<>();
+            List<TempRankData> saved = new ArrayList<>(changes.size());
+            for (Change change : changes) {
+                if (change.conditional() && !Objects.equals(getTempRank(change.playerUUID(), change.updated().getRankName()), change.expected())) {
+                    conflicts.add(change.updated().getKey());
+                    continue;
+                }
+                rankIndex.put(change.updated());
+                saved.add(change.updated());
+            }
+            if (!saved.isEmpty()) {
+                submitBarrier(storage -> storage.saveTempRanks(saved));
+                version.incrementAndGet();
+            }
+            return conflicts;
+        });
+    }
+
+    /**
+     * Must be called with the player's lock held, so storage sees one player's writes in the order the index did
+     */
+    private void write(UUID playerUUID, String rankName, TempRankData data) {
+        if (data == null) {
+            rankIndex.remove(playerUUID, rankName);
+            submitWrite(playerUUID, storage -> storage.removeTempRank(playerUUID, rankName));
+        } else {
+            rankIndex.put(data);
+            submitWrite(playerUUID, storage -> storage.saveTempRank(data));
+        }
+        version.incrementAndGet();
+    }
+
+    /**
+     * Queue a storage write for one player behind every write submitted before it in the player's write lane
+     */
+    private <T> CompletableFuture<T> submitWrite(UUID playerUUID, Function<AsyncStorageProvider, CompletableFuture<T>> write) {
+        return writes.submit(storageProvider.writeLaneOf(playerUUID), () -> write.apply(asyncStorage));
+    }
+
+    /**
+     * Queue a storage write that spans players, or a backup, behind every write submitted before it
+     */
+    private <T> CompletableFuture<T> submitBarrier(Function<AsyncStorageProvider, CompletableFuture<T>> write) {
+        return writes.submitBarrier(() -> write.apply(asyncStorage));
+    }
+
+    public TempRankData getTempRank(UUID playerUUID, String rankName) {
+        RankIndex.Entry entry = rankIndex.get(playerUUID, rankName);
+        return entry != null ? entry.toData() : null;
+    }
+
+    /**
+     * The player's primary rank: the running one that expires soonest, or a paused one if all are paused
+     */
+    public TempRankData getPrimaryTempRank(UUID playerUUID) {
+        RankIndex.Entry entry = rankIndex.primary(playerUUID);
+        return entry != null ? entry.toData() : null;
+    }
+
+    /**
+     * Every rank the player holds, soonest to expire first
+     */
+    public List<TempRankData> getTempRanks(UUID playerUUID) {
+        List<RankIndex.Entry> entries = rankIndex.getAll(playerUUID);
+        List<TempRankData> result = new ArrayList<>(entries.size());
+        for (RankIndex.Entry entry : entries) {
+            result.add(entry.toData());
+        }
+        return result;
     }
 
     public boolean hasTempRank(UUID playerUUID) {
-        return storageProvider.hasTempRank(playerUUID);
+        return rankIndex.contains(playerUUID);
+    }
+
+    /**
+     * Visit the indexed ranks matching the filter without copying them. A rank filter walks only
+     * that rank's entries, soonest to expire first. Safe on any thread; entries changed during the
+     * walk may or may not be seen.
+     * @return true if every match was visited, false if the visitor stopped early
+     */
+    public boolean forEachTempRank(RankFilter filter, RankVisitor visitor) {
+        Collection<RankIndex.Entry> entries = filter.rankName() != null ? rankIndex.byRank(filter.rankName()) : rankIndex.all();
+        for (RankIndex.Entry entry : entries) {
+            if (filter.matches(entry.rankName(), entry.paused(), entry.playtime()) && !visitor.visit(entry.toData())) {
+                return false;
+            }
+        }
+        return true;
     }
 
-    public Collection<TempRankData> getAllTempRanks() {
-        return storageProvider.loadAllData();
+    /**
+     * The primary rank of each of the given players. Players without a rank are absent from the map.
+     */
+    public Map<UUID, TempRankData> getPrimaryTempRanks(Collection<UUID> playerUUIDs) {
+        Map<UUID, TempRankData> result = new HashMap<>();
+        for (UUID playerUUID : playerUUIDs) {
+            RankIndex.Entry entry = rankIndex.primary(playerUUID);
+            if (entry != null) {
+                result.put(playerUUID, entry.toData());
+            }
+        }
+        return result;
     }
 
+    /**
+     * Store the record as the player's record for its rank, leaving their other ranks alone
+     */
     public void updateTempRank(UUID playerUUID, TempRankData data) {
-        storageProvider.saveTempRank(data);
+        locks.withLock(playerUUID, () -> write(playerUUID, data.getRankName(), data));
+    }
+
+    /**
+     * Add time to every active rank, or only to ranks with the given name, in one storage operation.
+     * Paused ranks get the time added to their frozen remainder.
+     * @param extended called with each record as stored afterwards, while every lock is still held
+     * @return number of ranks extended
+     */
+    public int extendAll(long millis, String rankName, Consumer<TempRankData> extended) {
+        return bulkExtend(millis, rankName, true, TimeUtil.currentTimeMillis(), extended);
+    }
+
+    /**
+     * Push back the expiration of every running rank that was still active at the given time,
+     * used to give back server downtime
+     * @param shifted called with each record as stored afterwards, while every lock is still held
+     * @return number of ranks shifted
+     */
+    public int shiftRunningExpirations(long millis, long activeAt, Consumer<TempRankData> shifted) {
+        return bulkExtend(millis, null, false, activeAt, shifted);
+    }
+
+    /**
+     * Applies the same rule as {@link StorageProvider#extendTempRanks} to the index, then queues the
+     * single set-based storage update behind any pending writes
+     */
+    private int bulkExtend(long millis, String rankName, boolean includePaused, long activeAt, Consumer<TempRankData> extended) {
+        return locks.withAllLocks(() -> {
+            // Records are updated while walking the live index, never collected first. An extended rank
+            // only moves later in expiry order, so walking a rank latest first never meets it again;
+            // the whole index is walked by player and has no order to disturb.
+            Iterable<RankIndex.Entry> candidates = rankName != null ? rankIndex.byRank(rankName).descendingSet() : rankIndex.all();
+            int count = 0;
+            for (RankIndex.Entry entry : candidates) {
+                TempRankData data = entry.toData();
+                TempRankData updated;
+                if (data.isPaused()) {
+                    if (!includePaused) {
+                        continue;
+                    }
+                    updated = data.withExpirationTimestamp(data.getExpirationTimestamp() + millis).withTimeLeftMillis(data.getTimeLeftMillis() + millis);
+                } else if (data.getExpirationTimestamp() > activeAt) {
+                    updated = data.withExpirationTimestamp(data.getExpirationTimestamp() + millis);
+                } else {
+                    continue;
+                }
+                rankIndex.put(updated);
+                extended.accept(updated);
+                count++;
+            }
+            if (count > 0) {
+                submitBarrier(storage -> storage.extendTempRanks(millis, rankName, includePaused, activeAt));
+                version.incrementAndGet();
+            }
+            return count;
+        });
     }
 
-    public void removeExpiredRanks() {
-        storageProvider.removeExpiredRanks();
+    public RankIndex getRankIndex() {
+        return rankIndex;
     }
 
     public StorageProvider getStorageProvider() {
@@ -0,0 +1,162 @@
+package me.itzrenzo.temprankmanager;
+
+import me.itzrenzo.temprankmanager.scheduler.TaskHandle;
+import org.bukkit.Bukkit;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerJoinEvent;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Pre-expiry warnings ("your vip rank expires in 1h"). There is no task per player or per threshold:
+ * one repeating scan asks the rank index which running ranks crossed a threshold since the previous scan,
+ * so each scan costs O(thresholds * log n + warnings due). Warnings due in the same scan are sent to each
+ * player in one task, one line per rank; players who are offline get theirs when they join, unless the
+ * rank has run out by then.
+ */
+public class ExpiryWarnings implements Listener {
+    private final TempRankManager plugin;
+    private final RankIndex rankIndex;
+    private final Map<String, Set<Long>> thresholdsByRank = new HashMap<>();
+    private final Set<Long> defaultThresholds;
+    // Union of all thresholds, each scanned once per run
+    private final NavigableSet<Long> allThresholds = new TreeSet<>();
+    // Offline players' warnings by rank, with the expiration they were about; dropped once that has passed
+    private final Map<UUID, Map<String, Long>> pendingOnJoin = new ConcurrentHashMap<>();
+    private TaskHandle task;
+    private long lastScan;
+
+    public ExpiryWarnings(TempRankManager plugin) {
+        this.plugin = plugin;
+        this.rankIndex = plugin.getDataManager().getRankIndex();
+        this.defaultThresholds = parseThresholds(plugin.getConfig().getStringList("warnings.default"));
+        allThresholds.addAll(defaultThresholds);
+        
+        ConfigurationSection ranks = plugin.getConfig().getConfigurationSection("warnings.ranks");
+        if (ranks != null) {
+            for (String rankName : ranks.getKeys(false)) {
+                Set<Long> thresholds = parseThresholds(ranks.getStringList(rankName));
+                thresholdsByRank.put(rankName.toLowerCase(Locale.ROOT), thresholds);
+                allThresholds.addAll(thresholds);
+            }
+        }
+    }
+
+    public void start() {
+        if (!plugin.getConfig().getBoolean("warnings.enabled", true) || allThresholds.isEmpty()) {
+            return;
+        }
+        
+        long intervalTicks = Math.max(1, plugin.getConfig().getLong("warnings.check-interval-seconds", 30)) * 20L;
+        lastScan = TimeUtil.currentTimeMillis();
+        task = plugin.getTaskScheduler().runGlobalTimer(this::scan, intervalTicks, intervalTicks);
+        Bukkit.getPluginManager().registerEvents(this, plugin);
+    }
+
+    public void stop() {
+        if (task != null && !task.isCancelled()) {
+            task.cancel();
+        }
+    }
+
+    private void scan() {
+        long now = TimeUtil.currentTimeMillis();
+        long from = lastScan;
+        lastScan = now;
+        
+        // Ranks that crossed a threshold in (from, now] expire in (from + T, now + T]
+        Map<UUID, Map<String, Long>> due = new LinkedHashMap<>();
+        for (long threshold : allThresholds) {
+            for (RankIndex.Entry entry : rankIndex.expiringBetween(from + threshold, now + threshold)) {
+                if (thresholdsFor(entry.rankName()).contains(threshold)) {
+                    due.computeIfAbsent(entry.playerUUID(), uuid -> new LinkedHashMap<>()).put(entry.rankName(), entry.expirationTimestamp());
+                }
+            }
+        }
+        
+        pruneExpired(now);
+        due.forEach((playerUUID, ranks) -> {
+            Player player = Bukkit.getPlayer(playerUUID);
+            if (player != null) {
+                plugin.getTaskScheduler().runForEntity(player, () -> sendWarnings(player, ranks.keySet()));
+            } else {
+                pendingOnJoin.computeIfAbsent(playerUUID, uuid -> new ConcurrentHashMap<>()).putAll(ranks);
+            }
+        });
+    }
+
+    /**
+     * Forget waiting warnings whose expiration has passed, whether the rank expired, was removed or was
+     * extended meanwhile, so holders who never rejoin do not stay in the map
+     */
+    private void pruneExpired(long now) {
+        pendingOnJoin.values().removeIf(ranks -> {
+            ranks.values().removeIf(expiration -> expiration <= now);
+            return ranks.isEmpty();
+        });
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPlayerJoin(PlayerJoinEvent event) {
+        Player player = event.getPlayer();
+        Map<String, Long> ranks = pendingOnJoin.remove(player.getUniqueId());
+        if (ranks != null) {
+            sendWarnings(player, ranks.keySet());
+        }
+    }
+
+    /**
+     * Send the current remaining time, so a late or combined warning is still accurate
+     */
+    private void sendWarnings(Player player, Set<String> rankNames) {
+        long now = TimeUtil.currentTimeMillis();
+        for (String rankName : rankNames) {
+            RankIndex.Entry entry = rankIndex.get(player.getUniqueId(), rankName);
+            if (entry == null || entry.paused()) {
+                continue;
+            }
+            
+            long remaining = entry.remainingMillis(now);
+            if (remaining > 0) {
+                player.sendMessage("§eYour §b" + entry.rankName() + " §erank expires in §c" + TimeUtil.formatTime(remaining) + "§e.");
+            }
+        }
+    }
+
+    private Set<Long> thresholdsFor(String rankName) {
+        Set<Long> thresholds = thresholdsByRank.get(rankName.toLowerCase(Locale.ROOT));
+        return thresholds != null ? thresholds : defaultThresholds;
+    }
+
+    private Set<Long> parseThresholds(List<String> values) {
+        if (values == null || values.isEmpty()) {
+            return Collections.emptySet();
+        }
+        
+        List<Long> thresholds = new ArrayList<>();
+        for (String value : values) {
+            long millis = TimeUtil.parseTime(value);
+            if (millis > 0) {
+                thresholds.add(millis);
+            } else {
+                plugin.getLogger().warning("Ignoring invalid warning threshold '" + value + "'");
+            }
+        }
+        return Set.copyOf(thresholds);
+    }
+}
@@ -0,0 +1,206 @@
+package me.itzrenzo.temprankmanager;
+
+import me.itzrenzo.temprankmanager.permission.PermissionBackend;
+import me.itzrenzo.temprankmanager.scheduler.TaskHandle;
+import org.bukkit.command.CommandSender;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Ingestion queue for console give commands, which stores and webhooks send in bursts.
+ * Commands are queued and applied in batches once per flush: grants of the same rank to the same
+ * player are merged into one accumulation, and each batch is written in one storage transaction
+ * and scheduled in one pass. Every queued command still gets its own reply.
+ */
+public class GiveQueue {
+
+    // Repeated saturation warnings are collapsed into one line per interval
+    private static final long SATURATION_LOG_INTERVAL_MILLIS = 10_000;
+
+    /**
+     * One queued give command
+     */
+    public record Request(CommandSender sender, UUID playerUUID, String playerName, String rankName, long durationMillis, boolean playtime) {
+    }
+
+    private record MergeKey(UUID playerUUID, String rankName, boolean playtime) {
+    }
+
+    private final TempRankManager plugin;
+    private final SchedulerHandler schedulerHandler;
+    private final PermissionBackend permission;
+    private final boolean enabled;
+    private final int maxQueued;
+    private final int batchSize;
+    private final Queue<Request> queue = new ConcurrentLinkedQueue<>();
+    // Accepted commands not yet applied, deferred ones included, so ingestion.max-queued bounds both
+    private final AtomicInteger size = new AtomicInteger();
+    // Requests held back because their player and rank already had another grant in the batch; only touched by the flush
+    private final Queue<Request> deferred = new ArrayDeque<>();
+    private final AtomicInteger rejectedSinceLog = new AtomicInteger();
+    private volatile long lastSaturationLog;
+    private TaskHandle flushTask;
+
+    public GiveQueue(TempRankManager plugin, SchedulerHandler schedulerHandler) {
+        this.plugin = plugin;
+        this.schedulerHandler = schedulerHandler;
+        this.permission = plugin.getPermission();
+        this.enabled = plugin.getConfig().getBoolean("ingestion.enabled", false);
+        this.maxQueued = Math.max(1, plugin.getConfig().getInt("ingestion.max-queued", 5000));
+        this.batchSize = Math.max(1, plugin.getConfig().getInt("ingestion.batch-size", 200));
+    }
+
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        long intervalTicks = Math.max(1, plugin.getConfig().getLong("ingestion.flush-interval-ticks", 1));
+        flushTask = plugin.getTaskScheduler().runGlobalTimer(this::flush, intervalTicks, intervalTicks);
+        plugin.getLogger().info("Console give commands are queued and applied in batches of up to " + batchSize);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Queue a give command
+     * @return false if the queue is full and the command was rejected
+     */
+    public boolean offer(Request request) {
+        if (size.incrementAndGet() > maxQueued) {
+            size.decrementAndGet();
+            rejectedSinceLog.incrementAndGet();
+            long now = System.currentTimeMillis();
+            if (now - lastSaturationLog >= SATURATION_LOG_INTERVAL_MILLIS) {
+                lastSaturationLog = now;
+                plugin.getLogger().warning("Give queue is full (" + maxQueued + " commands); rejected " + rejectedSinceLog.getAndSet(0)
+                        + " command(s). Raise ingestion.max-queued or ingestion.batch-size if this keeps happening.");
+            }
+            return false;
+        }
+        queue.add(request);
+        return true;
+    }
+
+    public int getQueued() {
+        return size.get();
+    }
+
+    /**
+     * Apply one batch. Runs on the global thread.
+     */
+    private void flush() {
+        List<Request> batch = new ArrayList<>(Math.min(batchSize, getQueued()));
+        while (batch.size() < batchSize && !deferred.isEmpty()) {
+            batch.add(deferred.poll());
+        }
+        while (batch.size() < batchSize) {
+            Request request = queue.poll();
+            if (request == null) {
+                break;
+            }
+            batch.add(request);
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        long started = System.nanoTime();
+        Set<String> groups = new HashSet<>();
+        String[] known = permission.getGroups();
+        if (known != null) {
+            for (String group : known) {
+                groups.add(group.toLowerCase(Locale.ROOT));
+            }
+        }
+
+        // Merge grants of one rank to one player; a player gets at most one grant per rank per batch.
+        // Without accumulation each command replaces the last, so they cannot be summed up front.
+        boolean accumulate = plugin.getConfig().getBoolean("settings.accumulate-time", true);
+        Map<MergeKey, List<Request>> merged = new LinkedHashMap<>();
+        Map<RankKey, MergeKey> byRank = new LinkedHashMap<>();
+        int deferredAgain = 0;
+        for (Request request : batch) {
+            if (!groups.contains(request.rankName().toLowerCase(Locale.ROOT))) {
+                request.sender().sendMessage("§cRank '" + request.rankName() + "' does not exist.");
+                continue;
+            }
+            MergeKey key = new MergeKey(request.playerUUID(), request.rankName().toLowerCase(Locale.ROOT), request.playtime());
+            MergeKey existing = byRank.putIfAbsent(RankKey.of(request.playerUUID(), request.rankName()), key);
+            if (existing != null && (!accumulate || !existing.equals(key))) {
+                deferred.add(request);
+                deferredAgain++;
+                continue;
+            }
+            merged.computeIfAbsent(key, k -> new ArrayList<>()).add(request);
+        }
+        size.addAndGet(-(batch.size() - deferredAgain));
+
+        List<SchedulerHandler.Grant> grants = new ArrayList<>(merged.size());
+        for (List<Request> requests : merged.values()) {
+            Request first = requests.get(0);
+            long total = 0;
+            for (Request request : requests) {
+                total += request.durationMillis();
+            }
+            grants.add(new SchedulerHandler.Grant(first.playerUUID(), first.playerName(), first.rankName(), total, first.playtime()));
+        }
+        List<SchedulerHandler.RankAssignmentResult> results = schedulerHandler.giveRanks(grants);
+
+        int index = 0;
+        for (List<Request> requests : merged.values()) {
+            reply(requests, results.get(index++));
+        }
+
+        if (batch.size() > 1) {
+            plugin.getLogger().info("Applied " + batch.size() + " queued give command(s) as " + grants.size() + " change(s) in "
+                    + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started) + "ms (" + getQueued() + " still queued)");
+        }
+    }
+
+    private void reply(List<Request> requests, SchedulerHandler.RankAssignmentResult result) {
+        for (int i = 0; i < requests.size(); i++) {
+            Request request = requests.get(i);
+            String playerName = request.playerName();
+            String rankName = request.rankName();
+            String addedTime = TimeUtil.formatTime(request.durationMillis());
+            if (result.isCancelled()) {
+                request.sender().sendMessage("§cGiving rank " + rankName + " to " + playerName + " was cancelled by another plugin.");
+            } else if (result.wasAccumulated() || i > 0) {
+                // Merged commands after the first one add to the grant made by the first
+                request.sender().sendMessage("§aAdded " + addedTime + " to " + playerName + "'s " + rankName + " rank. Total time: "
+                        + TimeUtil.formatTime(result.getTotalTime()) + ".");
+            } else {
+                request.sender().sendMessage("§aGave player " + playerName + " rank " + rankName + " for " + addedTime
+                        + (request.playtime() ? " of online time" : "") + ".");
+            }
+        }
+    }
+
+    /**
+     * Apply everything still queued, so no accepted command is lost on shutdown. The plugin is
+     * already disabled by then, so the ranks are only written; their timers are created from
+     * storage on the next start.
+     */
+    public void close() {
+        if (flushTask != null && !flushTask.isCancelled()) {
+            flushTask.cancel();
+        }
+        while (getQueued() > 0) {
+            flush();
+        }
+    }
+}
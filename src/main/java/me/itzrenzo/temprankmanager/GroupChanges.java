@@ -0,0 +1,56 @@
+package me.itzrenzo.temprankmanager;
+
+import me.itzrenzo.temprankmanager.jfr.PermissionChangeEvent;
+import me.itzrenzo.temprankmanager.permission.PermissionBackend;
+import org.bukkit.OfflinePlayer;
+
+/**
+ * Group changes made through the permission backend, each recorded as a {@link PermissionChangeEvent}
+ */
+final class GroupChanges {
+
+    private GroupChanges() {
+    }
+
+    static boolean add(PermissionBackend permission, OfflinePlayer player, String group) {
+        PermissionChangeEvent event = new PermissionChangeEvent();
+        event.begin();
+        boolean succeeded = permission.addGroup(player, group);
+        commit(event, "add", player, group, succeeded);
+        return succeeded;
+    }
+
+    /**
+     * Give the group of a temporary rank. A running rank is handed to the backend with its expiry;
+     * a paused one has no expiry until it resumes.
+     */
+    static boolean grant(PermissionBackend permission, OfflinePlayer player, TempRankData data) {
+        if (data.isPaused()) {
+            return add(permission, player, data.getRankName());
+        }
+        PermissionChangeEvent event = new PermissionChangeEvent();
+        event.begin();
+        boolean succeeded = permission.addGroupUntil(player, data.getRankName(), data.getExpirationTimestamp());
+        commit(event, "addUntil", player, data.getRankName(), succeeded);
+        return succeeded;
+    }
+
+    static boolean remove(PermissionBackend permission, OfflinePlayer player, String group) {
+        PermissionChangeEvent event = new PermissionChangeEvent();
+        event.begin();
+        boolean succeeded = permission.removeGroup(player, group);
+        commit(event, "remove", player, group, succeeded);
+        return succeeded;
+    }
+
+    private static void commit(PermissionChangeEvent event, String operation, OfflinePlayer player, String group, boolean succeeded) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.operation = operation;
+            event.playerUUID = player.getUniqueId().toString();
+            event.group = group;
+            event.succeeded = succeeded;
+            event.commit();
+        }
+    }
+}
@@ -0,0 +1,388 @@
+package me.itzrenzo.temprankmanager;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import me.itzrenzo.temprankmanager.api.TempRankInfo;
+import me.itzrenzo.temprankmanager.api.TempRankService;
+import me.itzrenzo.temprankmanager.api.TempRankSnapshot;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Optional read-only JSON endpoint for web panels and bots, served by the JDK's built-in HTTP server.
+ * Every response comes from an immutable view of the API snapshot, rebuilt on a background thread
+ * only when the data version changes, so polling never touches the server thread or storage.
+ * The ETag is the data version: a matching If-None-Match gets 304 without a body, and rendered
+ * responses are cached per view so unchanged data is serialized once.
+ * <pre>
+ * GET /player/&lt;uuid or name&gt;   (primary rank, plus every rank the player holds)
+ * GET /ranks?rank=&lt;rank&gt;&amp;page=1&amp;size=100   (soonest expiry first; paused ranks last)
+ * GET /counts
+ * </pre>
+ */
+public class HttpQueryServer {
+
+    private static final int DEFAULT_PAGE_SIZE = 100;
+    private static final int MAX_PAGE_SIZE = 1000;
+    // Rendered responses kept per view; odd queries beyond this are rendered on every request
+    private static final int MAX_CACHED_RESPONSES = 1024;
+
+    private static final Comparator<TempRankInfo> LISTING_ORDER = Comparator
+            .comparing(TempRankInfo::paused)
+            .thenComparingLong(info -> info.paused() ? info.timeLeftMillis() : info.expirationTimestamp())
+            .thenComparing(TempRankInfo::playerUUID)
+            .thenComparing(TempRankInfo::rankName, String.CASE_INSENSITIVE_ORDER);
+
+    private final TempRankManager plugin;
+    private final TempRankService service;
+    private final NameIndex nameIndex;
+    private volatile View view;
+    private HttpServer server;
+    private ExecutorService handlers;
+    private ScheduledExecutorService refresher;
+
+    /**
+     * Everything served for one data version. Never modified after publication except for the response cache.
+     */
+    private static final class View {
+        final long version;
+        final long generatedAt;
+        final String etag;
+        final List<TempRankInfo> ordered;
+        final Map<UUID, List<TempRankInfo>> byPlayer;
+        final Map<String, List<TempRankInfo>> byRank = new HashMap<>();
+        final Map<String, String> names = new HashMap<>();
+        final Map<String, Response> responses = new ConcurrentHashMap<>();
+
+        View(TempRankSnapshot snapshot, NameIndex nameIndex) {
+            this.version = snapshot.getVersion();
+            this.generatedAt = snapshot.getCreatedAt();
+            this.etag = "\"" + version + "\"";
+            this.byPlayer = snapshot.byPlayer();
+            List<TempRankInfo> sorted = new ArrayList<>(snapshot.all());
+            sorted.sort(LISTING_ORDER);
+            this.ordered = List.copyOf(sorted);
+            for (TempRankInfo info : ordered) {
+                byRank.computeIfAbsent(info.rankName().toLowerCase(Locale.ROOT), key -> new ArrayList<>()).add(info);
+                String name = nameIndex.getName(info.playerUUID());
+                if (name != null) {
+                    names.put(info.playerUUID().toString(), name);
+                }
+            }
+        }
+    }
+
+    public HttpQueryServer(TempRankManager plugin, TempRankService service) {
+        this.plugin = plugin;
+        this.service = service;
+        this.nameIndex = plugin.getNameIndex();
+    }
+
+    public void start() {
+        if (!plugin.getConfig().getBoolean("http.enabled", false)) {
+            return;
+        }
+
+        String bind = plugin.getConfig().getString("http.bind", "127.0.0.1");
+        int port = plugin.getConfig().getInt("http.port", 8765);
+        int threads = Math.max(1, plugin.getConfig().getInt("http.threads", 2));
+        long refreshMillis = Math.max(100, plugin.getConfig().getLong("http.refresh-millis", 1000));
+
+        view = new View(service.getSnapshot(), nameIndex);
+        try {
+            server = HttpServer.create(new InetSocketAddress(bind, port), 0);
+        } catch (IOException e) {
+            plugin.getLogger().severe("Failed to start the HTTP query endpoint on " + bind + ":" + port + ": " + e.getMessage());
+            e.printStackTrace();
+            return;
+        }
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        handlers = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "TempRankManager-HTTP-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        refresher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "TempRankManager-HTTP-Snapshot");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        server.setExecutor(handlers);
+        server.createContext("/", this::handle);
+        server.start();
+        refresher.scheduleWithFixedDelay(this::refresh, refreshMillis, refreshMillis, TimeUnit.MILLISECONDS);
+        plugin.getLogger().info("HTTP query endpoint listening on http://" + bind + ":" + port + "/");
+    }
+
+    /**
+     * Republish the view when the data version moved. Comparing versions is all an idle poll costs.
+     */
+    private void refresh() {
+        if (plugin.getDataManager().getVersion() == view.version) {
+            return;
+        }
+        try {
+            TempRankSnapshot snapshot = service.refreshSnapshot().join();
+            if (snapshot.getVersion() != view.version) {
+                view = new View(snapshot, nameIndex);
+            }
+        } catch (RuntimeException e) {
+            plugin.getLogger().warning("Failed to refresh the HTTP query snapshot: " + e.getMessage());
+        }
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            String method = exchange.getRequestMethod();
+            if (!method.equals("GET") && !method.equals("HEAD")) {
+                exchange.getResponseHeaders().set("Allow", "GET, HEAD");
+                send(exchange, new Response(405, error("Method not allowed")), method);
+                return;
+            }
+
+            View current = view;
+            exchange.getResponseHeaders().set("ETag", current.etag);
+            exchange.getResponseHeaders().set("Cache-Control", "no-cache");
+            String ifNoneMatch = exchange.getRequestHeaders().getFirst("If-None-Match");
+            if (ifNoneMatch != null && (ifNoneMatch.equals(current.etag) || ifNoneMatch.equals("W/" + current.etag))) {
+                exchange.sendResponseHeaders(304, -1);
+                return;
+            }
+
+            String path = exchange.getRequestURI().getRawPath();
+            String query = exchange.getRequestURI().getRawQuery();
+            String key = query != null ? path + "?" + query : path;
+            Response response = current.responses.get(key);
+            if (response == null) {
+                response = render(current, path, parseQuery(query));
+                if (response.status() != 400 && current.responses.size() < MAX_CACHED_RESPONSES) {
+                    current.responses.put(key, response);
+                }
+            }
+            send(exchange, response, method);
+        }
+    }
+
+    private record Response(int status, byte[] body) {
+        Response(int status, String body) {
+            this(status, body.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    private Response render(View current, String path, Map<String, String> query) {
+        if (path.equals("/counts")) {
+            return new Response(200, renderCounts(current));
+        }
+        if (path.equals("/ranks")) {
+            return renderRanks(current, query);
+        }
+        if (path.startsWith("/player/") && path.length() > "/player/".length()) {
+            return renderPlayer(current, URLDecoder.decode(path.substring("/player/".length()), StandardCharsets.UTF_8));
+        }
+        return new Response(404, error("Unknown path; use /player/<uuid or name>, /ranks or /counts"));
+    }
+
+    private Response renderPlayer(View current, String target) {
+        UUID playerUUID;
+        try {
+            playerUUID = UUID.fromString(target);
+        } catch (IllegalArgumentException e) {
+            // Only names the server already knows; the endpoint never looks players up
+            playerUUID = nameIndex.getUuid(target);
+        }
+        List<TempRankInfo> infos = playerUUID != null ? current.byPlayer.get(playerUUID) : null;
+        if (infos == null) {
+            return new Response(404, error("No temporary rank for " + target));
+        }
+
+        // The snapshot keeps each player's primary rank first
+        StringBuilder json = header(current);
+        json.append(",\"rank\":");
+        appendRank(json, current, infos.get(0));
+        json.append(",\"ranks\":[");
+        for (int i = 0; i < infos.size(); i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            appendRank(json, current, infos.get(i));
+        }
+        return new Response(200, json.append("]}").toString());
+    }
+
+    private Response renderRanks(View current, Map<String, String> query) {
+        int page;
+        int size;
+        try {
+            page = Math.max(1, Integer.parseInt(query.getOrDefault("page", "1")));
+            size = Math.max(1, Math.min(MAX_PAGE_SIZE, Integer.parseInt(query.getOrDefault("size", String.valueOf(DEFAULT_PAGE_SIZE)))));
+        } catch (NumberFormatException e) {
+            return new Response(400, error("page and size must be numbers"));
+        }
+        String rank = query.get("rank");
+        List<TempRankInfo> entries = rank == null ? current.ordered : current.byRank.getOrDefault(rank.toLowerCase(Locale.ROOT), List.of());
+
+        int from = (int) Math.min(entries.size(), (long) (page - 1) * size);
+        int to = Math.min(entries.size(), from + size);
+        StringBuilder json = header(current);
+        json.append(",\"page\":").append(page)
+                .append(",\"size\":").append(size)
+                .append(",\"total\":").append(entries.size())
+                .append(",\"pages\":").append((entries.size() + size - 1) / size)
+                .append(",\"ranks\":[");
+        for (int i = from; i < to; i++) {
+            if (i > from) {
+                json.append(',');
+            }
+            appendRank(json, current, entries.get(i));
+        }
+        return new Response(200, json.append("]}").toString());
+    }
+
+    private String renderCounts(View current) {
+        Map<String, int[]> counts = new LinkedHashMap<>();
+        int paused = 0;
+        for (Map.Entry<String, List<TempRankInfo>> entry : current.byRank.entrySet()) {
+            List<TempRankInfo> infos = entry.getValue();
+            int[] total = counts.computeIfAbsent(infos.get(0).rankName(), key -> new int[2]);
+            for (TempRankInfo info : infos) {
+                total[0]++;
+                if (info.paused()) {
+                    total[1]++;
+                    paused++;
+                }
+            }
+        }
+
+        StringBuilder json = header(current);
+        json.append(",\"total\":").append(current.ordered.size())
+                .append(",\"running\":").append(current.ordered.size() - paused)
+                .append(",\"paused\":").append(paused)
+                .append(",\"ranks\":{");
+        boolean first = true;
+        for (Map.Entry<String, int[]> entry : counts.entrySet()) {
+            if (!first) {
+                json.append(',');
+            }
+            first = false;
+            appendString(json, entry.getKey());
+            json.append(":{\"total\":").append(entry.getValue()[0])
+                    .append(",\"running\":").append(entry.getValue()[0] - entry.getValue()[1])
+                    .append(",\"paused\":").append(entry.getValue()[1]).append('}');
+        }
+        return json.append("}}").toString();
+    }
+
+    private static StringBuilder header(View current) {
+        return new StringBuilder(256).append("{\"version\":").append(current.version).append(",\"generatedAt\":").append(current.generatedAt);
+    }
+
+    /**
+     * Only fields that change with the data version, so a body stays valid for its ETag.
+     * Clients work out the remaining time from expiresAt, or timeLeftMillis for paused ranks.
+     */
+    private static void appendRank(StringBuilder json, View current, TempRankInfo info) {
+        String uuid = info.playerUUID().toString();
+        json.append("{\"uuid\":");
+        appendString(json, uuid);
+        json.append(",\"name\":");
+        String name = current.names.get(uuid);
+        if (name != null) {
+            appendString(json, name);
+        } else {
+            json.append("null");
+        }
+        json.append(",\"rank\":");
+        appendString(json, info.rankName());
+        json.append(",\"expiresAt\":").append(info.expirationTimestamp())
+                .append(",\"paused\":").append(info.paused())
+                .append(",\"timeLeftMillis\":").append(info.timeLeftMillis())
+                .append(",\"playtime\":").append(info.playtime())
+                .append('}');
+    }
+
+    private static String error(String message) {
+        StringBuilder json = new StringBuilder("{\"error\":");
+        appendString(json, message);
+        return json.append('}').toString();
+    }
+
+    private static void appendString(StringBuilder json, String value) {
+        json.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> json.append("\\\"");
+                case '\\' -> json.append("\\\\");
+                case '\n' -> json.append("\\n");
+                case '\r' -> json.append("\\r");
+                case '\t' -> json.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        json.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        json.append(c);
+                    }
+                }
+            }
+        }
+        json.append('"');
+    }
+
+    private static Map<String, String> parseQuery(String rawQuery) {
+        Map<String, String> values = new HashMap<>();
+        if (rawQuery == null || rawQuery.isEmpty()) {
+            return values;
+        }
+        for (String pair : rawQuery.split("&")) {
+            int equals = pair.indexOf('=');
+            String name = URLDecoder.decode(equals >= 0 ? pair.substring(0, equals) : pair, StandardCharsets.UTF_8);
+            String value = equals >= 0 ? URLDecoder.decode(pair.substring(equals + 1), StandardCharsets.UTF_8) : "";
+            values.putIfAbsent(name, value);
+        }
+        return values;
+    }
+
+    private static void send(HttpExchange exchange, Response response, String method) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        if (method.equals("HEAD")) {
+            exchange.sendResponseHeaders(response.status(), -1);
+            return;
+        }
+        exchange.sendResponseHeaders(response.status(), response.body().length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(response.body());
+        }
+    }
+
+    public void close() {
+        if (server != null) {
+            server.stop(0);
+        }
+        if (refresher != null) {
+            refresher.shutdownNow();
+        }
+        if (handlers != null) {
+            handlers.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package me.itzrenzo.temprankmanager;
+
+import org.bukkit.Bukkit;
+import org.bukkit.OfflinePlayer;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerJoinEvent;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Local name to UUID index so commands never resolve offline players on the server thread.
+ * Filled from joins and, at startup, from the holders of stored ranks. Names it does not know are
+ * looked up on an I/O thread in the server's profile cache only, which never goes to the network.
+ */
+public class NameIndex implements Listener {
+
+    public record KnownPlayer(UUID uuid, String name) {
+    }
+
+    private final TempRankManager plugin;
+    private final Map<String, UUID> byName = new ConcurrentHashMap<>();
+    private final Map<UUID, String> byUuid = new ConcurrentHashMap<>();
+
+    public NameIndex(TempRankManager plugin) {
+        this.plugin = plugin;
+    }
+
+    /**
+     * Learn the names of stored rank holders and online players in the background
+     */
+    public void seed() {
+        for (Player player : Bukkit.getOnlinePlayers()) {
+            remember(player.getUniqueId(), player.getName());
+        }
+
+        // The live index is safe to walk from the I/O thread, so holders are never copied into a list
+        RankIndex rankIndex = plugin.getDataManager().getRankIndex();
+        plugin.getDataManager().supplyAsync(() -> {
+            for (RankIndex.Entry entry : rankIndex.all()) {
+                if (!byUuid.containsKey(entry.playerUUID())) {
+                    remember(entry.playerUUID(), Bukkit.getOfflinePlayer(entry.playerUUID()).getName());
+                }
+            }
+            return null;
+        });
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPlayerJoin(PlayerJoinEvent event) {
+        remember(event.getPlayer().getUniqueId(), event.getPlayer().getName());
+    }
+
+    public void remember(UUID playerUUID, String name) {
+        if (name == null) {
+            return;
+        }
+        String previous = byUuid.put(playerUUID, name);
+        if (previous != null && !previous.equalsIgnoreCase(name)) {
+            // Renamed: the old name may now belong to someone else
+            byName.remove(previous.toLowerCase(Locale.ROOT), playerUUID);
+        }
+        byName.put(name.toLowerCase(Locale.ROOT), playerUUID);
+    }
+
+    /**
+     * Last known name of a player, or null
+     */
+    public String getName(UUID playerUUID) {
+        return byUuid.get(playerUUID);
+    }
+
+    /**
+     * UUID of a name this index already knows, or null. Never looks anything up.
+     */
+    public UUID getUuid(String name) {
+        return byName.get(name.toLowerCase(Locale.ROOT));
+    }
+
+    /**
+     * Resolve a player who has played here before. Completes immediately for known names and
+     * otherwise on an I/O thread, with null if nobody by that name has played on this server.
+     */
+    public CompletableFuture<KnownPlayer> resolve(String name) {
+        UUID known = byName.get(name.toLowerCase(Locale.ROOT));
+        if (known != null) {
+            return CompletableFuture.completedFuture(new KnownPlayer(known, byUuid.getOrDefault(known, name)));
+        }
+
+        return plugin.getDataManager().supplyAsync(() -> {
+            OfflinePlayer player = Bukkit.getOfflinePlayerIfCached(name);
+            if (player == null || (!player.hasPlayedBefore() && !player.isOnline())) {
+                return null;
+            }
+            String resolvedName = player.getName() != null ? player.getName() : name;
+            remember(player.getUniqueId(), resolvedName);
+            return new KnownPlayer(player.getUniqueId(), resolvedName);
+        });
+    }
+}
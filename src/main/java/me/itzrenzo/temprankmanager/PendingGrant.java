@@ -0,0 +1,10 @@
+package me.itzrenzo.temprankmanager;
+
+import java.util.UUID;
+
+/**
+ * A grant that starts at a future time. Persisted until it is activated.
+ * @param startAt when the rank is given, in epoch milliseconds
+ */
+public record PendingGrant(UUID id, UUID playerUUID, String playerName, String rankName, long durationMillis, long startAt, boolean playtime) {
+}
@@ -0,0 +1,174 @@
+package me.itzrenzo.temprankmanager;
+
+import me.itzrenzo.temprankmanager.audit.AuditAction;
+import me.itzrenzo.temprankmanager.scheduler.TaskHandle;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * Grants that start at a future time. They are kept in start order in memory and in storage, and a
+ * single timer is armed for the earliest start; when it fires, every grant that is due is given in
+ * one batch. At startup only the pending grants are read, and any that came due while the server
+ * was down are given on the first tick.
+ */
+public class PendingGrants {
+
+    // Re-check at least once a minute, so lag that slows ticks cannot delay a start by much
+    private static final long MAX_DELAY_TICKS = 60 * 20L;
+
+    private static final Comparator<PendingGrant> START_ORDER = Comparator.comparingLong(PendingGrant::startAt).thenComparing(PendingGrant::id);
+
+    private final TempRankManager plugin;
+    private final DataManager dataManager;
+    private final SchedulerHandler schedulerHandler;
+    private final int batchSize;
+    private final ConcurrentSkipListSet<PendingGrant> pending = new ConcurrentSkipListSet<>(START_ORDER);
+    private TaskHandle timer;
+    private long armedFor = Long.MAX_VALUE;
+
+    public PendingGrants(TempRankManager plugin, SchedulerHandler schedulerHandler) {
+        this.plugin = plugin;
+        this.dataManager = plugin.getDataManager();
+        this.schedulerHandler = schedulerHandler;
+        this.batchSize = Math.max(1, plugin.getConfig().getInt("pending.batch-size", 200));
+    }
+
+    /**
+     * Read the stored grants and arm the timer for the earliest one
+     */
+    public void load() {
+        pending.addAll(dataManager.loadPendingGrants());
+        if (!pending.isEmpty()) {
+            plugin.getLogger().info("Loaded " + pending.size() + " scheduled grant(s); the next starts " + TimeUtil.formatDate(pending.first().startAt()));
+        }
+        arm();
+    }
+
+    /**
+     * Store a grant that starts later and make sure the timer fires for it
+     */
+    public PendingGrant schedule(UUID playerUUID, String playerName, String rankName, long durationMillis, long startAt, boolean playtime) {
+        PendingGrant grant = new PendingGrant(UUID.randomUUID(), playerUUID, playerName, rankName, durationMillis, startAt, playtime);
+        pending.add(grant);
+        dataManager.savePendingGrant(grant);
+        plugin.getAuditLog().record(AuditAction.SCHEDULE, playerUUID, playerName, rankName, durationMillis, startAt, playtime ? SchedulerHandler.PLAYTIME_NOTE : null);
+        arm();
+        return grant;
+    }
+
+    /**
+     * The next scheduled grants, soonest first, at most limit of them
+     */
+    public List<PendingGrant> getNext(int limit) {
+        List<PendingGrant> next = new ArrayList<>(Math.min(limit, 64));
+        for (PendingGrant grant : pending) {
+            if (next.size() >= limit) {
+                break;
+            }
+            next.add(grant);
+        }
+        return next;
+    }
+
+    public int size() {
+        return pending.size();
+    }
+
+    /**
+     * Arm the timer for the earliest grant, unless it is already armed for that time or sooner
+     */
+    private synchronized void arm() {
+        Iterator<PendingGrant> iterator = pending.iterator();
+        if (!iterator.hasNext()) {
+            cancelTimer();
+            return;
+        }
+        long startAt = iterator.next().startAt();
+        if (timer != null && !timer.isCancelled() && armedFor <= startAt) {
+            return;
+        }
+
+        cancelTimer();
+        long delayMillis = startAt - TimeUtil.currentTimeMillis();
+        long delayTicks = Math.min(MAX_DELAY_TICKS, Math.max(1, (delayMillis + 49) / 50));
+        armedFor = startAt;
+        timer = plugin.getTaskScheduler().runGlobalLater(this::activateDue, delayTicks);
+    }
+
+    private void cancelTimer() {
+        if (timer != null && !timer.isCancelled()) {
+            timer.cancel();
+        }
+        timer = null;
+        armedFor = Long.MAX_VALUE;
+    }
+
+    /**
+     * Give one batch of due grants and re-arm. Runs on the global thread.
+     */
+    private void activateDue() {
+        synchronized (this) {
+            timer = null;
+            armedFor = Long.MAX_VALUE;
+        }
+
+        long now = TimeUtil.currentTimeMillis();
+        List<PendingGrant> due = new ArrayList<>();
+        for (PendingGrant grant : pending) {
+            if (grant.startAt() > now || due.size() >= batchSize) {
+                break;
+            }
+            if (pending.remove(grant)) {
+                due.add(grant);
+            }
+        }
+        if (!due.isEmpty()) {
+            activate(due);
+        }
+        // Anything still due is picked up on the next tick
+        arm();
+    }
+
+    private void activate(List<PendingGrant> due) {
+        Set<String> groups = new HashSet<>();
+        String[] known = plugin.getPermission().getGroups();
+        if (known != null) {
+            for (String group : known) {
+                groups.add(group.toLowerCase(Locale.ROOT));
+            }
+        }
+
+        List<SchedulerHandler.Grant> grants = new ArrayList<>(due.size());
+        for (PendingGrant grant : due) {
+            if (!groups.contains(grant.rankName().toLowerCase(Locale.ROOT))) {
+                plugin.getLogger().warning("Dropped scheduled grant of " + grant.rankName() + " to " + grant.playerName() + ": the rank no longer exists.");
+                continue;
+            }
+            grants.add(new SchedulerHandler.Grant(grant.playerUUID(), grant.playerName(), grant.rankName(), grant.durationMillis(), grant.playtime()));
+        }
+
+        List<SchedulerHandler.RankAssignmentResult> results = schedulerHandler.giveRanks(grants);
+        for (int i = 0; i < results.size(); i++) {
+            if (results.get(i).isCancelled()) {
+                SchedulerHandler.Grant grant = grants.get(i);
+                plugin.getLogger().info("Scheduled grant of " + grant.rankName() + " to " + grant.playerName() + " was cancelled by another plugin.");
+            }
+        }
+        // Queued behind the rank writes, so a crash in between gives the rank again rather than losing it
+        dataManager.removePendingGrants(due);
+
+        plugin.getLogger().info("Started " + grants.size() + " scheduled grant(s)" + (pending.isEmpty() ? "" : " (" + pending.size() + " still scheduled)"));
+    }
+
+    public synchronized void close() {
+        cancelTimer();
+    }
+}
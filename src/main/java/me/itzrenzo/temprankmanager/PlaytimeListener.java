@@ -0,0 +1,28 @@
+package me.itzrenzo.temprankmanager;
+
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
+
+/**
+ * Settles playtime-mode ranks from join and quit times. Players without one cost a single index lookup.
+ */
+public class PlaytimeListener implements Listener {
+    private final SchedulerHandler schedulerHandler;
+
+    public PlaytimeListener(SchedulerHandler schedulerHandler) {
+        this.schedulerHandler = schedulerHandler;
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPlayerJoin(PlayerJoinEvent event) {
+        schedulerHandler.handleJoin(event.getPlayer().getUniqueId());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPlayerQuit(PlayerQuitEvent event) {
+        schedulerHandler.handleQuit(event.getPlayer().getUniqueId());
+    }
+}
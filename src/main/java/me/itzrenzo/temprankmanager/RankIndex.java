@@ -0,0 +1,366 @@
+package me.itzrenzo.temprankmanager;
+
+import java.util.AbstractCollection;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.NoSuchElementException;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory index of temporary ranks: per player, and ordered by expiration globally and per rank.
+ * A player may hold several ranks at once. Writes are serialized; reads are lock-free and may run on any thread.
+ */
+public class RankIndex {
+
+    /**
+     * Immutable copy of the indexed fields of a record
+     */
+    public record Entry(UUID playerUUID, String rankName, long expirationTimestamp, boolean paused, long timeLeftMillis, boolean playtime) {
+        /**
+         * Paused ranks never expire, so they sort after every running one
+         */
+        long sortKey() {
+            return paused ? Long.MAX_VALUE : expirationTimestamp;
+        }
+
+        public long remainingMillis(long now) {
+            return paused ? timeLeftMillis : Math.max(0, expirationTimestamp - now);
+        }
+
+        public TempRankData toData() {
+            return new TempRankData(playerUUID, rankName, expirationTimestamp, paused, timeLeftMillis, playtime);
+        }
+    }
+
+    /**
+     * Per-rank counters. Running time is kept as a sum of expiration timestamps so the
+     * remaining total can be derived for any instant without touching each entry.
+     */
+    public record Counts(String rankName, int active, int paused, long expirationSum, long pausedMillis) {
+        static Counts empty(String rankName) {
+            return new Counts(rankName, 0, 0, 0, 0);
+        }
+
+        public int total() {
+            return active + paused;
+        }
+
+        public long remainingMillis(long now) {
+            return Math.max(0, expirationSum - (long) active * now) + pausedMillis;
+        }
+
+        public long remainingSeconds(long now) {
+            return remainingMillis(now) / 1000;
+        }
+
+        Counts plus(Entry entry, int sign) {
+            if (entry.paused()) {
+                return new Counts(rankName, active, paused + sign, expirationSum, pausedMillis + sign * entry.timeLeftMillis());
+            }
+            return new Counts(rankName, active + sign, paused, expirationSum + sign * entry.expirationTimestamp(), pausedMillis);
+        }
+    }
+
+    private static final Comparator<Entry> ORDER = Comparator.comparingLong(Entry::sortKey)
+            .thenComparing(Entry::playerUUID)
+            .thenComparing(Entry::rankName, String.CASE_INSENSITIVE_ORDER);
+
+    private static final UUID MAX_UUID = new UUID(Long.MAX_VALUE, Long.MAX_VALUE);
+
+    private static final Entry[] NO_ENTRIES = new Entry[0];
+
+    // Each player's ranks as a small array in expiry order, replaced whole on every change so
+    // readers never see it half-updated. Most players hold one rank, so this is usually one slot.
+    private final Map<UUID, Entry[]> byPlayer = new ConcurrentHashMap<>();
+    private final NavigableSet<Entry> running = new ConcurrentSkipListSet<>(ORDER);
+    private final Map<String, NavigableSet<Entry>> byRank = new ConcurrentHashMap<>();
+    private final Map<String, Counts> counts = new ConcurrentHashMap<>();
+    private volatile Counts totals = Counts.empty("*");
+    private final AtomicLong version = new AtomicLong();
+    private final Collection<Entry> allView = new AbstractCollection<>() {
+        @Override
+        public Iterator<Entry> iterator() {
+            return new FlatIterator(byPlayer.values().iterator());
+        }
+
+        @Override
+        public int size() {
+            return RankIndex.this.size();
+        }
+    };
+
+    public synchronized void clear() {
+        byPlayer.clear();
+        running.clear();
+        byRank.clear();
+        counts.clear();
+        totals = Counts.empty("*");
+        version.incrementAndGet();
+    }
+
+    /**
+     * Add a record, replacing the player's record for the same rank if there is one
+     */
+    public synchronized void put(TempRankData data) {
+        Entry entry = toEntry(data);
+        Entry[] current = byPlayer.getOrDefault(data.getPlayerUUID(), NO_ENTRIES);
+        int existing = indexOf(current, data.getRankName());
+        Entry[] updated;
+        if (existing >= 0) {
+            unlink(current[existing]);
+            updated = current.clone();
+            updated[existing] = entry;
+        } else {
+            updated = Arrays.copyOf(current, current.length + 1);
+            updated[current.length] = entry;
+        }
+        if (updated.length > 1) {
+            Arrays.sort(updated, ORDER);
+        }
+        byPlayer.put(data.getPlayerUUID(), updated);
+        link(entry);
+        version.incrementAndGet();
+    }
+
+    /**
+     * Remove one rank of a player
+     */
+    public synchronized void remove(UUID playerUUID, String rankName) {
+        Entry[] current = byPlayer.get(playerUUID);
+        int existing = current != null ? indexOf(current, rankName) : -1;
+        if (existing < 0) {
+            return;
+        }
+        unlink(current[existing]);
+        if (current.length == 1) {
+            byPlayer.remove(playerUUID);
+        } else {
+            Entry[] updated = new Entry[current.length - 1];
+            System.arraycopy(current, 0, updated, 0, existing);
+            System.arraycopy(current, existing + 1, updated, existing, current.length - existing - 1);
+            byPlayer.put(playerUUID, updated);
+        }
+        version.incrementAndGet();
+    }
+
+    /**
+     * Drop every running entry that expired at or before the given time
+     * @return the removed entries
+     */
+    public synchronized List<Entry> removeExpired(long now) {
+        List<Entry> removed = new ArrayList<>();
+        Iterator<Entry> iterator = running.iterator();
+        while (iterator.hasNext()) {
+            Entry entry = iterator.next();
+            if (entry.expirationTimestamp() > now) {
+                break;
+            }
+            removed.add(entry);
+        }
+        for (Entry entry : removed) {
+            remove(entry.playerUUID(), entry.rankName());
+        }
+        return removed;
+    }
+
+    /**
+     * The player's record for one rank (case-insensitive), or null
+     */
+    public Entry get(UUID playerUUID, String rankName) {
+        Entry[] entries = byPlayer.get(playerUUID);
+        if (entries == null) {
+            return null;
+        }
+        int index = indexOf(entries, rankName);
+        return index >= 0 ? entries[index] : null;
+    }
+
+    /**
+     * Every rank the player holds, soonest to expire first and paused ones last
+     */
+    public List<Entry> getAll(UUID playerUUID) {
+        Entry[] entries = byPlayer.get(playerUUID);
+        return entries != null ? Collections.unmodifiableList(Arrays.asList(entries)) : Collections.emptyList();
+    }
+
+    /**
+     * The player's primary rank: the running one that expires soonest, or the first paused one
+     * if all are paused. Null if the player holds none. O(1).
+     */
+    public Entry primary(UUID playerUUID) {
+        Entry[] entries = byPlayer.get(playerUUID);
+        return entries != null ? entries[0] : null;
+    }
+
+    public boolean contains(UUID playerUUID) {
+        return byPlayer.containsKey(playerUUID);
+    }
+
+    /**
+     * Every entry, in no particular order. A live view, not a copy.
+     */
+    public Collection<Entry> all() {
+        return allView;
+    }
+
+    /**
+     * The next N running ranks to expire, soonest first. O(log n + N).
+     */
+    public List<Entry> nextExpiring(int limit) {
+        List<Entry> result = new ArrayList<>(Math.min(limit, 64));
+        for (Entry entry : running) {
+            if (result.size() >= limit) {
+                break;
+            }
+            result.add(entry);
+        }
+        return result;
+    }
+
+    /**
+     * Running entries whose expiration falls in (fromExclusive, toInclusive], soonest first.
+     * O(log n + matches), so deadline scans cost only what they return.
+     */
+    public Collection<Entry> expiringBetween(long fromExclusive, long toInclusive) {
+        if (toInclusive <= fromExclusive) {
+            return Collections.emptyList();
+        }
+        // UUID ties sort after every real entry, so these bounds include or exclude whole timestamps
+        Entry from = new Entry(MAX_UUID, "", fromExclusive, false, 0, false);
+        Entry to = new Entry(MAX_UUID, "", toInclusive, false, 0, false);
+        return Collections.unmodifiableCollection(running.subSet(from, false, to, true));
+    }
+
+    /**
+     * All entries holding the given rank, soonest to expire first and paused ones last. A live view, not a copy.
+     */
+    public NavigableSet<Entry> byRank(String rankName) {
+        NavigableSet<Entry> entries = byRank.get(rankName.toLowerCase(Locale.ROOT));
+        return entries != null ? Collections.unmodifiableNavigableSet(entries) : Collections.emptyNavigableSet();
+    }
+
+    /**
+     * Counters for one rank, never null. O(1).
+     */
+    public Counts getCounts(String rankName) {
+        Counts rankCounts = counts.get(rankName.toLowerCase(Locale.ROOT));
+        return rankCounts != null ? rankCounts : Counts.empty(rankName);
+    }
+
+    /**
+     * Counters for every rank that currently has holders
+     */
+    public Collection<Counts> getAllCounts() {
+        return Collections.unmodifiableCollection(counts.values());
+    }
+
+    /**
+     * Counters across all ranks
+     */
+    public Counts getTotals() {
+        return totals;
+    }
+
+    /**
+     * Number of rank records; a player holding two ranks counts twice
+     */
+    public int size() {
+        return totals.total();
+    }
+
+    /**
+     * Number of players holding at least one rank
+     */
+    public int playerCount() {
+        return byPlayer.size();
+    }
+
+    /**
+     * Counter bumped on every change, so readers can cache derived views
+     */
+    public long getVersion() {
+        return version.get();
+    }
+
+    private void link(Entry entry) {
+        if (!entry.paused()) {
+            running.add(entry);
+        }
+        byRank.computeIfAbsent(entry.rankName().toLowerCase(Locale.ROOT), key -> new ConcurrentSkipListSet<>(ORDER)).add(entry);
+        count(entry, 1);
+    }
+
+    private void unlink(Entry entry) {
+        running.remove(entry);
+        NavigableSet<Entry> rankEntries = byRank.get(entry.rankName().toLowerCase(Locale.ROOT));
+        if (rankEntries != null) {
+            rankEntries.remove(entry);
+        }
+        count(entry, -1);
+    }
+
+    private void count(Entry entry, int sign) {
+        counts.compute(entry.rankName().toLowerCase(Locale.ROOT), (key, current) -> {
+            Counts updated = (current != null ? current : Counts.empty(entry.rankName())).plus(entry, sign);
+            return updated.total() > 0 ? updated : null;
+        });
+        totals = totals.plus(entry, sign);
+    }
+
+    private static int indexOf(Entry[] entries, String rankName) {
+        for (int i = 0; i < entries.length; i++) {
+            if (entries[i].rankName().equalsIgnoreCase(rankName)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Walks the per-player arrays one after another
+     */
+    private static final class FlatIterator implements Iterator<Entry> {
+        private final Iterator<Entry[]> players;
+        private Entry[] current = NO_ENTRIES;
+        private int index;
+
+        private FlatIterator(Iterator<Entry[]> players) {
+            this.players = players;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (index >= current.length) {
+                if (!players.hasNext()) {
+                    return false;
+                }
+                current = players.next();
+                index = 0;
+            }
+            return true;
+        }
+
+        @Override
+        public Entry next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return current[index++];
+        }
+    }
+
+    private static Entry toEntry(TempRankData data) {
+        return new Entry(data.getPlayerUUID(), data.getRankName(), data.getExpirationTimestamp(), data.isPaused(), data.getTimeLeftMillis(), data.isPlaytime());
+    }
+}
@@ -0,0 +1,15 @@
+package me.itzrenzo.temprankmanager;
+
+import java.util.Locale;
+import java.util.UUID;
+
+/**
+ * Identity of one temporary rank: a player holds at most one record per rank. Rank names are
+ * compared case-insensitively, so the key keeps them lower-cased.
+ */
+public record RankKey(UUID playerUUID, String rankName) {
+
+    public static RankKey of(UUID playerUUID, String rankName) {
+        return new RankKey(playerUUID, rankName.toLowerCase(Locale.ROOT));
+    }
+}
@@ -0,0 +1,324 @@
+package me.itzrenzo.temprankmanager;
+
+import me.itzrenzo.temprankmanager.permission.PermissionBackend;
+import me.itzrenzo.temprankmanager.scheduler.TaskHandle;
+import org.bukkit.Bukkit;
+import org.bukkit.OfflinePlayer;
+import org.bukkit.entity.Player;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Finds drift between stored temporary ranks and actual permission group membership.
+ * Stored ranks are checked in chunks on worker threads, since offline group lookups may block in the
+ * permission plugin; only the online player snapshot and the fixes run on the server thread.
+ * Fixes are re-checked against the current record before they are applied and are rate limited.
+ */
+public class Reconciler {
+
+    public enum DriftType {
+        MISSING_GROUP("holds a temporary rank but is not in its group"),
+        EXPIRED_IN_GROUP("rank has expired but the group is still assigned"),
+        UNTRACKED_GROUP("is in a temporary rank group without a temporary rank");
+
+        private final String description;
+
+        DriftType(String description) {
+            this.description = description;
+        }
+
+        public String getDescription() {
+            return description;
+        }
+    }
+
+    public record Drift(DriftType type, UUID playerUUID, String rankName) {
+    }
+
+    /**
+     * @param fixable how many of the mismatches a fix repairs; the rest are only reported
+     */
+    public record Report(int checked, List<Drift> drift, int fixable, long elapsedMillis) {
+        public Map<DriftType, Integer> countsByType() {
+            Map<DriftType, Integer> counts = new EnumMap<>(DriftType.class);
+            for (Drift entry : drift) {
+                counts.merge(entry.type(), 1, Integer::sum);
+            }
+            return counts;
+        }
+    }
+
+    private final TempRankManager plugin;
+    private final DataManager dataManager;
+    private final SchedulerHandler schedulerHandler;
+    private final PermissionBackend permission;
+    private final ExecutorService workers;
+    private final int chunkSize;
+    private final int fixesPerSecond;
+    private final AtomicBoolean running = new AtomicBoolean(false);
+    private final AtomicInteger pendingFixes = new AtomicInteger();
+    private TaskHandle scheduledTask;
+
+    public Reconciler(TempRankManager plugin, SchedulerHandler schedulerHandler) {
+        this.plugin = plugin;
+        this.dataManager = plugin.getDataManager();
+        this.schedulerHandler = schedulerHandler;
+        this.permission = plugin.getPermission();
+        this.chunkSize = Math.max(1, plugin.getConfig().getInt("reconcile.chunk-size", 200));
+        this.fixesPerSecond = Math.max(1, plugin.getConfig().getInt("reconcile.max-fixes-per-second", 5));
+        int threads = Math.max(1, plugin.getConfig().getInt("reconcile.threads", 4));
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "TempRankManager-Reconcile-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public void startSchedule() {
+        long intervalMinutes = plugin.getConfig().getLong("reconcile.interval-minutes", 0);
+        if (intervalMinutes <= 0) {
+            return;
+        }
+
+        boolean autoFix = plugin.getConfig().getBoolean("reconcile.auto-fix", false);
+        long intervalTicks = intervalMinutes * 60 * 20L;
+        scheduledTask = plugin.getTaskScheduler().runGlobalTimer(() -> run(autoFix).whenComplete((report, error) -> {
+            if (error != null) {
+                plugin.getLogger().warning("Scheduled reconciliation failed: " + error.getMessage());
+            } else if (!report.drift().isEmpty()) {
+                plugin.getLogger().info("Reconciliation found " + report.drift().size() + " mismatch(es) in " + report.checked() + " rank(s) ("
+                        + report.elapsedMillis() + "ms)" + (autoFix ? "; fixing them" : "; run /temprank reconcile fix to repair them"));
+            }
+        }), intervalTicks, intervalTicks);
+    }
+
+    /**
+     * Check every stored rank and online player. Must be called on the server thread, which only
+     * takes the online player snapshot; the checks run on worker threads.
+     * @param fix queue fixes for every mismatch found
+     */
+    public CompletableFuture<Report> run(boolean fix) {
+        if (!running.compareAndSet(false, true)) {
+            return CompletableFuture.failedFuture(new IllegalStateException("A reconciliation is already in progress"));
+        }
+
+        long started = System.nanoTime();
+        List<OfflinePlayer> online = new ArrayList<>(Bukkit.getOnlinePlayers());
+        Set<String> managedGroups = managedGroups();
+        Set<String> exclusiveGroups = exclusiveGroups();
+
+        // Chunked straight off the live index; the chunks are the only copy of the entries
+        List<List<RankIndex.Entry>> chunks = new ArrayList<>();
+        List<RankIndex.Entry> chunk = new ArrayList<>(chunkSize);
+        int stored = 0;
+        for (RankIndex.Entry entry : dataManager.getRankIndex().all()) {
+            stored++;
+            chunk.add(entry);
+            if (chunk.size() == chunkSize) {
+                chunks.add(chunk);
+                chunk = new ArrayList<>(chunkSize);
+            }
+        }
+        if (!chunk.isEmpty()) {
+            chunks.add(chunk);
+        }
+        int checked = stored;
+
+        List<CompletableFuture<List<Drift>>> checks = new ArrayList<>();
+        for (List<RankIndex.Entry> entries : chunks) {
+            checks.add(CompletableFuture.supplyAsync(() -> checkStored(entries), workers));
+        }
+        checks.add(CompletableFuture.supplyAsync(() -> checkOnline(online, managedGroups), workers));
+
+        return CompletableFuture.allOf(checks.toArray(new CompletableFuture[0])).thenApply(ignored -> {
+            List<Drift> drift = new ArrayList<>();
+            for (CompletableFuture<List<Drift>> check : checks) {
+                drift.addAll(check.join());
+            }
+            List<Drift> fixable = new ArrayList<>(drift);
+            fixable.removeIf(entry -> entry.type() == DriftType.UNTRACKED_GROUP && !exclusiveGroups.contains(entry.rankName().toLowerCase(Locale.ROOT)));
+            Report report = new Report(checked, drift, fixable.size(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+            if (fix && !fixable.isEmpty()) {
+                applyFixes(fixable);
+            }
+            return report;
+        }).whenComplete((report, error) -> running.set(false));
+    }
+
+    private List<Drift> checkStored(List<RankIndex.Entry> entries) {
+        List<Drift> drift = new ArrayList<>();
+        long now = TimeUtil.currentTimeMillis();
+        for (RankIndex.Entry entry : entries) {
+            OfflinePlayer player = Bukkit.getOfflinePlayer(entry.playerUUID());
+            boolean inGroup = permission.inGroup(player, entry.rankName());
+            boolean expired = !entry.paused() && entry.expirationTimestamp() <= now;
+            if (expired && inGroup) {
+                drift.add(new Drift(DriftType.EXPIRED_IN_GROUP, entry.playerUUID(), entry.rankName()));
+            } else if (!expired && !inGroup) {
+                drift.add(new Drift(DriftType.MISSING_GROUP, entry.playerUUID(), entry.rankName()));
+            }
+        }
+        return drift;
+    }
+
+    /**
+     * Permission plugins cannot list a group's members, so untracked groups are only found on online players
+     */
+    private List<Drift> checkOnline(List<OfflinePlayer> online, Set<String> managedGroups) {
+        List<Drift> drift = new ArrayList<>();
+        for (OfflinePlayer player : online) {
+            for (String group : managedGroups) {
+                if (dataManager.getRankIndex().get(player.getUniqueId(), group) != null) {
+                    continue;
+                }
+                if (permission.inGroup(player, group)) {
+                    drift.add(new Drift(DriftType.UNTRACKED_GROUP, player.getUniqueId(), group));
+                }
+            }
+        }
+        return drift;
+    }
+
+    /**
+     * Groups handed out as temporary ranks: every rank currently stored plus the configured list
+     */
+    private Set<String> managedGroups() {
+        Map<String, String> groups = new HashMap<>();
+        for (RankIndex.Counts counts : dataManager.getRankIndex().getAllCounts()) {
+            groups.putIfAbsent(counts.rankName().toLowerCase(Locale.ROOT), counts.rankName());
+        }
+        for (String group : plugin.getConfig().getStringList("reconcile.ranks")) {
+            groups.putIfAbsent(group.toLowerCase(Locale.ROOT), group);
+        }
+        return new LinkedHashSet<>(groups.values());
+    }
+
+    /**
+     * Groups listed in reconcile.ranks, lower-cased. Only these are taken away from players without a
+     * temporary rank: any other rank group may also be held permanently, e.g. a purchased or staff rank.
+     */
+    private Set<String> exclusiveGroups() {
+        Set<String> groups = new HashSet<>();
+        for (String group : plugin.getConfig().getStringList("reconcile.ranks")) {
+            groups.add(group.toLowerCase(Locale.ROOT));
+        }
+        return groups;
+    }
+
+    private void applyFixes(List<Drift> drift) {
+        Queue<Drift> queue = new ArrayDeque<>(drift);
+        pendingFixes.addAndGet(queue.size());
+
+        // Spread the fixes so a large drift cannot flood the permission plugin
+        long periodTicks = Math.max(1, 20 / fixesPerSecond);
+        int perRun = Math.max(1, fixesPerSecond / 20);
+        TaskHandle[] task = new TaskHandle[1];
+        task[0] = plugin.getTaskScheduler().runGlobalTimer(() -> {
+            for (int i = 0; i < perRun; i++) {
+                Drift next;
+                synchronized (queue) {
+                    next = queue.poll();
+                }
+                if (next == null) {
+                    if (task[0] != null) {
+                        task[0].cancel();
+                    }
+                    return;
+                }
+                pendingFixes.decrementAndGet();
+                fix(next);
+            }
+        }, 1, periodTicks);
+    }
+
+    /**
+     * Look the group up on a worker, since the permission plugin may load an offline player's data
+     * to answer, then apply the fix on the thread that owns the player
+     */
+    private void fix(Drift drift) {
+        if (workers.isShutdown()) {
+            return;
+        }
+        OfflinePlayer player = Bukkit.getOfflinePlayer(drift.playerUUID());
+        // An expired rank is expired whether or not the group is still there
+        CompletableFuture.supplyAsync(() -> drift.type() == DriftType.EXPIRED_IN_GROUP || permission.inGroup(player, drift.rankName()), workers)
+                .thenAccept(inGroup -> {
+                    Player onlinePlayer = Bukkit.getPlayer(drift.playerUUID());
+                    if (onlinePlayer != null) {
+                        plugin.getTaskScheduler().runForEntity(onlinePlayer, () -> apply(drift, player, inGroup));
+                    } else {
+                        plugin.getTaskScheduler().runGlobal(() -> apply(drift, player, inGroup));
+                    }
+                })
+                .exceptionally(error -> {
+                    plugin.getLogger().warning("Reconcile: could not check " + drift.rankName() + " of " + player.getName() + ": " + error.getMessage());
+                    return null;
+                });
+    }
+
+    private void apply(Drift drift, OfflinePlayer player, boolean inGroup) {
+        // Re-check: the rank may have been given, extended or removed since the scan
+        TempRankData current = dataManager.getTempRank(drift.playerUUID(), drift.rankName());
+        boolean holdsRank = current != null;
+
+        switch (drift.type()) {
+            case MISSING_GROUP -> {
+                if (holdsRank && !current.isExpired() && !inGroup) {
+                    GroupChanges.grant(permission, player, current);
+                    plugin.getLogger().info("Reconcile: added " + drift.rankName() + " back to " + player.getName());
+                }
+            }
+            case EXPIRED_IN_GROUP -> {
+                if (holdsRank && current.isExpired()) {
+                    schedulerHandler.expireRank(drift.playerUUID(), drift.rankName());
+                    plugin.getLogger().info("Reconcile: expired " + drift.rankName() + " of " + player.getName());
+                }
+            }
+            case UNTRACKED_GROUP -> {
+                if (!holdsRank && inGroup) {
+                    GroupChanges.remove(permission, player, drift.rankName());
+                    if (!dataManager.hasTempRank(drift.playerUUID())) {
+                        GroupChanges.add(permission, player, plugin.getDefaultGroup());
+                    }
+                    plugin.getLogger().info("Reconcile: removed untracked group " + drift.rankName() + " from " + player.getName());
+                }
+            }
+        }
+    }
+
+    public boolean isRunning() {
+        return running.get();
+    }
+
+    /**
+     * Fixes queued but not yet applied
+     */
+    public int getPendingFixes() {
+        return pendingFixes.get();
+    }
+
+    public void close() {
+        if (scheduledTask != null && !scheduledTask.isCancelled()) {
+            scheduledTask.cancel();
+        }
+        workers.shutdownNow();
+    }
+}
@@ -1,116 +1,521 @@
 package me.itzrenzo.temprankmanager;
 
-import net.milkbowl.vault.permission.Permission;
+import me.itzrenzo.temprankmanager.audit.AuditAction;
+import me.itzrenzo.temprankmanager.event.TempRankExpireEvent;
+import me.itzrenzo.temprankmanager.event.TempRankExtendEvent;
+import me.itzrenzo.temprankmanager.event.TempRankGrantEvent;
+import me.itzrenzo.temprankmanager.event.TempRankPauseStateEvent;
+import me.itzrenzo.temprankmanager.jfr.RankOperationEvent;
+import me.itzrenzo.temprankmanager.permission.PermissionBackend;
+import me.itzrenzo.temprankmanager.scheduler.TaskHandle;
+import me.itzrenzo.temprankmanager.scheduler.TaskScheduler;
 import org.bukkit.Bukkit;
 import org.bukkit.OfflinePlayer;
-import org.bukkit.scheduler.BukkitRunnable;
-import org.bukkit.scheduler.BukkitTask;
+import org.bukkit.entity.Player;
 
-import java.text.SimpleDateFormat;
-import java.util.Date;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
 public class SchedulerHandler {
+    static final String PLAYTIME_NOTE = "playtime";
+    private static final int RESCHEDULE_BATCH_SIZE = 1000;
+
     private final TempRankManager plugin;
     private final DataManager dataManager;
-    private final Permission permission;
-    private final Map<UUID, BukkitTask> scheduledTasks = new ConcurrentHashMap<>();
+    private final PermissionBackend permission;
+    private final WorkScheduler workScheduler;
+    private final TaskScheduler taskScheduler;
+    private final Map<RankKey, TaskHandle> scheduledTasks = new ConcurrentHashMap<>();
+    // Give, remove, expire, pause and resume for one player run one at a time, from any thread
+    private final StripedLock locks = new StripedLock(64);
 
-    public SchedulerHandler(TempRankManager plugin, DataManager dataManager, Permission permission) {
+    public SchedulerHandler(TempRankManager plugin, DataManager dataManager, PermissionBackend permission, WorkScheduler workScheduler) {
         this.plugin = plugin;
         this.dataManager = dataManager;
         this.permission = permission;
+        this.workScheduler = workScheduler;
+        this.taskScheduler = plugin.getTaskScheduler();
     }
 
     public void scheduleExistingRanks() {
-        dataManager.removeExpiredRanks();
-        
-        for (TempRankData data : dataManager.getAllTempRanks()) {
+        // Spread over ticks, walking the live index rather than a copy of it; ranks given or
+        // rescheduled in the meantime already have a task and are skipped. Ranks that ran out
+        // while the server was down are expired here, groups included.
+        workScheduler.forEach(dataManager.getRankIndex().all(), entry -> locks.withLock(entry.playerUUID(), () -> {
+            UUID playerUUID = entry.playerUUID();
+            TempRankData data = dataManager.getTempRank(playerUUID, entry.rankName());
+            if (data == null || scheduledTasks.containsKey(data.getKey())) {
+                return;
+            }
+            if (data.isPlaytime()) {
+                data = settlePlaytime(data);
+                if (data == null) {
+                    return;
+                }
+            }
             if (data.isExpired()) {
-                expireRank(data.getPlayerUUID(), data.getRankName());
+                expireLocked(playerUUID, data.getRankName());
             } else if (!data.isPaused()) {
-                scheduleRankExpiration(data);
+                scheduleLocked(data);
             }
-        }
+        }), null);
     }
 
     public void scheduleRankExpiration(TempRankData data) {
-        cancelTask(data.getPlayerUUID());
+        locks.withLock(data.getPlayerUUID(), () -> scheduleLocked(data));
+    }
+
+    private void scheduleLocked(TempRankData data) {
+        cancelTask(data.getPlayerUUID(), data.getRankName());
         
-        if (data.isPaused()) {
+        // Grants still applied during shutdown are only written; the next start schedules them from storage
+        if (data.isPaused() || !plugin.isEnabled()) {
             return;
         }
 
-        long delay = Math.max(1, (data.getExpirationTimestamp() - System.currentTimeMillis()) / 50); // Convert to ticks
+        UUID playerUUID = data.getPlayerUUID();
+        String rankName = data.getRankName();
+        TaskHandle task = taskScheduler.runGlobalLater(() -> fireExpiry(playerUUID, rankName), delayTicks(data));
         
-        BukkitTask task = new BukkitRunnable() {
-            @Override
-            public void run() {
-                expireRank(data.getPlayerUUID(), data.getRankName());
-                scheduledTasks.remove(data.getPlayerUUID());
+        scheduledTasks.put(data.getKey(), task);
+    }
+
+    private static long delayTicks(TempRankData data) {
+        return Math.max(1, (data.getExpirationTimestamp() - TimeUtil.currentTimeMillis()) / 50); // Convert to ticks
+    }
+
+    private void fireExpiry(UUID playerUUID, String rankName) {
+        // Online players are owned by their region on Folia, so expire them on the entity's scheduler
+        Player onlinePlayer = Bukkit.getPlayer(playerUUID);
+        if (onlinePlayer != null) {
+            taskScheduler.runForEntity(onlinePlayer, () -> expireIfDue(playerUUID, rankName));
+        } else {
+            expireIfDue(playerUUID, rankName);
+        }
+    }
+
+    /**
+     * Schedule many records at once with one task per distinct expiration tick instead of one per rank.
+     * Each rank still gets its own handle, so extending or removing one rank leaves the others scheduled.
+     * Must be called with the players' locks held.
+     */
+    private void scheduleBatchLocked(Collection<TempRankData> records) {
+        Map<Long, List<TempRankData>> byDelay = new HashMap<>();
+        for (TempRankData data : records) {
+            cancelTask(data.getPlayerUUID(), data.getRankName());
+            if (!data.isPaused()) {
+                byDelay.computeIfAbsent(delayTicks(data), delay -> new ArrayList<>()).add(data);
             }
-        }.runTaskLater(plugin, delay);
+        }
         
-        scheduledTasks.put(data.getPlayerUUID(), task);
+        if (!plugin.isEnabled()) {
+            return;
+        }
+        byDelay.forEach((delay, group) -> {
+            SharedExpiry shared = new SharedExpiry(group.size());
+            for (TempRankData data : group) {
+                shared.members.put(data.getKey(), new SharedExpiry.Member(shared, data.getRankName()));
+            }
+            shared.task = taskScheduler.runGlobalLater(() -> shared.members.forEach((key, member) -> {
+                if (!member.isCancelled()) {
+                    fireExpiry(key.playerUUID(), member.rankName);
+                }
+            }), delay);
+            scheduledTasks.putAll(shared.members);
+        });
+    }
+
+    /**
+     * One timer shared by every rank that expires on the same tick
+     */
+    private static final class SharedExpiry {
+        private final Map<RankKey, Member> members;
+        private final AtomicInteger remaining;
+        private volatile TaskHandle task;
+
+        private SharedExpiry(int size) {
+            this.members = new HashMap<>(size * 2);
+            this.remaining = new AtomicInteger(size);
+        }
+
+        private static final class Member implements TaskHandle {
+            private final SharedExpiry owner;
+            private final String rankName;
+            private volatile boolean cancelled;
+
+            private Member(SharedExpiry owner, String rankName) {
+                this.owner = owner;
+                this.rankName = rankName;
+            }
+
+            @Override
+            public void cancel() {
+                if (cancelled) {
+                    return;
+                }
+                cancelled = true;
+                // The shared timer goes away once nobody is waiting on it
+                if (owner.remaining.decrementAndGet() == 0 && owner.task != null) {
+                    owner.task.cancel();
+                }
+            }
+
+            @Override
+            public boolean isCancelled() {
+                return cancelled || (owner.task != null && owner.task.isCancelled());
+            }
+        }
+    }
+
+    private void expireIfDue(UUID playerUUID, String rankName) {
+        locks.withLock(playerUUID, () -> {
+            // The rank may have been extended, replaced or removed while the task was in flight
+            TempRankData current = dataManager.getTempRank(playerUUID, rankName);
+            if (current == null || current.isPaused()) {
+                return;
+            }
+            
+            if (current.isExpired()) {
+                expireLocked(playerUUID, rankName);
+            } else {
+                // Fired early because of tick rounding or the rank was extended meanwhile
+                scheduleLocked(current);
+            }
+        });
+    }
+
+    /**
+     * Expire up to limit ranks whose time has already run out, exactly as their timers would:
+     * the record goes, the group is removed and the default group restored for the last rank.
+     * Used by the startup and periodic cleanup, which must not leave players in their old group.
+     * @return number of ranks expired
+     */
+    public int expireDueRanks(int limit) {
+        long now = TimeUtil.currentTimeMillis();
+        int expired = 0;
+        for (RankIndex.Entry candidate : dataManager.getRankIndex().expiringBetween(Long.MIN_VALUE, now)) {
+            if (expired >= limit) {
+                break;
+            }
+            boolean removed = locks.withLock(candidate.playerUUID(), () -> {
+                // Re-check under the lock; a grant or extension may have landed since the scan
+                TempRankData current = dataManager.getTempRank(candidate.playerUUID(), candidate.rankName());
+                if (current == null || current.isPaused() || current.getExpirationTimestamp() > now) {
+                    return false;
+                }
+                expireLocked(candidate.playerUUID(), current.getRankName());
+                return true;
+            });
+            if (removed) {
+                expired++;
+            }
+        }
+        return expired;
     }
 
     public void expireRank(UUID playerUUID, String rankName) {
+        RankOperationEvent event = new RankOperationEvent();
+        event.begin();
+        locks.withLock(playerUUID, () -> expireLocked(playerUUID, rankName));
+        commitOperation(event, "expire", playerUUID, rankName, 1, 0);
+    }
+
+    private void expireLocked(UUID playerUUID, String rankName) {
         OfflinePlayer player = Bukkit.getOfflinePlayer(playerUUID);
         String playerName = player.getName() != null ? player.getName() : "Unknown";
         
-        // Remove from permission system
-        permission.playerRemoveGroup(null, player, rankName);
-        String defaultGroup = plugin.getDefaultGroup();
-        permission.playerAddGroup(null, player, defaultGroup);
-        
-        // Remove from data
-        dataManager.removeTempRank(playerUUID);
+        // Remove from data and permission system. A backend that expires groups itself has usually
+        // dropped it already, or will within the second; when it says so the removal, a user load and
+        // save there, is skipped. Otherwise removing again is harmless and also clears groups added
+        // before a backend switch.
+        TempRankData ended = dataManager.getTempRank(playerUUID, rankName);
+        long endedAt = ended != null && !ended.isPaused() ? ended.getExpirationTimestamp() : TimeUtil.currentTimeMillis();
+        dataManager.removeTempRank(playerUUID, rankName);
+        cancelTask(playerUUID, rankName);
+        if (!permission.expiresNatively() || !permission.dropsGroupBy(player, rankName, endedAt)) {
+            GroupChanges.remove(permission, player, rankName);
+        }
+        String defaultGroup = revertIfLast(player);
         
-        // Cancel scheduled task
-        cancelTask(playerUUID);
+        plugin.getAuditLog().record(AuditAction.EXPIRE, playerUUID, playerName, rankName, 0, 0, fallbackNote(playerUUID, defaultGroup));
+        Bukkit.getPluginManager().callEvent(new TempRankExpireEvent(playerUUID, playerName, rankName, TempRankExpireEvent.Cause.EXPIRED, defaultGroup));
+    }
+
+    /**
+     * Put the player back in the default group once their last temporary rank is gone.
+     * Must be called with the player's lock held, after the ended rank's record was removed.
+     * @return the default group, or null if the player still holds other temporary ranks
+     */
+    private String revertIfLast(OfflinePlayer player) {
+        if (dataManager.hasTempRank(player.getUniqueId())) {
+            return null;
+        }
+        String defaultGroup = plugin.getDefaultGroup();
+        GroupChanges.add(permission, player, defaultGroup);
+        return defaultGroup;
+    }
+
+    /**
+     * What the player falls back to, for history: the default group, or the primary rank they still hold
+     */
+    private String fallbackNote(UUID playerUUID, String defaultGroup) {
+        if (defaultGroup != null) {
+            return defaultGroup;
+        }
+        TempRankData primary = dataManager.getPrimaryTempRank(playerUUID);
+        return primary != null ? primary.getRankName() : null;
+    }
+
+    /**
+     * Start the countdown of the player's playtime ranks when they join. O(1) for players without ranks.
+     */
+    public void handleJoin(UUID playerUUID) {
+        if (!isPlaytimeHolder(playerUUID)) {
+            return;
+        }
+        locks.withLock(playerUUID, () -> {
+            for (TempRankData data : dataManager.getTempRanks(playerUUID)) {
+                if (data.isPlaytime()) {
+                    TempRankData settled = settlePlaytime(data);
+                    if (settled != null) {
+                        scheduleLocked(settled);
+                    }
+                }
+            }
+        });
+    }
+
+    /**
+     * Freeze the remaining time of the player's playtime ranks when they leave, so offline holders have no scheduled task
+     */
+    public void handleQuit(UUID playerUUID) {
+        if (!isPlaytimeHolder(playerUUID)) {
+            return;
+        }
+        locks.withLock(playerUUID, () -> {
+            for (TempRankData data : dataManager.getTempRanks(playerUUID)) {
+                if (!data.isPlaytime() || data.isPaused()) {
+                    continue;
+                }
+                if (data.isExpired()) {
+                    expireLocked(playerUUID, data.getRankName());
+                } else {
+                    TempRankData paused = data.paused(TimeUtil.currentTimeMillis());
+                    if (dataManager.compareAndSet(playerUUID, data.getRankName(), data, paused)) {
+                        cancelTask(playerUUID, data.getRankName());
+                        syncExpiry(paused);
+                    }
+                }
+            }
+        });
+    }
+
+    /**
+     * Freeze the playtime ranks of everyone online, as if they all quit. Used on shutdown,
+     * where the server does not fire a quit event to plugins.
+     */
+    public void settleOnlinePlaytime() {
+        for (Player player : Bukkit.getOnlinePlayers()) {
+            handleQuit(player.getUniqueId());
+        }
+    }
+
+    private boolean isPlaytimeHolder(UUID playerUUID) {
+        for (RankIndex.Entry entry : dataManager.getRankIndex().getAll(playerUUID)) {
+            if (entry.playtime()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Whether a playtime rank of this player should be counting down right now
+     */
+    private boolean isCountingPlaytime(UUID playerUUID) {
+        return Bukkit.getPlayer(playerUUID) != null && !plugin.isWhitelistMode();
+    }
+
+    /**
+     * Bring a playtime rank's pause state in line with whether its holder is online.
+     * Must be called with the player's lock held.
+     * @return the record as stored afterwards, or null if it was removed meanwhile
+     */
+    private TempRankData settlePlaytime(TempRankData data) {
+        boolean counting = isCountingPlaytime(data.getPlayerUUID());
+        if (counting == !data.isPaused()) {
+            return data;
+        }
         
-        plugin.getLogger().info("Rank " + rankName + " expired for " + playerName + ". Reverted to " + defaultGroup + ".");
+        long now = TimeUtil.currentTimeMillis();
+        TempRankData settled = counting ? data.resumed(now) : data.paused(now);
+        if (!dataManager.compareAndSet(data.getPlayerUUID(), data.getRankName(), data, settled)) {
+            return dataManager.getTempRank(data.getPlayerUUID(), data.getRankName());
+        }
+        syncExpiry(settled);
+        return settled;
+    }
+
+    /**
+     * Pass a record's new expiry, or its pause, to a backend that expires groups itself.
+     * Vault groups carry no expiry, so nothing changes there. Must be called with the player's lock held.
+     */
+    private void syncExpiry(TempRankData data) {
+        if (permission.expiresNatively()) {
+            GroupChanges.grant(permission, Bukkit.getOfflinePlayer(data.getPlayerUUID()), data);
+        }
+    }
+
+    /**
+     * Add time to every active rank, or only to ranks with the given name, and move their timers
+     * in the same pass, so none fires early and has to be rescheduled on its own
+     * @return number of ranks extended
+     */
+    public int extendAll(long millis, String rankName) {
+        return extendAndReschedule(extended -> dataManager.extendAll(millis, rankName, extended));
     }
 
+    /**
+     * Give back server downtime to every rank that was running at the given time, moving their timers along
+     * @return number of ranks shifted
+     */
+    public int shiftRunningExpirations(long millis, long activeAt) {
+        return extendAndReschedule(shifted -> dataManager.shiftRunningExpirations(millis, activeAt, shifted));
+    }
+
+    /**
+     * Run a bulk extension with every player's lock held, so no timer fires in between, and
+     * reschedule the running ranks it changed in batches as they are written to the index
+     */
+    private int extendAndReschedule(Function<Consumer<TempRankData>, Integer> extension) {
+        return locks.withAllLocks(() -> {
+            List<TempRankData> batch = new ArrayList<>(RESCHEDULE_BATCH_SIZE);
+            int extended = extension.apply(data -> {
+                if (data.isPaused()) {
+                    return;
+                }
+                batch.add(data);
+                if (batch.size() >= RESCHEDULE_BATCH_SIZE) {
+                    scheduleBatchLocked(batch);
+                    batch.clear();
+                }
+            });
+            scheduleBatchLocked(batch);
+            return extended;
+        });
+    }
+
+    /**
+     * Re-sync the expiry of many ranks after a bulk change made through {@link DataManager}, a few per tick.
+     * Each rank is re-read under its player's lock, so ranks removed meanwhile are skipped.
+     */
+    public void syncExpiries(Collection<RankIndex.Entry> entries) {
+        if (!permission.expiresNatively()) {
+            return;
+        }
+        workScheduler.forEach(entries, entry -> locks.withLock(entry.playerUUID(), () -> {
+            TempRankData current = dataManager.getTempRank(entry.playerUUID(), entry.rankName());
+            if (current != null) {
+                syncExpiry(current);
+            }
+        }), null);
+    }
+
+    /**
+     * Queue a pause of every running timer. The live index is walked over the following ticks, one
+     * rank per step, so no list of ranks is built up front. The JFR event is committed when the job
+     * finishes, with the number actually paused.
+     */
     public void pauseAllTimers() {
-        long currentTime = System.currentTimeMillis();
-        
-        for (TempRankData data : dataManager.getAllTempRanks()) {
-            if (!data.isPaused()) {
-                long remainingTime = data.getExpirationTimestamp() - currentTime;
-                data.setTimeLeftMillis(Math.max(0, remainingTime));
-                data.setPaused(true);
-                dataManager.updateTempRank(data.getPlayerUUID(), data);
-                cancelTask(data.getPlayerUUID());
+        RankOperationEvent event = new RankOperationEvent();
+        event.begin();
+        int[] paused = {0};
+        workScheduler.forEach(dataManager.getRankIndex().all(), entry -> {
+            if (!entry.paused() && pauseTimer(entry.playerUUID(), entry.rankName())) {
+                paused[0]++;
             }
-        }
+        }, () -> {
+            // The event spans the whole job, from queueing to the last rank
+            commitOperation(event, "pauseAll", null, null, paused[0], 0);
+            Bukkit.getPluginManager().callEvent(new TempRankPauseStateEvent(true, paused[0]));
+        });
     }
 
     public void resumeAllTimers() {
-        long currentTime = System.currentTimeMillis();
-        
-        for (TempRankData data : dataManager.getAllTempRanks()) {
-            if (data.isPaused()) {
-                data.setExpirationTimestamp(currentTime + data.getTimeLeftMillis());
-                data.setPaused(false);
-                data.setTimeLeftMillis(0);
-                dataManager.updateTempRank(data.getPlayerUUID(), data);
-                scheduleRankExpiration(data);
+        RankOperationEvent event = new RankOperationEvent();
+        event.begin();
+        int[] resumed = {0};
+        workScheduler.forEach(dataManager.getRankIndex().all(), entry -> {
+            if (entry.paused() && resumeTimer(entry.playerUUID(), entry.rankName())) {
+                resumed[0]++;
             }
-        }
+        }, () -> {
+            // The event spans the whole job, from queueing to the last rank
+            commitOperation(event, "resumeAll", null, null, resumed[0], 0);
+            Bukkit.getPluginManager().callEvent(new TempRankPauseStateEvent(false, resumed[0]));
+        });
+    }
+
+    private boolean pauseTimer(UUID playerUUID, String rankName) {
+        return locks.withLock(playerUUID, () -> {
+            // Re-read the record: it may have been extended or removed since the job was queued
+            TempRankData data = dataManager.getTempRank(playerUUID, rankName);
+            if (data == null || data.isPaused()) {
+                return false;
+            }
+            
+            TempRankData paused = data.paused(TimeUtil.currentTimeMillis());
+            if (!dataManager.compareAndSet(playerUUID, rankName, data, paused)) {
+                return false;
+            }
+            cancelTask(playerUUID, rankName);
+            syncExpiry(paused);
+            plugin.getAuditLog().record(AuditAction.PAUSE, playerUUID, null, paused.getRankName(), paused.getTimeLeftMillis(), 0, null);
+            return true;
+        });
+    }
+
+    private boolean resumeTimer(UUID playerUUID, String rankName) {
+        return locks.withLock(playerUUID, () -> {
+            TempRankData data = dataManager.getTempRank(playerUUID, rankName);
+            if (data == null || !data.isPaused()) {
+                return false;
+            }
+            if (data.isPlaytime() && Bukkit.getPlayer(playerUUID) == null) {
+                // Playtime ranks of offline players stay frozen until they join
+                return false;
+            }
+            
+            TempRankData resumed = data.resumed(TimeUtil.currentTimeMillis());
+            if (!dataManager.compareAndSet(playerUUID, rankName, data, resumed)) {
+                return false;
+            }
+            scheduleLocked(resumed);
+            syncExpiry(resumed);
+            plugin.getAuditLog().record(AuditAction.RESUME, playerUUID, null, resumed.getRankName(), 0, resumed.getExpirationTimestamp(), null);
+            return true;
+        });
     }
 
-    public void cancelTask(UUID playerUUID) {
-        BukkitTask task = scheduledTasks.remove(playerUUID);
+    public void cancelTask(UUID playerUUID, String rankName) {
+        TaskHandle task = scheduledTasks.remove(RankKey.of(playerUUID, rankName));
         if (task != null && !task.isCancelled()) {
             task.cancel();
         }
     }
 
     public void cancelAllTasks() {
-        for (BukkitTask task : scheduledTasks.values()) {
+        for (TaskHandle task : scheduledTasks.values()) {
             if (task != null && !task.isCancelled()) {
                 task.cancel();
             }
@@ -119,103 +524,268 @@ public class SchedulerHandler {
     }
 
     public RankAssignmentResult giveRank(UUID playerUUID, String playerName, String rankName, long durationMillis) {
-        OfflinePlayer player = Bukkit.getOfflinePlayer(playerUUID);
-        boolean shouldAccumulate = plugin.getConfig().getBoolean("settings.accumulate-time", true);
+        return giveRank(playerUUID, playerName, rankName, durationMillis, false);
+    }
+
+    /**
+     * @param playtime count down only while the player is online. Ignored when time is added to an existing rank,
+     *                 which keeps its mode.
+     */
+    public RankAssignmentResult giveRank(UUID playerUUID, String playerName, String rankName, long durationMillis, boolean playtime) {
+        RankOperationEvent event = new RankOperationEvent();
+        event.begin();
+        RankAssignmentResult result = locks.withLock(playerUUID, () -> giveLocked(playerUUID, playerName, rankName, durationMillis, playtime));
+        commitOperation(event, "give", playerUUID, rankName, 1, durationMillis);
+        return result;
+    }
+
+    private static void commitOperation(RankOperationEvent event, String operation, UUID playerUUID, String rankName, int records, long durationMillis) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.operation = operation;
+            event.playerUUID = playerUUID != null ? playerUUID.toString() : null;
+            event.rankName = rankName;
+            event.records = records;
+            event.durationMillis = durationMillis;
+            event.commit();
+        }
+    }
+
+    private RankAssignmentResult giveLocked(UUID playerUUID, String playerName, String rankName, long durationMillis, boolean playtime) {
+        GivePlan plan = planGive(playerUUID, playerName, rankName, durationMillis, playtime);
+        if (plan.updated() == null) {
+            return plan.result();
+        }
         
-        // Check if player already has a temporary rank
-        if (dataManager.hasTempRank(playerUUID)) {
-            TempRankData existingData = dataManager.getTempRank(playerUUID);
-            
-            // If it's the same rank and accumulation is enabled, accumulate the time
-            if (existingData.getRankName().equalsIgnoreCase(rankName) && shouldAccumulate) {
-                long currentRemainingTime = existingData.getRemainingTime();
-                long newTotalTime = currentRemainingTime + durationMillis;
-                long newExpirationTime = System.currentTimeMillis() + newTotalTime;
-                
-                // Update the expiration time
-                existingData.setExpirationTimestamp(newExpirationTime);
-                if (existingData.isPaused()) {
-                    // If paused, update the stored time left
-                    existingData.setTimeLeftMillis(newTotalTime);
-                }
-                
-                dataManager.updateTempRank(playerUUID, existingData);
-                
-                // Cancel old task and schedule new one
-                cancelTask(playerUUID);
-                if (!existingData.isPaused()) {
-                    scheduleRankExpiration(existingData);
-                }
-                
-                // Log message for time accumulation
-                SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
-                String expirationDate = sdf.format(new Date(newExpirationTime));
-                String addedTime = TimeUtil.formatTime(durationMillis);
-                String totalTime = TimeUtil.formatTime(newTotalTime);
-                plugin.getLogger().info("Added " + addedTime + " to player " + playerName + "'s " + rankName + " rank. Total time remaining: " + totalTime + " (expires " + expirationDate + ").");
-                
-                return new RankAssignmentResult(true, durationMillis, newTotalTime);
-            } else {
-                // Different rank or accumulation disabled, remove the old one first
-                permission.playerRemoveGroup(null, player, existingData.getRankName());
-                cancelTask(playerUUID);
-                
-                if (existingData.getRankName().equalsIgnoreCase(rankName)) {
-                    // Same rank but accumulation disabled - log replacement
-                    plugin.getLogger().info("Replacing " + playerName + "'s " + rankName + " rank (accumulation disabled).");
-                }
+        if (plan.accumulated()) {
+            if (!dataManager.compareAndSet(playerUUID, rankName, plan.expected(), plan.updated())) {
+                // Changed through DataManager directly while the event ran; start over from the new state
+                return giveLocked(playerUUID, playerName, rankName, durationMillis, playtime);
             }
+            syncExpiry(plan.updated());
+        } else {
+            applyGroupChange(plan);
+            dataManager.updateTempRank(playerUUID, plan.updated());
         }
         
-        // New rank or different rank - set normally
-        long expirationTime = System.currentTimeMillis() + durationMillis;
+        scheduleLocked(plan.updated());
+        recordGive(plan);
+        return plan.result();
+    }
+
+    /**
+     * A grant that passed its event, with the record it will write. Nothing has been changed yet.
+     * A plan without an updated record was cancelled.
+     */
+    private record GivePlan(UUID playerUUID, String playerName, String rankName, long durationMillis, boolean accumulated,
+                            TempRankData expected, TempRankData updated, RankAssignmentResult result) {
+    }
+
+    private GivePlan planGive(UUID playerUUID, String playerName, String rankName, long durationMillis, boolean playtime) {
+        boolean shouldAccumulate = plugin.getConfig().getBoolean("settings.accumulate-time", true);
+        
+        // Other ranks the player holds are left alone; only a record for the same rank is extended or replaced
+        TempRankData existingData = dataManager.getTempRank(playerUUID, rankName);
         
-        // Add new rank
-        permission.playerAddGroup(null, player, rankName);
-        dataManager.addTempRank(playerUUID, rankName, expirationTime);
+        // If accumulation is enabled, add the time to the existing record
+        if (existingData != null && shouldAccumulate) {
+            long currentRemainingTime = existingData.getRemainingTime();
+            long newTotalTime = currentRemainingTime + durationMillis;
+            long newExpirationTime = TimeUtil.currentTimeMillis() + newTotalTime;
+            
+            TempRankExtendEvent extendEvent = new TempRankExtendEvent(playerUUID, playerName, existingData.getRankName(), durationMillis, newTotalTime);
+            Bukkit.getPluginManager().callEvent(extendEvent);
+            if (extendEvent.isCancelled()) {
+                return new GivePlan(playerUUID, playerName, rankName, durationMillis, true, existingData, null, RankAssignmentResult.cancelled());
+            }
+            
+            // Update the expiration time
+            TempRankData updatedData = existingData.withExpirationTimestamp(newExpirationTime);
+            if (updatedData.isPaused()) {
+                // If paused, update the stored time left
+                updatedData = updatedData.withTimeLeftMillis(newTotalTime);
+            }
+            return new GivePlan(playerUUID, playerName, rankName, durationMillis, true, existingData, updatedData,
+                    new RankAssignmentResult(true, durationMillis, newTotalTime));
+        }
         
-        // Schedule expiration
-        TempRankData data = dataManager.getTempRank(playerUUID);
-        scheduleRankExpiration(data);
+        TempRankGrantEvent grantEvent = new TempRankGrantEvent(playerUUID, playerName, rankName, durationMillis,
+                existingData != null ? existingData.getRankName() : null);
+        Bukkit.getPluginManager().callEvent(grantEvent);
+        if (grantEvent.isCancelled()) {
+            return new GivePlan(playerUUID, playerName, rankName, durationMillis, false, existingData, null, RankAssignmentResult.cancelled());
+        }
         
-        // Log message
-        SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
-        String expirationDate = sdf.format(new Date(expirationTime));
-        String formattedDuration = TimeUtil.formatTime(durationMillis);
-        plugin.getLogger().info("Gave player " + playerName + " rank " + rankName + " for " + formattedDuration + " (expires " + expirationDate + ").");
+        // New rank, or the same rank again with accumulation disabled - set normally
+        long expirationTime = TimeUtil.currentTimeMillis() + durationMillis;
+        TempRankData data = new TempRankData(playerUUID, rankName, expirationTime, false, 0, playtime);
+        if (playtime && !isCountingPlaytime(playerUUID)) {
+            // Starts frozen and begins counting on the next join
+            data = new TempRankData(playerUUID, rankName, expirationTime, true, durationMillis, true);
+        }
+        return new GivePlan(playerUUID, playerName, rankName, durationMillis, false, existingData, data,
+                new RankAssignmentResult(false, durationMillis, durationMillis));
+    }
+
+    /**
+     * Add the permission group for a new grant, before its record is written. Backends that
+     * expire groups themselves get the grant's expiry with it.
+     */
+    private void applyGroupChange(GivePlan plan) {
+        OfflinePlayer player = Bukkit.getOfflinePlayer(plan.playerUUID());
+        TempRankData existingData = plan.expected();
+        if (existingData != null) {
+            // Same rank with accumulation disabled: the group stays, the old countdown is replaced
+            cancelTask(plan.playerUUID(), existingData.getRankName());
+            
+            plugin.getAuditLog().record(AuditAction.REPLACE, plan.playerUUID(), plan.playerName(), existingData.getRankName(), 0, 0, plan.rankName());
+        }
         
-        return new RankAssignmentResult(false, durationMillis, durationMillis);
+        GroupChanges.grant(permission, player, plan.updated());
     }
 
-    public void removeRank(UUID playerUUID, String playerName) {
-        if (!dataManager.hasTempRank(playerUUID)) {
-            return;
+    private void recordGive(GivePlan plan) {
+        // Formatting and the console line happen on the audit writer thread
+        TempRankData data = plan.updated();
+        if (plan.accumulated()) {
+            plugin.getAuditLog().record(AuditAction.ACCUMULATE, plan.playerUUID(), plan.playerName(), plan.rankName(), plan.durationMillis(), data.getExpirationTimestamp(), null);
+        } else {
+            plugin.getAuditLog().record(AuditAction.GRANT, plan.playerUUID(), plan.playerName(), plan.rankName(), plan.durationMillis(), data.getExpirationTimestamp(), data.isPlaytime() ? PLAYTIME_NOTE : null);
         }
+    }
+
+    /**
+     * A grant for {@link #giveRanks(List)}
+     */
+    public record Grant(UUID playerUUID, String playerName, String rankName, long durationMillis, boolean playtime) {
+    }
+
+    /**
+     * Apply many grants at once. Events and permission changes happen per grant exactly as in
+     * {@link #giveRank(UUID, String, String, long, boolean)}, but all records are written in one storage
+     * transaction and scheduled in one pass. Grants should name distinct player and rank pairs; repeats are applied one by one afterwards.
+     * @return one result per grant, in the same order
+     */
+    public List<RankAssignmentResult> giveRanks(List<Grant> grants) {
+        RankOperationEvent event = new RankOperationEvent();
+        event.begin();
+        List<RankAssignmentResult> results = locks.withAllLocks(() -> giveRanksLocked(grants));
+        commitOperation(event, "giveBatch", null, null, grants.size(), 0);
+        return results;
+    }
+
+    private List<RankAssignmentResult> giveRanksLocked(List<Grant> grants) {
+        RankAssignmentResult[] results = new RankAssignmentResult[grants.size()];
+        Map<RankKey, Integer> planned = new HashMap<>();
+        List<Integer> repeats = new ArrayList<>();
+        List<GivePlan> plans = new ArrayList<>();
         
-        TempRankData data = dataManager.getTempRank(playerUUID);
-        OfflinePlayer player = Bukkit.getOfflinePlayer(playerUUID);
+        for (int i = 0; i < grants.size(); i++) {
+            Grant grant = grants.get(i);
+            if (planned.putIfAbsent(RankKey.of(grant.playerUUID(), grant.rankName()), i) != null) {
+                repeats.add(i);
+                continue;
+            }
+            GivePlan plan = planGive(grant.playerUUID(), grant.playerName(), grant.rankName(), grant.durationMillis(), grant.playtime());
+            if (plan.updated() == null) {
+                results[i] = plan.result();
+                continue;
+            }
+            if (!plan.accumulated()) {
+                applyGroupChange(plan);
+            }
+            plans.add(plan);
+        }
         
-        // Remove from permission system
-        permission.playerRemoveGroup(null, player, data.getRankName());
-        String defaultGroup = plugin.getDefaultGroup();
-        permission.playerAddGroup(null, player, defaultGroup);
+        List<DataManager.Change> changes = new ArrayList<>(plans.size());
+        for (GivePlan plan : plans) {
+            // Accumulation was computed from the old record, so it only applies if that record is unchanged
+            changes.add(new DataManager.Change(plan.playerUUID(), plan.expected(), plan.updated(), plan.accumulated()));
+        }
+        Set<RankKey> conflicts = dataManager.applyChanges(changes);
         
-        // Remove from data and cancel task
-        dataManager.removeTempRank(playerUUID);
-        cancelTask(playerUUID);
+        List<TempRankData> written = new ArrayList<>(plans.size());
+        for (GivePlan plan : plans) {
+            RankKey key = plan.updated().getKey();
+            int index = planned.get(key);
+            if (conflicts.contains(key)) {
+                Grant grant = grants.get(index);
+                results[index] = giveLocked(grant.playerUUID(), grant.playerName(), grant.rankName(), grant.durationMillis(), grant.playtime());
+                continue;
+            }
+            written.add(plan.updated());
+            if (plan.accumulated()) {
+                syncExpiry(plan.updated());
+            }
+            recordGive(plan);
+            results[index] = plan.result();
+        }
+        scheduleBatchLocked(written);
         
-        plugin.getLogger().info("Manually removed temporary rank " + data.getRankName() + " from " + playerName + ". Reverted to " + defaultGroup + ".");
+        for (int index : repeats) {
+            Grant grant = grants.get(index);
+            results[index] = giveLocked(grant.playerUUID(), grant.playerName(), grant.rankName(), grant.durationMillis(), grant.playtime());
+        }
+        return Arrays.asList(results);
+    }
+
+    /**
+     * Remove one temporary rank of a player, or every one of them
+     * @param rankName the rank to remove, or null for all
+     * @return the ranks that were removed
+     */
+    public List<String> removeRank(UUID playerUUID, String playerName, String rankName) {
+        return locks.withLock(playerUUID, () -> {
+            List<String> removed = new ArrayList<>();
+            for (TempRankData data : dataManager.getTempRanks(playerUUID)) {
+                if (rankName == null || data.getRankName().equalsIgnoreCase(rankName)) {
+                    removeLocked(playerUUID, playerName, data);
+                    removed.add(data.getRankName());
+                }
+            }
+            return removed;
+        });
+    }
+
+    private void removeLocked(UUID playerUUID, String playerName, TempRankData data) {
+        OfflinePlayer player = Bukkit.getOfflinePlayer(playerUUID);
+        
+        // Remove from data and permission system, and cancel the task
+        dataManager.removeTempRank(playerUUID, data.getRankName());
+        cancelTask(playerUUID, data.getRankName());
+        GroupChanges.remove(permission, player, data.getRankName());
+        String defaultGroup = revertIfLast(player);
+        
+        plugin.getAuditLog().record(AuditAction.REMOVE, playerUUID, playerName, data.getRankName(), 0, 0, fallbackNote(playerUUID, defaultGroup));
+        Bukkit.getPluginManager().callEvent(new TempRankExpireEvent(playerUUID, playerName, data.getRankName(), TempRankExpireEvent.Cause.REMOVED, defaultGroup));
     }
 
     public static class RankAssignmentResult {
         private final boolean wasAccumulated;
         private final long addedTime;
         private final long totalTime;
+        private final boolean cancelled;
 
         public RankAssignmentResult(boolean wasAccumulated, long addedTime, long totalTime) {
+            this(wasAccumulated, addedTime, totalTime, false);
+        }
+
+        private RankAssignmentResult(boolean wasAccumulated, long addedTime, long totalTime, boolean cancelled) {
             this.wasAccumulated = wasAccumulated;
             this.addedTime = addedTime;
             this.totalTime = totalTime;
+            this.cancelled = cancelled;
+        }
+
+        public static RankAssignmentResult cancelled() {
+            return new RankAssignmentResult(false, 0, 0, true);
+        }
+
+        /**
+         * @return true if a TempRankGrantEvent or TempRankExtendEvent listener cancelled the assignment
+         */
+        public boolean isCancelled() {
+            return cancelled;
         }
 
         public boolean wasAccumulated() {
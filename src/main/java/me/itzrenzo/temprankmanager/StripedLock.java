@@ -0,0 +1,65 @@
+package me.itzrenzo.temprankmanager;
+
+import java.util.UUID;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Fixed set of reentrant locks selected by player UUID. Operations on the same player are
+ * serialized while different players rarely contend, without a lock object per player.
+ */
+public class StripedLock {
+    private final ReentrantLock[] stripes;
+
+    public StripedLock(int stripeCount) {
+        int size = Integer.highestOneBit(Math.max(2, stripeCount - 1)) << 1;
+        this.stripes = new ReentrantLock[size];
+        for (int i = 0; i < size; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+    }
+
+    public <T> T withLock(UUID playerUUID, Supplier<T> action) {
+        ReentrantLock lock = lockFor(playerUUID);
+        lock.lock();
+        try {
+            return action.get();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void withLock(UUID playerUUID, Runnable action) {
+        ReentrantLock lock = lockFor(playerUUID);
+        lock.lock();
+        try {
+            action.run();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Run a bulk operation with every stripe held, excluding all per-player operations.
+     * Stripes are taken in a fixed order; callers must not already hold one.
+     */
+    public <T> T withAllLocks(Supplier<T> action) {
+        for (ReentrantLock stripe : stripes) {
+            stripe.lock();
+        }
+        try {
+            return action.get();
+        } finally {
+            for (int i = stripes.length - 1; i >= 0; i--) {
+                stripes[i].unlock();
+            }
+        }
+    }
+
+    private ReentrantLock lockFor(UUID playerUUID) {
+        int hash = playerUUID.hashCode();
+        // Spread the high bits so sequential UUIDs do not share a stripe
+        hash ^= (hash >>> 16);
+        return stripes[hash & (stripes.length - 1)];
+    }
+}
@@ -1,6 +1,8 @@
 package me.itzrenzo.temprankmanager;
 
-import net.milkbowl.vault.permission.Permission;
+import me.itzrenzo.temprankmanager.audit.AuditEntry;
+import me.itzrenzo.temprankmanager.audit.AuditLog;
+import me.itzrenzo.temprankmanager.permission.PermissionBackend;
 import org.bukkit.Bukkit;
 import org.bukkit.OfflinePlayer;
 import org.bukkit.command.Command;
@@ -8,13 +10,22 @@ import org.bukkit.command.CommandExecutor;
 import org.bukkit.command.CommandSender;
 import org.bukkit.entity.Player;
 
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Consumer;
+
 public class TempRankCommand implements CommandExecutor {
+    private static final int MAX_NEXT_ENTRIES = 50;
+    private static final int MAX_HISTORY_ENTRIES = 100;
+    private static final int MAX_RECONCILE_ENTRIES = 20;
+
     private final TempRankManager plugin;
     private final DataManager dataManager;
     private final SchedulerHandler schedulerHandler;
-    private final Permission permission;
+    private final PermissionBackend permission;
 
-    public TempRankCommand(TempRankManager plugin, DataManager dataManager, SchedulerHandler schedulerHandler, Permission permission) {
+    public TempRankCommand(TempRankManager plugin, DataManager dataManager, SchedulerHandler schedulerHandler, PermissionBackend permission) {
         this.plugin = plugin;
         this.dataManager = dataManager;
         this.schedulerHandler = schedulerHandler;
@@ -41,7 +52,32 @@ public class TempRankCommand implements CommandExecutor {
                 handleRemoveCommand(sender, args);
                 break;
             case "list":
-                handleListCommand(sender);
+                if (args.length > 1) {
+                    handleListByRankCommand(sender, args[1]);
+                } else {
+                    handleListCommand(sender);
+                }
+                break;
+            case "next":
+                handleNextCommand(sender, args);
+                break;
+            case "stats":
+                handleStatsCommand(sender);
+                break;
+            case "history":
+                handleHistoryCommand(sender, args);
+                break;
+            case "backup":
+                handleBackupCommand(sender);
+                break;
+            case "extend-all":
+                handleExtendAllCommand(sender, args);
+                break;
+            case "reconcile":
+                handleReconcileCommand(sender, args);
+                break;
+            case "pending":
+                handlePendingCommand(sender, args);
                 break;
             default:
                 sendUsage(sender);
@@ -52,11 +88,30 @@ public class TempRankCommand implements CommandExecutor {
     }
 
     private void handleGiveCommand(CommandSender sender, String[] args) {
-        if (args.length != 4) {
-            sender.sendMessage("§cUsage: /temprank give <player> <rank> <time>");
+        // --start <when> may appear anywhere after the subcommand
+        String startString = null;
+        List<String> remaining = new ArrayList<>(List.of(args));
+        for (int i = 1; i < remaining.size(); i++) {
+            if (remaining.get(i).equalsIgnoreCase("--start")) {
+                if (i + 1 >= remaining.size()) {
+                    sender.sendMessage("§cMissing start time after --start, e.g. 2h or 2025-12-24T18:00");
+                    return;
+                }
+                startString = remaining.get(i + 1);
+                remaining.subList(i, i + 2).clear();
+                break;
+            }
+        }
+        args = remaining.toArray(new String[0]);
+
+        if (args.length < 4 || args.length > 5 || (args.length == 5 && !args[4].equalsIgnoreCase("playtime"))) {
+            sender.sendMessage("§cUsage: /temprank give <player> <rank> <time> [playtime] [--start <when>]");
             sender.sendMessage("§cTime examples: 30s, 5m, 2h, 7d, 1mo");
+            sender.sendMessage("§cAdd 'playtime' to count down only while the player is online.");
+            sender.sendMessage("§cAdd --start with a delay (2h) or a date (2025-12-24T18:00) to give the rank later.");
             return;
         }
+        boolean playtime = args.length == 5;
 
         String playerName = args[1];
         String rankName = args[2];
@@ -70,97 +125,408 @@ public class TempRankCommand implements CommandExecutor {
             return;
         }
 
-        // Get player (online or offline)
-        Player onlinePlayer = Bukkit.getPlayer(playerName);
-        OfflinePlayer player = onlinePlayer != null ? onlinePlayer : Bukkit.getOfflinePlayer(playerName);
-        
-        if (player.getUniqueId() == null || (!player.hasPlayedBefore() && !player.isOnline())) {
-            sender.sendMessage("§cPlayer '" + playerName + "' has never played on this server.");
+        if (startString != null) {
+            long startAt = TimeUtil.parseStart(startString);
+            if (startAt < 0) {
+                sender.sendMessage("§cInvalid start time! Use a delay like 2h or a date like 2025-12-24T18:00");
+                return;
+            }
+            if (startAt <= TimeUtil.currentTimeMillis()) {
+                sender.sendMessage("§cThe start time " + TimeUtil.formatDate(startAt) + " has already passed.");
+                return;
+            }
+            withTarget(sender, playerName, player -> scheduleFor(sender, player, rankName, durationMillis, playtime, startAt));
             return;
         }
 
+        GiveQueue giveQueue = plugin.getGiveQueue();
+        if (!(sender instanceof Player) && giveQueue.isEnabled()) {
+            // Console bursts from stores are batched; the reply comes when the batch is applied
+            withTarget(sender, playerName, player -> {
+                if (!giveQueue.offer(new GiveQueue.Request(sender, player.uuid(), player.name(), rankName, durationMillis, playtime))) {
+                    sender.sendMessage("§cThe give queue is full; " + rankName + " was not given to " + player.name() + ". Try again shortly.");
+                }
+            });
+            return;
+        }
+
+        withTarget(sender, playerName, player -> giveTo(sender, player, rankName, durationMillis, playtime));
+    }
+
+    private boolean rankExists(CommandSender sender, String rankName) {
         // Check if rank exists by trying to get groups
         String[] groups = permission.getGroups();
-        boolean rankExists = false;
         if (groups != null) {
             for (String group : groups) {
                 if (group.equalsIgnoreCase(rankName)) {
-                    rankExists = true;
-                    break;
+                    return true;
                 }
             }
         }
         
-        if (!rankExists) {
-            sender.sendMessage("§cRank '" + rankName + "' does not exist.");
+        sender.sendMessage("§cRank '" + rankName + "' does not exist.");
+        return false;
+    }
+
+    private void scheduleFor(CommandSender sender, NameIndex.KnownPlayer player, String rankName, long durationMillis, boolean playtime, long startAt) {
+        if (!rankExists(sender, rankName)) {
+            return;
+        }
+
+        plugin.getPendingGrants().schedule(player.uuid(), player.name(), rankName, durationMillis, startAt, playtime);
+        sender.sendMessage("§aScheduled rank " + rankName + " for " + player.name() + " for " + formatTime(durationMillis) + (playtime ? " of online time" : "")
+                + ", starting " + TimeUtil.formatDate(startAt) + " (in " + formatTime(startAt - TimeUtil.currentTimeMillis()) + ").");
+    }
+
+    private void giveTo(CommandSender sender, NameIndex.KnownPlayer player, String rankName, long durationMillis, boolean playtime) {
+        if (!rankExists(sender, rankName)) {
             return;
         }
 
-        SchedulerHandler.RankAssignmentResult result = schedulerHandler.giveRank(player.getUniqueId(), player.getName(), rankName, durationMillis);
+        SchedulerHandler.RankAssignmentResult result = schedulerHandler.giveRank(player.uuid(), player.name(), rankName, durationMillis, playtime);
         
-        if (result.wasAccumulated()) {
+        if (result.isCancelled()) {
+            sender.sendMessage("§cGiving rank " + rankName + " to " + player.name() + " was cancelled by another plugin.");
+        } else if (result.wasAccumulated()) {
             // Time was accumulated
             String addedTime = TimeUtil.formatTime(result.getAddedTime());
             String totalTime = TimeUtil.formatTime(result.getTotalTime());
-            sender.sendMessage("§aAdded " + addedTime + " to " + player.getName() + "'s " + rankName + " rank. Total time: " + totalTime + ".");
+            sender.sendMessage("§aAdded " + addedTime + " to " + player.name() + "'s " + rankName + " rank. Total time: " + totalTime + ".");
         } else {
             // New rank assignment or replacement
             String formattedTime = TimeUtil.formatTime(result.getAddedTime());
-            sender.sendMessage("§aGave player " + player.getName() + " rank " + rankName + " for " + formattedTime + ".");
+            sender.sendMessage("§aGave player " + player.name() + " rank " + rankName + " for " + formattedTime + (playtime ? " of online time" : "") + ".");
         }
     }
 
     private void handleRemoveCommand(CommandSender sender, String[] args) {
-        if (args.length != 2) {
-            sender.sendMessage("§cUsage: /temprank remove <player>");
+        if (args.length != 2 && args.length != 3) {
+            sender.sendMessage("§cUsage: /temprank remove <player> [rank]");
             return;
         }
 
-        String playerName = args[1];
-        Player onlinePlayer = Bukkit.getPlayer(playerName);
-        OfflinePlayer player = onlinePlayer != null ? onlinePlayer : Bukkit.getOfflinePlayer(playerName);
-        
-        if (player.getUniqueId() == null || (!player.hasPlayedBefore() && !player.isOnline())) {
-            sender.sendMessage("§cPlayer '" + playerName + "' has never played on this server.");
-            return;
-        }
+        // Without a rank every temporary rank of the player is removed
+        String rankName = args.length == 3 ? args[2] : null;
+        withTarget(sender, args[1], player -> {
+            List<String> removed = schedulerHandler.removeRank(player.uuid(), player.name(), rankName);
+            if (removed.isEmpty()) {
+                sender.sendMessage(rankName != null
+                        ? "§cPlayer " + player.name() + " does not have the temporary rank " + rankName + "."
+                        : "§cPlayer " + player.name() + " does not have a temporary rank.");
+                return;
+            }
 
-        if (!dataManager.hasTempRank(player.getUniqueId())) {
-            sender.sendMessage("§cPlayer " + player.getName() + " does not have a temporary rank.");
+            sender.sendMessage("§aRemoved temporary rank " + String.join(", ", removed) + " from " + player.name() + ".");
+        });
+    }
+
+    /**
+     * Run the action with the named player, who must have played here before. Online players are
+     * found right away; anyone else is resolved off the server thread and the action runs in a callback.
+     */
+    private void withTarget(CommandSender sender, String playerName, Consumer<NameIndex.KnownPlayer> action) {
+        Player onlinePlayer = Bukkit.getPlayer(playerName);
+        if (onlinePlayer != null) {
+            action.accept(new NameIndex.KnownPlayer(onlinePlayer.getUniqueId(), onlinePlayer.getName()));
             return;
         }
 
-        TempRankData data = dataManager.getTempRank(player.getUniqueId());
-        schedulerHandler.removeRank(player.getUniqueId(), player.getName());
-        sender.sendMessage("§aRemoved temporary rank " + data.getRankName() + " from " + player.getName() + ".");
+        plugin.getNameIndex().resolve(playerName).whenComplete((player, error) -> replyTo(sender, () -> {
+            if (error != null) {
+                Throwable cause = error.getCause() != null ? error.getCause() : error;
+                sender.sendMessage("§cCould not look up player '" + playerName + "': " + cause.getMessage());
+            } else if (player == null) {
+                sender.sendMessage("§cPlayer '" + playerName + "' has never played on this server.");
+            } else {
+                action.accept(player);
+            }
+        }));
     }
 
     private void handleListCommand(CommandSender sender) {
-        var tempRanks = dataManager.getAllTempRanks();
+        // Walks the live index a few entries per tick instead of copying every record first
+        var entries = dataManager.getRankIndex().all();
         
-        if (tempRanks.isEmpty()) {
+        if (entries.isEmpty()) {
             sender.sendMessage("§eNo active temporary ranks.");
             return;
         }
 
         sender.sendMessage("§6=== Active Temporary Ranks ===");
-        for (TempRankData data : tempRanks) {
-            OfflinePlayer player = Bukkit.getOfflinePlayer(data.getPlayerUUID());
+        // Name lookups can hit player data on disk, so long lists are sent over several ticks
+        plugin.getWorkScheduler().forEach(entries, entry -> {
+            OfflinePlayer player = Bukkit.getOfflinePlayer(entry.playerUUID());
             String playerName = player.getName() != null ? player.getName() : "Unknown";
             
-            String timeLeft = formatTime(data.getRemainingTime());
-            String pausedStatus = data.isPaused() ? " §c[PAUSED]" : "";
+            String timeLeft = formatTime(entry.remainingMillis(TimeUtil.currentTimeMillis()));
+            String pausedStatus = entry.playtime() ? " §d[PLAYTIME]" : entry.paused() ? " §c[PAUSED]" : "";
+            
+            sender.sendMessage("§e" + playerName + " §7- §b" + entry.rankName() + " §7- §a" + timeLeft + pausedStatus);
+        }, null);
+    }
+
+    private void handleListByRankCommand(CommandSender sender, String rankName) {
+        // Served from the in-memory rank index, no storage scan
+        var entries = dataManager.getRankIndex().byRank(rankName);
+        
+        if (entries.isEmpty()) {
+            sender.sendMessage("§eNo active temporary ranks for " + rankName + ".");
+            return;
+        }
+
+        sender.sendMessage("§6=== Active Temporary Ranks: " + rankName + " (" + entries.size() + ") ===");
+        plugin.getWorkScheduler().forEach(entries, entry -> {
+            OfflinePlayer player = Bukkit.getOfflinePlayer(entry.playerUUID());
+            String playerName = player.getName() != null ? player.getName() : "Unknown";
             
-            sender.sendMessage("§e" + playerName + " §7- §b" + data.getRankName() + " §7- §a" + timeLeft + pausedStatus);
+            String timeLeft = formatTime(entry.remainingMillis(TimeUtil.currentTimeMillis()));
+            String pausedStatus = entry.playtime() ? " §d[PLAYTIME]" : entry.paused() ? " §c[PAUSED]" : "";
+            
+            sender.sendMessage("§e" + playerName + " §7- §b" + entry.rankName() + " §7- §a" + timeLeft + pausedStatus);
+        }, null);
+    }
+
+    private void handleNextCommand(CommandSender sender, String[] args) {
+        int count = 10;
+        if (args.length > 1) {
+            try {
+                count = Math.max(1, Math.min(MAX_NEXT_ENTRIES, Integer.parseInt(args[1])));
+            } catch (NumberFormatException e) {
+                sender.sendMessage("§cUsage: /temprank next [count]");
+                return;
+            }
+        }
+
+        var entries = dataManager.getRankIndex().nextExpiring(count);
+        if (entries.isEmpty()) {
+            sender.sendMessage("§eNo running temporary ranks.");
+            return;
+        }
+
+        sender.sendMessage("§6=== Next " + entries.size() + " Temporary Ranks to Expire ===");
+        long now = TimeUtil.currentTimeMillis();
+        int position = 1;
+        for (RankIndex.Entry entry : entries) {
+            OfflinePlayer player = Bukkit.getOfflinePlayer(entry.playerUUID());
+            String playerName = player.getName() != null ? player.getName() : "Unknown";
+            sender.sendMessage("§7#" + position++ + " §e" + playerName + " §7- §b" + entry.rankName() + " §7- §a" + formatTime(entry.remainingMillis(now)));
+        }
+    }
+
+    private void handlePendingCommand(CommandSender sender, String[] args) {
+        int count = 10;
+        if (args.length > 1) {
+            try {
+                count = Math.max(1, Math.min(MAX_NEXT_ENTRIES, Integer.parseInt(args[1])));
+            } catch (NumberFormatException e) {
+                sender.sendMessage("§cUsage: /temprank pending [count]");
+                return;
+            }
+        }
+
+        PendingGrants pendingGrants = plugin.getPendingGrants();
+        List<PendingGrant> next = pendingGrants.getNext(count);
+        if (next.isEmpty()) {
+            sender.sendMessage("§eNo scheduled grants.");
+            return;
+        }
+
+        sender.sendMessage("§6=== Scheduled Grants (" + pendingGrants.size() + ", soonest first) ===");
+        long now = TimeUtil.currentTimeMillis();
+        for (PendingGrant grant : next) {
+            sender.sendMessage("§7" + TimeUtil.formatDate(grant.startAt()) + " §7(in " + formatTime(grant.startAt() - now) + ") §e" + grant.playerName()
+                    + " §7- §b" + grant.rankName() + " §7- §a" + formatTime(grant.durationMillis()) + (grant.playtime() ? " §d[PLAYTIME]" : ""));
+        }
+    }
+
+    private void handleStatsCommand(CommandSender sender) {
+        // Counters are maintained incrementally by the rank index, so this is O(ranks)
+        RankIndex index = dataManager.getRankIndex();
+        long now = TimeUtil.currentTimeMillis();
+        RankIndex.Counts totals = index.getTotals();
+
+        sender.sendMessage("§6=== Temporary Rank Stats ===");
+        sender.sendMessage("§eTotal: §a" + totals.total() + " §7(" + totals.active() + " running, " + totals.paused() + " paused) §7across §a" + index.playerCount() + " §7player(s) §7- §a" + formatTime(totals.remainingMillis(now)) + " §7remaining");
+
+        List<RankIndex.Counts> perRank = new ArrayList<>(index.getAllCounts());
+        perRank.sort(Comparator.comparing(RankIndex.Counts::rankName, String.CASE_INSENSITIVE_ORDER));
+        for (RankIndex.Counts counts : perRank) {
+            sender.sendMessage("§b" + counts.rankName() + " §7- §a" + counts.total() + " §7(" + counts.active() + " running, " + counts.paused() + " paused) §7- §a" + formatTime(counts.remainingMillis(now)));
+        }
+
+        sender.sendMessage("§eScheduled grants: §a" + plugin.getPendingGrants().size());
+
+        WorkScheduler workScheduler = plugin.getWorkScheduler();
+        sender.sendMessage(String.format("§eBulk work: §a%d §7queued, last tick §a%.2fms §7of §a%.2fms",
+                workScheduler.getQueuedUnits(), workScheduler.getLastTickUsedNanos() / 1_000_000.0, workScheduler.getBudgetNanos() / 1_000_000.0));
+    }
+
+    private void handleHistoryCommand(CommandSender sender, String[] args) {
+        if (args.length < 2 || args.length > 3) {
+            sender.sendMessage("§cUsage: /temprank history <player> [count]");
+            return;
+        }
+
+        AuditLog auditLog = plugin.getAuditLog();
+        if (!auditLog.isEnabled()) {
+            sender.sendMessage("§cRank history is disabled in the config.");
+            return;
+        }
+
+        int count = 10;
+        if (args.length == 3) {
+            try {
+                count = Math.max(1, Math.min(MAX_HISTORY_ENTRIES, Integer.parseInt(args[2])));
+            } catch (NumberFormatException e) {
+                sender.sendMessage("§cUsage: /temprank history <player> [count]");
+                return;
+            }
+        }
+
+        int limit = count;
+        withTarget(sender, args[1], player -> showHistory(sender, player, limit));
+    }
+
+    private void showHistory(CommandSender sender, NameIndex.KnownPlayer player, int count) {
+        String playerName = player.name();
+
+        // The query runs on the I/O executor; only the replies come back to the sender's thread
+        plugin.getAuditLog().queryAsync(player.uuid(), count).whenComplete((entries, error) -> replyTo(sender, () -> {
+            if (error != null) {
+                sender.sendMessage("§cFailed to read history for " + playerName + ".");
+                plugin.getLogger().severe("Failed to read rank history: " + error.getMessage());
+                return;
+            }
+            if (entries.isEmpty()) {
+                sender.sendMessage("§eNo rank history for " + playerName + ".");
+                return;
+            }
+
+            sender.sendMessage("§6=== Rank History: " + playerName + " (newest first) ===");
+            for (AuditEntry entry : entries) {
+                sender.sendMessage("§7" + entry.formattedTimestamp() + " §e" + entry.action() + " §b" + entry.rankName() + describeHistoryDetail(entry));
+            }
+        }));
+    }
+
+    private String describeHistoryDetail(AuditEntry entry) {
+        return switch (entry.action()) {
+            case GRANT, ACCUMULATE -> " §7+" + formatTime(entry.durationMillis());
+            case SCHEDULE -> " §7+" + formatTime(entry.durationMillis()) + " from " + TimeUtil.formatDate(entry.expirationTimestamp());
+            case PAUSE -> " §7(" + formatTime(entry.durationMillis()) + " left)";
+            case REPLACE -> " §7-> §b" + entry.note();
+            case REMOVE, EXPIRE -> entry.note() != null ? " §7(" + entry.note() + ")" : "";
+            default -> "";
+        };
+    }
+
+    private void handleExtendAllCommand(CommandSender sender, String[] args) {
+        if (args.length < 2 || args.length > 3) {
+            sender.sendMessage("§cUsage: /temprank extend-all <time> [rank]");
+            return;
+        }
+
+        long durationMillis = TimeUtil.parseTime(args[1]);
+        if (durationMillis <= 0) {
+            sender.sendMessage("§cInvalid time format! Use: 30s, 5m, 2h, 7d, 1mo");
+            return;
+        }
+
+        String rankName = args.length == 3 ? args[2] : null;
+        int extended = schedulerHandler.extendAll(durationMillis, rankName);
+        schedulerHandler.syncExpiries(rankName != null ? dataManager.getRankIndex().byRank(rankName) : dataManager.getRankIndex().all());
+        String target = rankName != null ? rankName + " rank(s)" : "temporary rank(s)";
+        plugin.getLogger().info("Extended " + extended + " " + target + " by " + formatTime(durationMillis) + " (requested by " + sender.getName() + ").");
+        sender.sendMessage("§aAdded " + formatTime(durationMillis) + " to " + extended + " active " + target + ".");
+    }
+
+    private void handleBackupCommand(CommandSender sender) {
+        BackupManager backupManager = plugin.getBackupManager();
+        if (backupManager.isRunning()) {
+            sender.sendMessage("§cA backup is already in progress.");
+            return;
+        }
+
+        sender.sendMessage("§eStarting backup...");
+        backupManager.backup().whenComplete((file, error) -> replyTo(sender, () -> {
+            if (error != null) {
+                Throwable cause = error.getCause() != null ? error.getCause() : error;
+                sender.sendMessage("§cBackup failed: " + cause.getMessage());
+            } else {
+                sender.sendMessage("§aBackup written to " + file.getName() + ".");
+            }
+        }));
+    }
+
+    private void handleReconcileCommand(CommandSender sender, String[] args) {
+        if (args.length > 2 || (args.length == 2 && !args[1].equalsIgnoreCase("fix"))) {
+            sender.sendMessage("§cUsage: /temprank reconcile [fix]");
+            return;
+        }
+        boolean fix = args.length == 2;
+        
+        Reconciler reconciler = plugin.getReconciler();
+        if (reconciler.isRunning()) {
+            sender.sendMessage("§cA reconciliation is already in progress.");
+            return;
+        }
+        
+        sender.sendMessage("§eChecking temporary ranks against permission groups...");
+        reconciler.run(fix).whenComplete((report, error) -> replyTo(sender, () -> {
+            if (error != null) {
+                Throwable cause = error.getCause() != null ? error.getCause() : error;
+                sender.sendMessage("§cReconciliation failed: " + cause.getMessage());
+                return;
+            }
+            
+            sender.sendMessage("§6Checked " + report.checked() + " temporary rank(s) in " + report.elapsedMillis() + "ms");
+            if (report.drift().isEmpty()) {
+                sender.sendMessage("§aNo mismatches found.");
+                return;
+            }
+            report.countsByType().forEach((type, count) -> sender.sendMessage("§e" + count + " §7player(s) " + type.getDescription()));
+            int shown = 0;
+            for (Reconciler.Drift drift : report.drift()) {
+                if (shown++ >= MAX_RECONCILE_ENTRIES) {
+                    sender.sendMessage("§7... and " + (report.drift().size() - MAX_RECONCILE_ENTRIES) + " more");
+                    break;
+                }
+                String name = Bukkit.getOfflinePlayer(drift.playerUUID()).getName();
+                sender.sendMessage("§7- §e" + (name != null ? name : drift.playerUUID()) + " §7" + drift.rankName() + " (" + drift.type().name().toLowerCase().replace('_', ' ') + ")");
+            }
+            int reportOnly = report.drift().size() - report.fixable();
+            if (reportOnly > 0) {
+                sender.sendMessage("§7" + reportOnly + " untracked group(s) are only reported, as the group may be held permanently. List it under §ereconcile.ranks §7to have it removed.");
+            }
+            if (fix) {
+                sender.sendMessage("§aFixing " + report.fixable() + " mismatch(es) in the background.");
+            } else {
+                sender.sendMessage("§7Run §e/temprank reconcile fix §7to repair them.");
+            }
+        }));
+    }
+
+    private void replyTo(CommandSender sender, Runnable reply) {
+        if (sender instanceof Player player) {
+            plugin.getTaskScheduler().runForEntity(player, reply);
+        } else {
+            plugin.getTaskScheduler().runGlobal(reply);
         }
     }
 
     private void sendUsage(CommandSender sender) {
         sender.sendMessage("§6TempRankManager Commands:");
-        sender.sendMessage("§e/temprank give <player> <rank> <time> §7- Give a temporary rank");
-        sender.sendMessage("§7  Time examples: 30s, 5m, 2h, 7d, 1mo");
-        sender.sendMessage("§e/temprank remove <player> §7- Remove a temporary rank");
-        sender.sendMessage("§e/temprank list §7- List all active temporary ranks");
+        sender.sendMessage("§e/temprank give <player> <rank> <time> [playtime] [--start <when>] §7- Give a temporary rank");
+        sender.sendMessage("§7  Time examples: 30s, 5m, 2h, 7d, 1mo; start with a delay or a date like 2025-12-24T18:00");
+        sender.sendMessage("§e/temprank remove <player> [rank] §7- Remove one temporary rank, or all of them");
+        sender.sendMessage("§e/temprank list [rank] §7- List all active temporary ranks, optionally of one rank");
+        sender.sendMessage("§e/temprank next [count] §7- Show the ranks that expire soonest");
+        sender.sendMessage("§e/temprank pending [count] §7- Show grants scheduled to start later");
+        sender.sendMessage("§e/temprank stats §7- Show per-rank counts and remaining time");
+        sender.sendMessage("§e/temprank history <player> [count] §7- Show a player's rank history");
+        sender.sendMessage("§e/temprank backup §7- Back up all temporary ranks without stopping the server");
+        sender.sendMessage("§e/temprank extend-all <time> [rank] §7- Add time to every active temporary rank");
+        sender.sendMessage("§e/temprank reconcile [fix] §7- Compare temporary ranks with permission groups");
     }
 
     private String formatTime(long milliseconds) {
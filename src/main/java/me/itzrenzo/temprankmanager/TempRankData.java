@@ -1,28 +1,38 @@
 package me.itzrenzo.temprankmanager;
 
+import java.util.Objects;
 import java.util.UUID;
 
-public class TempRankData {
-    private UUID playerUUID;
-    private String rankName;
-    private long expirationTimestamp;
-    private boolean isPaused;
-    private long timeLeftMillis;
+/**
+ * Immutable temporary rank record. Changes produce a new instance, so a record can be shared
+ * across threads and readers never see a half-applied update.
+ */
+public final class TempRankData {
+    private final UUID playerUUID;
+    private final String rankName;
+    private final long expirationTimestamp;
+    private final boolean isPaused;
+    private final long timeLeftMillis;
+    private final boolean playtime;
 
     public TempRankData(UUID playerUUID, String rankName, long expirationTimestamp) {
-        this.playerUUID = playerUUID;
-        this.rankName = rankName;
-        this.expirationTimestamp = expirationTimestamp;
-        this.isPaused = false;
-        this.timeLeftMillis = 0;
+        this(playerUUID, rankName, expirationTimestamp, false, 0);
     }
 
     public TempRankData(UUID playerUUID, String rankName, long expirationTimestamp, boolean isPaused, long timeLeftMillis) {
+        this(playerUUID, rankName, expirationTimestamp, isPaused, timeLeftMillis, false);
+    }
+
+    /**
+     * @param playtime true if the rank only counts down while the player is online; it is kept paused while they are offline
+     */
+    public TempRankData(UUID playerUUID, String rankName, long expirationTimestamp, boolean isPaused, long timeLeftMillis, boolean playtime) {
         this.playerUUID = playerUUID;
         this.rankName = rankName;
         this.expirationTimestamp = expirationTimestamp;
         this.isPaused = isPaused;
         this.timeLeftMillis = timeLeftMillis;
+        this.playtime = playtime;
     }
 
     public UUID getPlayerUUID() {
@@ -33,38 +43,83 @@ public class TempRankData {
         return rankName;
     }
 
+    /**
+     * The (player, rank) pair this record is stored under
+     */
+    public RankKey getKey() {
+        return RankKey.of(playerUUID, rankName);
+    }
+
     public long getExpirationTimestamp() {
         return expirationTimestamp;
     }
 
-    public void setExpirationTimestamp(long expirationTimestamp) {
-        this.expirationTimestamp = expirationTimestamp;
+    public TempRankData withExpirationTimestamp(long expirationTimestamp) {
+        return new TempRankData(playerUUID, rankName, expirationTimestamp, isPaused, timeLeftMillis, playtime);
     }
 
     public boolean isPaused() {
         return isPaused;
     }
 
-    public void setPaused(boolean paused) {
-        isPaused = paused;
-    }
-
     public long getTimeLeftMillis() {
         return timeLeftMillis;
     }
 
-    public void setTimeLeftMillis(long timeLeftMillis) {
-        this.timeLeftMillis = timeLeftMillis;
+    public TempRankData withTimeLeftMillis(long timeLeftMillis) {
+        return new TempRankData(playerUUID, rankName, expirationTimestamp, isPaused, timeLeftMillis, playtime);
+    }
+
+    /**
+     * Whether the rank counts down only while the player is online
+     */
+    public boolean isPlaytime() {
+        return playtime;
+    }
+
+    /**
+     * Freeze the remaining time as of the given instant
+     */
+    public TempRankData paused(long now) {
+        return new TempRankData(playerUUID, rankName, expirationTimestamp, true, Math.max(0, expirationTimestamp - now), playtime);
+    }
+
+    /**
+     * Restart the countdown from the given instant with the frozen remaining time
+     */
+    public TempRankData resumed(long now) {
+        return new TempRankData(playerUUID, rankName, now + timeLeftMillis, false, 0, playtime);
     }
 
     public boolean isExpired() {
-        return !isPaused && System.currentTimeMillis() >= expirationTimestamp;
+        return !isPaused && TimeUtil.currentTimeMillis() >= expirationTimestamp;
     }
 
     public long getRemainingTime() {
         if (isPaused) {
             return timeLeftMillis;
         }
-        return Math.max(0, expirationTimestamp - System.currentTimeMillis());
+        return Math.max(0, expirationTimestamp - TimeUtil.currentTimeMillis());
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof TempRankData other)) {
+            return false;
+        }
+        return expirationTimestamp == other.expirationTimestamp
+                && isPaused == other.isPaused
+                && timeLeftMillis == other.timeLeftMillis
+                && playtime == other.playtime
+                && playerUUID.equals(other.playerUUID)
+                && rankName.equals(other.rankName);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(playerUUID, rankName, expirationTimestamp, isPaused, timeLeftMillis, playtime);
     }
-}
\ No newline at end of file
+}
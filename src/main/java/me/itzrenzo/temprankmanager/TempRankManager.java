@@ -1,49 +1,97 @@
 package me.itzrenzo.temprankmanager;
 
-import net.milkbowl.vault.permission.Permission;
+import me.itzrenzo.temprankmanager.api.TempRankService;
+import me.itzrenzo.temprankmanager.audit.AuditLog;
+import me.itzrenzo.temprankmanager.permission.PermissionBackend;
+import me.itzrenzo.temprankmanager.scheduler.TaskHandle;
+import me.itzrenzo.temprankmanager.scheduler.TaskScheduler;
 import org.bukkit.Bukkit;
 import org.bukkit.event.EventHandler;
 import org.bukkit.event.Listener;
 import org.bukkit.event.server.ServerCommandEvent;
-import org.bukkit.plugin.RegisteredServiceProvider;
+import org.bukkit.plugin.PluginDescriptionFile;
+import org.bukkit.plugin.ServicePriority;
 import org.bukkit.plugin.java.JavaPlugin;
-import org.bukkit.scheduler.BukkitTask;
+import org.bukkit.plugin.java.JavaPluginLoader;
 
-public final class TempRankManager extends JavaPlugin implements Listener {
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
 
-    private Permission permission;
+public class TempRankManager extends JavaPlugin implements Listener {
+
+    private static final String SHUTDOWN_FILE = "last-shutdown.txt";
+
+    private PermissionBackend permission;
     private DataManager dataManager;
     private SchedulerHandler schedulerHandler;
-    private boolean isWhitelistMode = false;
-    private BukkitTask cleanupTask;
+    private WorkScheduler workScheduler;
+    private volatile boolean isWhitelistMode = false;
+    private TaskScheduler taskScheduler;
+    private TaskHandle cleanupTask;
+    private boolean cleanupRunning = false;
     private TempRankPlaceholders placeholders;
+    private TempRankServiceImpl service;
+    private AuditLog auditLog;
+    private BackupManager backupManager;
+    private ExpiryWarnings expiryWarnings;
+    private Reconciler reconciler;
+    private NameIndex nameIndex;
+    private GiveQueue giveQueue;
+    private PendingGrants pendingGrants;
+    private HttpQueryServer httpQueryServer;
+
+    public TempRankManager() {
+        super();
+    }
+
+    /**
+     * Initialization constructor for subclasses that run the plugin outside a real server.
+     */
+    protected TempRankManager(JavaPluginLoader loader, PluginDescriptionFile description, File dataFolder, File file) {
+        super(loader, description, dataFolder, file);
+    }
 
     @Override
     public void onEnable() {
         // Save default config
         saveDefaultConfig();
+        // Flight recorder settings for incidents, see the comment in the file
+        if (!new File(getDataFolder(), "temprankmanager.jfc").exists()) {
+            saveResource("temprankmanager.jfc", false);
+        }
         
         if (!setupPermissions()) {
-            getLogger().severe("Failed to hook into Vault permissions! Disabling plugin.");
+            getLogger().severe("Failed to hook into a permission plugin through Vault or LuckPerms! Disabling plugin.");
             Bukkit.getPluginManager().disablePlugin(this);
             return;
         }
 
+        taskScheduler = TaskScheduler.create(this);
         dataManager = new DataManager(this);
-        schedulerHandler = new SchedulerHandler(this, dataManager, permission);
+        auditLog = new AuditLog(this);
+        workScheduler = new WorkScheduler(this);
+        schedulerHandler = new SchedulerHandler(this, dataManager, permission, workScheduler);
+        nameIndex = new NameIndex(this);
         
         // Register commands and events
         TempRankCommand commandExecutor = new TempRankCommand(this, dataManager, schedulerHandler, permission);
         getCommand("temprank").setExecutor(commandExecutor);
-        getCommand("temprank").setTabCompleter(new TempRankTabCompleter(dataManager, permission));
+        getCommand("temprank").setTabCompleter(new TempRankTabCompleter(dataManager, permission, nameIndex));
         Bukkit.getPluginManager().registerEvents(this, this);
+        Bukkit.getPluginManager().registerEvents(new PlaytimeListener(schedulerHandler), this);
+        Bukkit.getPluginManager().registerEvents(nameIndex, this);
         
         // Load data and schedule existing ranks
         dataManager.loadData();
+        nameIndex.seed();
+        
+        // Before cleanup, so ranks that ran out while the server was down get their time back first
+        compensateDowntime();
         
         // Clean up expired ranks if enabled
         if (getConfig().getBoolean("settings.cleanup-on-startup", true)) {
-            dataManager.removeExpiredRanks();
+            schedulerHandler.expireDueRanks(Integer.MAX_VALUE);
         }
         
         schedulerHandler.scheduleExistingRanks();
@@ -58,38 +106,167 @@ public final class TempRankManager extends JavaPlugin implements Listener {
         // Start periodic cleanup task if configured
         startCleanupTask();
         
+        backupManager = new BackupManager(this);
+        backupManager.startSchedule();
+        
+        expiryWarnings = new ExpiryWarnings(this);
+        expiryWarnings.start();
+        
+        reconciler = new Reconciler(this, schedulerHandler);
+        reconciler.startSchedule();
+        
+        giveQueue = new GiveQueue(this, schedulerHandler);
+        giveQueue.start();
+        
+        // After the existing ranks are scheduled, so grants that came due during downtime stack on them
+        pendingGrants = new PendingGrants(this, schedulerHandler);
+        pendingGrants.load();
+        
+        // Expose the public API to other plugins
+        service = new TempRankServiceImpl(dataManager);
+        service.refreshSnapshot();
+        getServer().getServicesManager().register(TempRankService.class, service, this, ServicePriority.Normal);
+        
+        httpQueryServer = new HttpQueryServer(this, service);
+        httpQueryServer.start();
+        
         // Register PlaceholderAPI expansion if available
         setupPlaceholderAPI();
         
-        getLogger().info("TempRankManager has been enabled using " + dataManager.getStorageProvider().getProviderName() + " storage!");
+        getLogger().info("TempRankManager has been enabled using " + dataManager.getStorageProvider().getProviderName() + " storage, the " + taskScheduler.getName() + " scheduler and " + permission.getName() + " for permissions!");
     }
 
     @Override
     public void onDisable() {
+        // Each step runs even if an earlier one fails, so queued writes and history still reach storage
+        shutdownStep("unregister services", () -> getServer().getServicesManager().unregisterAll(this));
+        
+        if (httpQueryServer != null) {
+            shutdownStep("stop the HTTP query server", httpQueryServer::close);
+        }
+        
         if (cleanupTask != null && !cleanupTask.isCancelled()) {
-            cleanupTask.cancel();
+            shutdownStep("cancel the cleanup task", cleanupTask::cancel);
+        }
+        
+        if (expiryWarnings != null) {
+            shutdownStep("stop expiry warnings", expiryWarnings::stop);
+        }
+        
+        // Queued console grants were already acknowledged as accepted
+        if (giveQueue != null) {
+            shutdownStep("apply queued give commands", giveQueue::close);
         }
         
+        if (pendingGrants != null) {
+            shutdownStep("stop scheduled grants", pendingGrants::close);
+        }
+        
+        if (reconciler != null) {
+            shutdownStep("stop reconciliation", reconciler::close);
+        }
+        
+        if (workScheduler != null) {
+            shutdownStep("finish queued bulk work", workScheduler::drain);
+        }
+        
+        // No quit event reaches us on shutdown, so stop the online players' playtime clocks here
         if (schedulerHandler != null) {
-            schedulerHandler.cancelAllTasks();
+            shutdownStep("pause playtime ranks of online players", schedulerHandler::settleOnlinePlaytime);
+            shutdownStep("cancel expiry timers", schedulerHandler::cancelAllTasks);
+        }
+        
+        // Group changes handed to LuckPerms are applied on its threads
+        if (permission != null) {
+            shutdownStep("finish permission changes", permission::close);
+        }
+        
+        // Let a running backup finish before the storage closes
+        if (backupManager != null) {
+            shutdownStep("finish the running backup", backupManager::close);
+        }
+        
+        // Flush history while the database is still open
+        if (auditLog != null) {
+            shutdownStep("flush rank history", auditLog::close);
         }
         
         if (dataManager != null) {
-            dataManager.close();
+            shutdownStep("record the shutdown time", this::recordShutdown);
+            shutdownStep("close storage", dataManager::close);
         }
         
         getLogger().info("TempRankManager has been disabled!");
     }
 
+    private void shutdownStep(String description, Runnable step) {
+        try {
+            step.run();
+        } catch (RuntimeException e) {
+            getLogger().severe("Failed to " + description + " on shutdown: " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+
+    private File getShutdownFile() {
+        return new File(getDataFolder(), SHUTDOWN_FILE);
+    }
+
+    /**
+     * Remember when the server stopped cleanly, for downtime compensation on the next start
+     */
+    private void recordShutdown() {
+        try {
+            Files.writeString(getShutdownFile().toPath(), String.valueOf(TimeUtil.currentTimeMillis()));
+        } catch (IOException e) {
+            getLogger().warning("Could not record shutdown time: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Shift all running expirations by the time the server was down, if enabled.
+     * Only clean shutdowns are compensated, because a crash leaves no timestamp.
+     */
+    private void compensateDowntime() {
+        File shutdownFile = getShutdownFile();
+        if (!shutdownFile.exists()) {
+            return;
+        }
+        
+        long shutdownAt;
+        try {
+            shutdownAt = Long.parseLong(Files.readString(shutdownFile.toPath()).trim());
+        } catch (IOException | NumberFormatException e) {
+            getLogger().warning("Could not read last shutdown time: " + e.getMessage());
+            shutdownAt = -1;
+        }
+        // Consumed either way, so a later crash is never compensated with a stale timestamp
+        shutdownFile.delete();
+        
+        if (shutdownAt <= 0 || !getConfig().getBoolean("settings.compensate-downtime", false)) {
+            return;
+        }
+        
+        long downtime = TimeUtil.currentTimeMillis() - shutdownAt;
+        if (downtime <= 0) {
+            return;
+        }
+        
+        int shifted = schedulerHandler.shiftRunningExpirations(downtime, shutdownAt);
+        // The permission plugin may have expired groups on its own while the server was down
+        schedulerHandler.syncExpiries(dataManager.getRankIndex().all());
+        getLogger().info("Compensated " + TimeUtil.formatTime(downtime) + " of downtime on " + shifted + " running temporary rank(s).");
+    }
+
     private void startCleanupTask() {
         int cleanupInterval = getConfig().getInt("settings.cleanup-interval", 60);
         
         if (cleanupInterval > 0) {
             long intervalTicks = cleanupInterval * 60 * 20L; // Convert minutes to ticks
             
-            cleanupTask = Bukkit.getScheduler().runTaskTimer(this, () -> {
+            cleanupTask = taskScheduler.runGlobalTimer(() -> {
                 if (!isWhitelistMode) {
-                    dataManager.removeExpiredRanks();
+                    submitCleanup();
                 }
             }, intervalTicks, intervalTicks);
             
@@ -97,12 +274,30 @@ public final class TempRankManager extends JavaPlugin implements Listener {
         }
     }
 
-    private boolean setupPermissions() {
-        RegisteredServiceProvider<Permission> rsp = getServer().getServicesManager().getRegistration(Permission.class);
-        if (rsp == null) {
-            return false;
+    private void submitCleanup() {
+        if (cleanupRunning) {
+            return;
         }
-        permission = rsp.getProvider();
+        cleanupRunning = true;
+        
+        int batchSize = Math.max(1, getConfig().getInt("settings.cleanup-batch-size", 500));
+        int[] removed = {0};
+        workScheduler.submit(() -> {
+            int count = schedulerHandler.expireDueRanks(batchSize);
+            removed[0] += count;
+            if (count < batchSize) {
+                if (removed[0] > 0) {
+                    getLogger().info("Removed " + removed[0] + " expired rank(s) during periodic cleanup.");
+                }
+                cleanupRunning = false;
+                return true;
+            }
+            return false;
+        });
+    }
+
+    private boolean setupPermissions() {
+        permission = PermissionBackend.create(this);
         return permission != null;
     }
 
@@ -124,7 +319,7 @@ public final class TempRankManager extends JavaPlugin implements Listener {
         String command = event.getCommand().toLowerCase();
         if (command.equals("whitelist on") || command.equals("whitelist off")) {
             // Schedule check for next tick to ensure command has been processed
-            Bukkit.getScheduler().runTask(this, () -> {
+            taskScheduler.runGlobal(() -> {
                 boolean newWhitelistState = Bukkit.hasWhitelist();
                 if (newWhitelistState != isWhitelistMode) {
                     isWhitelistMode = newWhitelistState;
@@ -140,6 +335,10 @@ public final class TempRankManager extends JavaPlugin implements Listener {
         }
     }
 
+    public boolean isWhitelistMode() {
+        return isWhitelistMode;
+    }
+
     public DataManager getDataManager() {
         return dataManager;
     }
@@ -148,7 +347,43 @@ public final class TempRankManager extends JavaPlugin implements Listener {
         return schedulerHandler;
     }
 
-    public Permission getPermission() {
+    public TaskScheduler getTaskScheduler() {
+        return taskScheduler;
+    }
+
+    public WorkScheduler getWorkScheduler() {
+        return workScheduler;
+    }
+
+    public BackupManager getBackupManager() {
+        return backupManager;
+    }
+
+    public GiveQueue getGiveQueue() {
+        return giveQueue;
+    }
+
+    public PendingGrants getPendingGrants() {
+        return pendingGrants;
+    }
+
+    public NameIndex getNameIndex() {
+        return nameIndex;
+    }
+
+    public Reconciler getReconciler() {
+        return reconciler;
+    }
+
+    public AuditLog getAuditLog() {
+        return auditLog;
+    }
+
+    public TempRankService getService() {
+        return service;
+    }
+
+    public PermissionBackend getPermission() {
         return permission;
     }
 
@@ -1,12 +1,20 @@
 package me.itzrenzo.temprankmanager;
 
 import me.clip.placeholderapi.expansion.PlaceholderExpansion;
+import me.itzrenzo.temprankmanager.jfr.PlaceholderRequestEvent;
 import org.bukkit.OfflinePlayer;
 import org.jetbrains.annotations.NotNull;
 
+import java.util.ArrayList;
+import java.util.List;
+
 public class TempRankPlaceholders extends PlaceholderExpansion {
     
+    private static final int MAX_NEXT_ENTRIES = 10;
+    private static final long NEXT_CACHE_MILLIS = 1000;
+    
     private final TempRankManager plugin;
+    private volatile NextExpiringCache nextExpiringCache = new NextExpiringCache(-1, 0, List.of(), List.of());
     
     public TempRankPlaceholders(TempRankManager plugin) {
         this.plugin = plugin;
@@ -34,11 +42,36 @@ public class TempRankPlaceholders extends PlaceholderExpansion {
     
     @Override
     public String onRequest(OfflinePlayer player, @NotNull String params) {
+        PlaceholderRequestEvent event = new PlaceholderRequestEvent();
+        event.begin();
+        try {
+            return resolve(player, params);
+        } finally {
+            event.end();
+            if (event.shouldCommit()) {
+                event.placeholder = params;
+                event.playerUUID = player != null ? player.getUniqueId().toString() : null;
+                event.commit();
+            }
+        }
+    }
+    
+    private String resolve(OfflinePlayer player, String params) {
+        // Server-wide placeholders, usable without a player
+        if (params.regionMatches(true, 0, "next_", 0, 5)) {
+            return onNextRequest(params.toLowerCase());
+        }
+        String counter = onCountRequest(params.toLowerCase());
+        if (counter != null) {
+            return counter;
+        }
+        
         if (player == null) {
             return "";
         }
         
-        TempRankData tempRankData = plugin.getDataManager().getTempRank(player.getUniqueId());
+        // The soonest-expiring running rank, or a paused one if none is running
+        TempRankData tempRankData = plugin.getDataManager().getPrimaryTempRank(player.getUniqueId());
         
         switch (params.toLowerCase()) {
             case "time_raw":
@@ -80,12 +113,126 @@ public class TempRankPlaceholders extends PlaceholderExpansion {
                 }
                 return String.valueOf(tempRankData.isPaused());
                 
+            case "is_playtime":
+                // Returns "true" if the rank only counts down while online
+                if (tempRankData == null) {
+                    return "false";
+                }
+                return String.valueOf(tempRankData.isPlaytime());
+                
             case "has_temprank":
                 // Returns "true" if player has a temp rank, "false" otherwise
                 return String.valueOf(tempRankData != null);
                 
+            case "ranks":
+                // Returns every temp rank the player holds, soonest-expiring first, or "none"
+                return onRanksRequest(player);
+                
+            case "rank_count":
+                // Returns how many temp ranks the player holds
+                return String.valueOf(plugin.getDataManager().getRankIndex().getAll(player.getUniqueId()).size());
+                
             default:
                 return null; // Placeholder is unknown by the Expansion
         }
     }
+    
+    /**
+     * Handles next_&lt;n&gt;_name, next_&lt;n&gt;_rank and next_&lt;n&gt;_time from a cached top-N list
+     */
+    private String onNextRequest(String params) {
+        String[] parts = params.split("_", 3);
+        if (parts.length != 3) {
+            return null;
+        }
+        
+        int position;
+        try {
+            position = Integer.parseInt(parts[1]);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+        if (position < 1 || position > MAX_NEXT_ENTRIES) {
+            return null;
+        }
+        
+        NextExpiringCache cache = getNextExpiringCache();
+        if (position > cache.entries().size()) {
+            return switch (parts[2]) {
+                case "name", "rank", "time" -> "";
+                default -> null;
+            };
+        }
+        
+        RankIndex.Entry entry = cache.entries().get(position - 1);
+        return switch (parts[2]) {
+            case "name" -> cache.names().get(position - 1);
+            case "rank" -> entry.rankName();
+            case "time" -> TimeUtil.formatTime(entry.remainingMillis(TimeUtil.currentTimeMillis()));
+            default -> null;
+        };
+    }
+    
+    /**
+     * Handles ranks with the player's temporary ranks as a comma-separated list
+     */
+    private String onRanksRequest(OfflinePlayer player) {
+        List<RankIndex.Entry> entries = plugin.getDataManager().getRankIndex().getAll(player.getUniqueId());
+        if (entries.isEmpty()) {
+            return "none";
+        }
+        StringBuilder ranks = new StringBuilder();
+        for (RankIndex.Entry entry : entries) {
+            if (ranks.length() > 0) {
+                ranks.append(", ");
+            }
+            ranks.append(entry.rankName());
+        }
+        return ranks.toString();
+    }
+    
+    /**
+     * Handles count_, active_, paused_ and remaining_&lt;rank&gt; from the incrementally maintained counters
+     */
+    private String onCountRequest(String params) {
+        int separator = params.indexOf('_');
+        if (separator <= 0 || separator == params.length() - 1) {
+            return null;
+        }
+        String kind = params.substring(0, separator);
+        if (!kind.equals("count") && !kind.equals("active") && !kind.equals("paused") && !kind.equals("remaining")) {
+            return null;
+        }
+        
+        RankIndex.Counts counts = plugin.getDataManager().getRankIndex().getCounts(params.substring(separator + 1));
+        return switch (kind) {
+            case "count" -> String.valueOf(counts.total());
+            case "active" -> String.valueOf(counts.active());
+            case "paused" -> String.valueOf(counts.paused());
+            default -> String.valueOf(counts.remainingSeconds(TimeUtil.currentTimeMillis()));
+        };
+    }
+    
+    private NextExpiringCache getNextExpiringCache() {
+        RankIndex index = plugin.getDataManager().getRankIndex();
+        NextExpiringCache cache = nextExpiringCache;
+        long now = TimeUtil.currentTimeMillis();
+        if (cache.indexVersion() == index.getVersion() && now - cache.builtAt() < NEXT_CACHE_MILLIS) {
+            return cache;
+        }
+        
+        List<RankIndex.Entry> entries = index.nextExpiring(MAX_NEXT_ENTRIES);
+        NameIndex nameIndex = plugin.getNameIndex();
+        List<String> names = new ArrayList<>(entries.size());
+        for (RankIndex.Entry entry : entries) {
+            String name = nameIndex.getName(entry.playerUUID());
+            names.add(name != null ? name : "Unknown");
+        }
+        cache = new NextExpiringCache(index.getVersion(), now, entries, names);
+        nextExpiringCache = cache;
+        return cache;
+    }
+    
+    private record NextExpiringCache(long indexVersion, long builtAt, List<RankIndex.Entry> entries, List<String> names) {
+    }
 }
\ No newline at end of file
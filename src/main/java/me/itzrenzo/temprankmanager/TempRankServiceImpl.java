@@ -0,0 +1,100 @@
+package me.itzrenzo.temprankmanager;
+
+import me.itzrenzo.temprankmanager.api.TempRankInfo;
+import me.itzrenzo.temprankmanager.api.TempRankService;
+import me.itzrenzo.temprankmanager.api.TempRankSnapshot;
+import me.itzrenzo.temprankmanager.storage.RankFilter;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class TempRankServiceImpl implements TempRankService {
+    private final DataManager dataManager;
+    private final AtomicReference<TempRankSnapshot> snapshot = new AtomicReference<>(TempRankSnapshot.empty());
+    private final AtomicReference<CompletableFuture<TempRankSnapshot>> pendingRefresh = new AtomicReference<>();
+
+    public TempRankServiceImpl(DataManager dataManager) {
+        this.dataManager = dataManager;
+    }
+
+    @Override
+    public CompletableFuture<Optional<TempRankInfo>> getTempRank(UUID playerUUID) {
+        return dataManager.supplyAsync(() -> Optional.ofNullable(dataManager.getPrimaryTempRank(playerUUID)).map(TempRankInfo::of));
+    }
+
+    @Override
+    public CompletableFuture<List<TempRankInfo>> getAllTempRanks(UUID playerUUID) {
+        return dataManager.supplyAsync(() -> {
+            List<TempRankInfo> result = new ArrayList<>();
+            for (TempRankData data : dataManager.getTempRanks(playerUUID)) {
+                result.add(TempRankInfo.of(data));
+            }
+            return List.copyOf(result);
+        });
+    }
+
+    @Override
+    public CompletableFuture<Map<UUID, TempRankInfo>> getTempRanks(Collection<UUID> playerUUIDs) {
+        List<UUID> ids = List.copyOf(playerUUIDs);
+        return dataManager.supplyAsync(() -> {
+            Map<UUID, TempRankInfo> result = new HashMap<>();
+            dataManager.getPrimaryTempRanks(ids).forEach((uuid, data) -> result.put(uuid, TempRankInfo.of(data)));
+            return Map.copyOf(result);
+        });
+    }
+
+    @Override
+    public CompletableFuture<List<TempRankInfo>> getTempRanksByRank(String rankName) {
+        return dataManager.supplyAsync(() -> {
+            List<TempRankInfo> result = new ArrayList<>();
+            dataManager.forEachTempRank(RankFilter.rank(rankName), data -> result.add(TempRankInfo.of(data)));
+            return List.copyOf(result);
+        });
+    }
+
+    @Override
+    public TempRankSnapshot getSnapshot() {
+        TempRankSnapshot current = snapshot.get();
+        if (current.getVersion() != dataManager.getVersion()) {
+            refreshSnapshot();
+        }
+        return current;
+    }
+
+    @Override
+    public CompletableFuture<TempRankSnapshot> refreshSnapshot() {
+        // Coalesce concurrent refresh requests into one full read
+        CompletableFuture<TempRankSnapshot> pending = pendingRefresh.get();
+        if (pending != null) {
+            return pending;
+        }
+
+        CompletableFuture<TempRankSnapshot> refresh = new CompletableFuture<>();
+        if (!pendingRefresh.compareAndSet(null, refresh)) {
+            return pendingRefresh.get();
+        }
+
+        dataManager.supplyAsync(() -> {
+            long version = dataManager.getVersion();
+            List<TempRankInfo> ranks = new ArrayList<>(dataManager.getRankIndex().size());
+            dataManager.forEachTempRank(RankFilter.all(), data -> ranks.add(TempRankInfo.of(data)));
+            return new TempRankSnapshot(ranks, TimeUtil.currentTimeMillis(), version);
+        }).whenComplete((built, error) -> {
+            pendingRefresh.set(null);
+            if (error != null) {
+                refresh.completeExceptionally(error);
+            } else {
+                snapshot.set(built);
+                refresh.complete(built);
+            }
+        });
+        return refresh;
+    }
+}
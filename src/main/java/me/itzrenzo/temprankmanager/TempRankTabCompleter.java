@@ -1,8 +1,7 @@
 package me.itzrenzo.temprankmanager;
 
-import net.milkbowl.vault.permission.Permission;
+import me.itzrenzo.temprankmanager.permission.PermissionBackend;
 import org.bukkit.Bukkit;
-import org.bukkit.OfflinePlayer;
 import org.bukkit.command.Command;
 import org.bukkit.command.CommandSender;
 import org.bukkit.command.TabCompleter;
@@ -11,16 +10,19 @@ import org.bukkit.entity.Player;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.UUID;
 import java.util.stream.Collectors;
 
 public class TempRankTabCompleter implements TabCompleter {
     
     private final DataManager dataManager;
-    private final Permission permission;
+    private final PermissionBackend permission;
+    private final NameIndex nameIndex;
     
-    public TempRankTabCompleter(DataManager dataManager, Permission permission) {
+    public TempRankTabCompleter(DataManager dataManager, PermissionBackend permission, NameIndex nameIndex) {
         this.dataManager = dataManager;
         this.permission = permission;
+        this.nameIndex = nameIndex;
     }
     
     @Override
@@ -29,7 +31,7 @@ public class TempRankTabCompleter implements TabCompleter {
         
         if (args.length == 1) {
             // First argument - subcommands
-            List<String> subcommands = Arrays.asList("give", "remove", "list");
+            List<String> subcommands = Arrays.asList("give", "remove", "list", "next", "pending", "stats", "history", "backup", "extend-all", "reconcile");
             return subcommands.stream()
                     .filter(cmd -> cmd.toLowerCase().startsWith(args[0].toLowerCase()))
                     .collect(Collectors.toList());
@@ -37,16 +39,32 @@ public class TempRankTabCompleter implements TabCompleter {
         
         if (args.length == 2) {
             // Second argument - player names for give/remove commands
-            if (args[0].equalsIgnoreCase("give") || args[0].equalsIgnoreCase("remove")) {
+            if (args[0].equalsIgnoreCase("give") || args[0].equalsIgnoreCase("remove") || args[0].equalsIgnoreCase("history")) {
                 return getPlayerNames(args[1]);
             }
+            // Rank filter for list
+            if (args[0].equalsIgnoreCase("list")) {
+                return getRankNames(args[1]);
+            }
+            if (args[0].equalsIgnoreCase("reconcile") && "fix".startsWith(args[1].toLowerCase())) {
+                return Arrays.asList("fix");
+            }
+            if (args[0].equalsIgnoreCase("extend-all")) {
+                return Arrays.stream(TimeUtil.getExampleTimes())
+                        .filter(time -> time.startsWith(args[1].toLowerCase()))
+                        .collect(Collectors.toList());
+            }
         }
         
         if (args.length == 3) {
             // Third argument - rank names for give command
-            if (args[0].equalsIgnoreCase("give")) {
+            if (args[0].equalsIgnoreCase("give") || args[0].equalsIgnoreCase("extend-all")) {
                 return getRankNames(args[2]);
             }
+            // Ranks the player holds for remove
+            if (args[0].equalsIgnoreCase("remove")) {
+                return getHeldRankNames(args[1], args[2]);
+            }
         }
         
         if (args.length == 4) {
@@ -59,6 +77,27 @@ public class TempRankTabCompleter implements TabCompleter {
             }
         }
         
+        if (args.length == 5) {
+            // Optional countdown mode for give
+            if (args[0].equalsIgnoreCase("give")) {
+                return Arrays.stream(new String[] {"playtime", "--start"})
+                        .filter(option -> option.startsWith(args[4].toLowerCase()))
+                        .collect(Collectors.toList());
+            }
+        }
+        
+        if (args.length >= 6 && args[0].equalsIgnoreCase("give")) {
+            // Delay suggestions after --start, or the flag after 'playtime'
+            if (args[args.length - 2].equalsIgnoreCase("--start")) {
+                return Arrays.stream(TimeUtil.getExampleTimes())
+                        .filter(time -> time.startsWith(args[args.length - 1].toLowerCase()))
+                        .collect(Collectors.toList());
+            }
+            if (args.length == 6 && args[4].equalsIgnoreCase("playtime") && "--start".startsWith(args[5].toLowerCase())) {
+                return Arrays.asList("--start");
+            }
+        }
+        
         return completions;
     }
     
@@ -73,18 +112,33 @@ public class TempRankTabCompleter implements TabCompleter {
         }
         
         // Add players with active temp ranks
-        for (TempRankData data : dataManager.getAllTempRanks()) {
-            OfflinePlayer player = Bukkit.getOfflinePlayer(data.getPlayerUUID());
-            if (player.getName() != null && 
-                player.getName().toLowerCase().startsWith(partial.toLowerCase()) &&
-                !playerNames.contains(player.getName())) {
-                playerNames.add(player.getName());
+        for (RankIndex.Entry entry : dataManager.getRankIndex().all()) {
+            String name = nameIndex.getName(entry.playerUUID());
+            if (name != null && 
+                name.toLowerCase().startsWith(partial.toLowerCase()) &&
+                !playerNames.contains(name)) {
+                playerNames.add(name);
             }
         }
         
         return playerNames;
     }
     
+    private List<String> getHeldRankNames(String playerName, String partial) {
+        List<String> rankNames = new ArrayList<>();
+        UUID playerUUID = nameIndex.getUuid(playerName);
+        if (playerUUID == null) {
+            return rankNames;
+        }
+        
+        for (RankIndex.Entry entry : dataManager.getRankIndex().getAll(playerUUID)) {
+            if (entry.rankName().toLowerCase().startsWith(partial.toLowerCase())) {
+                rankNames.add(entry.rankName());
+            }
+        }
+        return rankNames;
+    }
+    
     private List<String> getRankNames(String partial) {
         List<String> rankNames = new ArrayList<>();
         
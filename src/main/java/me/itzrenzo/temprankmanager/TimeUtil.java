@@ -1,5 +1,11 @@
 package me.itzrenzo.temprankmanager;
 
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -7,6 +13,26 @@ public class TimeUtil {
     
     private static final Pattern TIME_PATTERN = Pattern.compile("^(\\d+)([smhd]|mo)$", Pattern.CASE_INSENSITIVE);
     
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm").withZone(ZoneId.systemDefault());
+    
+    private static volatile Clock clock = Clock.systemUTC();
+    
+    /**
+     * Get the current time in milliseconds from the plugin clock
+     * @return Current epoch milliseconds
+     */
+    public static long currentTimeMillis() {
+        return clock.millis();
+    }
+    
+    /**
+     * Replace the clock used for all expiration math, e.g. with a fast-forward clock in the load simulator
+     * @param newClock The clock to use
+     */
+    public static void setClock(Clock newClock) {
+        clock = newClock != null ? newClock : Clock.systemUTC();
+    }
+    
     /**
      * Parse a time string like "10s", "5m", "2h", "7d", "3mo" into milliseconds
      * @param timeString The time string to parse
@@ -35,6 +61,27 @@ public class TimeUtil {
         };
     }
     
+    /**
+     * Parse a start time: either a delay from now like "2h", or a local date and time like "2025-12-24T18:00"
+     * @param startString The start time to parse
+     * @return Epoch milliseconds, or -1 if invalid format
+     */
+    public static long parseStart(String startString) {
+        long delay = parseTime(startString);
+        if (delay > 0) {
+            return currentTimeMillis() + delay;
+        }
+        if (startString == null) {
+            return -1;
+        }
+        
+        try {
+            return LocalDateTime.parse(startString).atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        } catch (DateTimeParseException e) {
+            return -1;
+        }
+    }
+    
     /**
      * Check if a time string is valid
      * @param timeString The time string to validate
@@ -89,6 +136,15 @@ public class TimeUtil {
         }
     }
     
+    /**
+     * Format epoch milliseconds as a local date and time, in the same form parseStart accepts
+     * @param epochMillis The time to format
+     * @return Formatted date, e.g. "2025-12-24 18:00"
+     */
+    public static String formatDate(long epochMillis) {
+        return DATE_FORMAT.format(Instant.ofEpochMilli(epochMillis));
+    }
+    
     /**
      * Get example time formats for help/tab completion
      * @return Array of example time formats
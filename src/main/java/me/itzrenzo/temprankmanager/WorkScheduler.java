@@ -0,0 +1,154 @@
+package me.itzrenzo.temprankmanager;
+
+import me.itzrenzo.temprankmanager.scheduler.TaskHandle;
+
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Runs resumable units of main-thread (global region) work within a fixed time budget per tick.
+ * Active units take turns one step at a time, so a long listing or reconcile job cannot hold
+ * back a pause-all or cleanup submitted after it. Whatever does not fit in a tick carries over
+ * to the next one, so the cost per tick stays flat no matter how many records a job touches.
+ */
+public class WorkScheduler {
+
+    /**
+     * A resumable piece of work. Each call to step should do a small, bounded amount of work.
+     */
+    public interface WorkUnit {
+        /**
+         * @return true when the unit has finished and can be dropped
+         */
+        boolean step();
+    }
+
+    private final TempRankManager plugin;
+    private final Queue<WorkUnit> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger queuedUnits = new AtomicInteger();
+    private final long budgetNanos;
+    private TaskHandle task;
+    private volatile long lastTickUsedNanos;
+    private volatile long lastTickSteps;
+
+    public WorkScheduler(TempRankManager plugin) {
+        this.plugin = plugin;
+        double budgetMillis = plugin.getConfig().getDouble("settings.tick-budget-ms", 5.0);
+        this.budgetNanos = (long) (Math.max(0.1, budgetMillis) * 1_000_000L);
+    }
+
+    /**
+     * Queue a unit of work. The per-tick task is only scheduled while there is work to do.
+     */
+    public void submit(WorkUnit unit) {
+        queue.add(unit);
+        queuedUnits.incrementAndGet();
+        ensureRunning();
+    }
+
+    /**
+     * Queue a job that calls the action for each element, followed by an optional completion callback
+     */
+    public <T> void forEach(Iterable<T> elements, Consumer<T> action, Runnable onComplete) {
+        Iterator<T> iterator = elements.iterator();
+        submit(() -> {
+            if (iterator.hasNext()) {
+                action.accept(iterator.next());
+                return false;
+            }
+            if (onComplete != null) {
+                onComplete.run();
+            }
+            return true;
+        });
+    }
+
+    private synchronized void ensureRunning() {
+        if (task == null && plugin.isEnabled()) {
+            task = plugin.getTaskScheduler().runGlobalTimer(this::runTick, 1L, 1L);
+        }
+    }
+
+    private void runTick() {
+        long start = System.nanoTime();
+        long deadline = start + budgetNanos;
+        long steps = 0;
+
+        WorkUnit unit;
+        while ((unit = queue.poll()) != null) {
+            if (runStep(unit)) {
+                queuedUnits.decrementAndGet();
+            } else {
+                // Back of the line, behind every other active unit
+                queue.add(unit);
+            }
+            steps++;
+            if (System.nanoTime() >= deadline) {
+                break;
+            }
+        }
+
+        lastTickUsedNanos = System.nanoTime() - start;
+        lastTickSteps = steps;
+
+        synchronized (this) {
+            if (queue.isEmpty() && task != null) {
+                task.cancel();
+                task = null;
+            }
+        }
+    }
+
+    private boolean runStep(WorkUnit unit) {
+        try {
+            return unit.step();
+        } catch (Exception e) {
+            plugin.getLogger().severe("Error in queued work unit: " + e.getMessage());
+            e.printStackTrace();
+            return true;
+        }
+    }
+
+    /**
+     * Run all remaining work to completion regardless of budget. Used on shutdown so
+     * pause state and other bulk updates are never left half-applied.
+     */
+    public void drain() {
+        synchronized (this) {
+            if (task != null) {
+                task.cancel();
+                task = null;
+            }
+        }
+
+        WorkUnit unit;
+        while ((unit = queue.peek()) != null) {
+            if (runStep(unit)) {
+                queue.poll();
+                queuedUnits.decrementAndGet();
+            }
+        }
+    }
+
+    public long getBudgetNanos() {
+        return budgetNanos;
+    }
+
+    /**
+     * Time spent running work in the most recent tick that had any
+     */
+    public long getLastTickUsedNanos() {
+        return lastTickUsedNanos;
+    }
+
+    public long getLastTickSteps() {
+        return lastTickSteps;
+    }
+
+    public int getQueuedUnits() {
+        return queuedUnits.get();
+    }
+}
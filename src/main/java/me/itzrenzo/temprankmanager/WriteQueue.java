@@ -0,0 +1,78 @@
+package me.itzrenzo.temprankmanager;
+
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.logging.Logger;
+
+/**
+ * Orders storage writes in lanes. Writes in one lane run one after another in submission order, while
+ * writes in different lanes may be in flight at the same time. A barrier waits for every lane and holds
+ * all of them back until it has finished, for backups and writes that span many players.
+ * A failed write is logged and does not hold up the ones after it.
+ */
+class WriteQueue {
+    private final Logger logger;
+    private final CompletableFuture<?>[] tails;
+    private final AtomicInteger pending = new AtomicInteger();
+
+    WriteQueue(int lanes, Logger logger) {
+        this.logger = logger;
+        this.tails = new CompletableFuture<?>[Math.max(1, lanes)];
+        Arrays.fill(tails, CompletableFuture.completedFuture(null));
+    }
+
+    /**
+     * Queue a write behind every write submitted to the same lane before it
+     */
+    <T> CompletableFuture<T> submit(int lane, Supplier<CompletableFuture<T>> write) {
+        pending.incrementAndGet();
+        synchronized (this) {
+            int index = Math.floorMod(lane, tails.length);
+            CompletableFuture<T> result = tails[index].thenCompose(ignored -> write.get());
+            tails[index] = settle(result);
+            return result;
+        }
+    }
+
+    /**
+     * Queue a write behind every write submitted so far, in any lane, and ahead of every later one
+     */
+    <T> CompletableFuture<T> submitBarrier(Supplier<CompletableFuture<T>> write) {
+        pending.incrementAndGet();
+        synchronized (this) {
+            CompletableFuture<T> result = CompletableFuture.allOf(tails).thenCompose(ignored -> write.get());
+            Arrays.fill(tails, settle(result));
+            return result;
+        }
+    }
+
+    /**
+     * Completes once every write submitted so far has finished
+     */
+    synchronized CompletableFuture<Void> flush() {
+        return CompletableFuture.allOf(tails.clone());
+    }
+
+    int getPending() {
+        return pending.get();
+    }
+
+    int getLanes() {
+        return tails.length;
+    }
+
+    private CompletableFuture<Void> settle(CompletableFuture<?> result) {
+        return result.handle((value, error) -> {
+            pending.decrementAndGet();
+            if (error != null) {
+                Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+                logger.severe("Failed to write to storage: " + cause.getMessage());
+                cause.printStackTrace();
+            }
+            return null;
+        });
+    }
+}
@@ -0,0 +1,31 @@
+package me.itzrenzo.temprankmanager.api;
+
+import me.itzrenzo.temprankmanager.TempRankData;
+import me.itzrenzo.temprankmanager.TimeUtil;
+
+import java.util.UUID;
+
+/**
+ * Immutable view of a player's temporary rank, safe to share between threads
+ * @param playtime true if the rank only counts down while the player is online (paused while offline)
+ */
+public record TempRankInfo(UUID playerUUID, String rankName, long expirationTimestamp, boolean paused, long timeLeftMillis, boolean playtime) {
+
+    public static TempRankInfo of(TempRankData data) {
+        return new TempRankInfo(data.getPlayerUUID(), data.getRankName(), data.getExpirationTimestamp(), data.isPaused(), data.getTimeLeftMillis(), data.isPlaytime());
+    }
+
+    /**
+     * Remaining time in milliseconds at the moment of the call
+     */
+    public long remainingMillis() {
+        if (paused) {
+            return timeLeftMillis;
+        }
+        return Math.max(0, expirationTimestamp - TimeUtil.currentTimeMillis());
+    }
+
+    public boolean isExpired() {
+        return !paused && TimeUtil.currentTimeMillis() >= expirationTimestamp;
+    }
+}
@@ -0,0 +1,50 @@
+package me.itzrenzo.temprankmanager.api;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Public API for other plugins, registered with the Bukkit ServicesManager:
+ * <pre>
+ * TempRankService service = Bukkit.getServicesManager().load(TempRankService.class);
+ * </pre>
+ * Lookups run off the calling thread. Futures complete on a storage thread, so hop back to the
+ * main thread before touching the Bukkit API in a callback.
+ */
+public interface TempRankService {
+    
+    /**
+     * Look up a single player's primary temporary rank: the soonest-expiring running one, or a paused one if none is running
+     */
+    CompletableFuture<Optional<TempRankInfo>> getTempRank(UUID playerUUID);
+    
+    /**
+     * Look up every temporary rank a player holds, primary first
+     */
+    CompletableFuture<List<TempRankInfo>> getAllTempRanks(UUID playerUUID);
+    
+    /**
+     * Look up the primary rank of many players at once with a single storage query. Players without a temporary rank are absent from the map.
+     */
+    CompletableFuture<Map<UUID, TempRankInfo>> getTempRanks(Collection<UUID> playerUUIDs);
+    
+    /**
+     * Get every active temporary rank with the given name (case-insensitive)
+     */
+    CompletableFuture<List<TempRankInfo>> getTempRanksByRank(String rankName);
+    
+    /**
+     * Get the latest published snapshot of all temporary ranks. Never blocks; if data changed since
+     * the snapshot was taken, a refresh is started in the background and a later call returns it.
+     */
+    TempRankSnapshot getSnapshot();
+    
+    /**
+     * Build a fresh snapshot reflecting all changes made so far
+     */
+    CompletableFuture<TempRankSnapshot> refreshSnapshot();
+}
@@ -0,0 +1,117 @@
+package me.itzrenzo.temprankmanager.api;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Immutable point-in-time copy of all temporary ranks. Can be read from any thread without locking.
+ * A player may hold several ranks; each player's ranks are kept soonest-expiring first, paused ones last.
+ */
+public final class TempRankSnapshot {
+    private static final TempRankSnapshot EMPTY = new TempRankSnapshot(List.of(), 0L, -1L);
+
+    private static final Comparator<TempRankInfo> PRIMARY_FIRST = Comparator
+            .comparingLong((TempRankInfo info) -> info.paused() ? Long.MAX_VALUE : info.expirationTimestamp())
+            .thenComparing(TempRankInfo::rankName, String.CASE_INSENSITIVE_ORDER);
+
+    private final Map<UUID, List<TempRankInfo>> ranks;
+    private final Map<UUID, TempRankInfo> primaries;
+    private final List<TempRankInfo> all;
+    private final long createdAt;
+    private final long version;
+
+    public TempRankSnapshot(Collection<TempRankInfo> records, long createdAt, long version) {
+        Map<UUID, List<TempRankInfo>> grouped = new HashMap<>();
+        for (TempRankInfo info : records) {
+            grouped.computeIfAbsent(info.playerUUID(), uuid -> new ArrayList<>(1)).add(info);
+        }
+        Map<UUID, TempRankInfo> primary = new HashMap<>(grouped.size() * 4 / 3 + 1);
+        grouped.replaceAll((uuid, list) -> {
+            list.sort(PRIMARY_FIRST);
+            primary.put(uuid, list.get(0));
+            return List.copyOf(list);
+        });
+        this.ranks = Map.copyOf(grouped);
+        this.primaries = Map.copyOf(primary);
+        this.all = List.copyOf(records);
+        this.createdAt = createdAt;
+        this.version = version;
+    }
+
+    public static TempRankSnapshot empty() {
+        return EMPTY;
+    }
+
+    /**
+     * The player's primary rank: the soonest-expiring running one, or a paused one if none is running
+     */
+    public TempRankInfo get(UUID playerUUID) {
+        return primaries.get(playerUUID);
+    }
+
+    /**
+     * Every rank the player holds, primary first
+     */
+    public List<TempRankInfo> getAll(UUID playerUUID) {
+        return ranks.getOrDefault(playerUUID, List.of());
+    }
+
+    /**
+     * The primary rank of every player
+     */
+    public Map<UUID, TempRankInfo> asMap() {
+        return primaries;
+    }
+
+    /**
+     * Every rank of every player, primary first
+     */
+    public Map<UUID, List<TempRankInfo>> byPlayer() {
+        return ranks;
+    }
+
+    public Collection<TempRankInfo> all() {
+        return all;
+    }
+
+    public List<TempRankInfo> byRank(String rankName) {
+        List<TempRankInfo> matches = new ArrayList<>();
+        for (TempRankInfo info : all) {
+            if (info.rankName().equalsIgnoreCase(rankName)) {
+                matches.add(info);
+            }
+        }
+        return Collections.unmodifiableList(matches);
+    }
+
+    /**
+     * Number of rank records; a player holding two ranks counts twice
+     */
+    public int size() {
+        return all.size();
+    }
+
+    public int playerCount() {
+        return ranks.size();
+    }
+
+    /**
+     * Epoch milliseconds at which this snapshot was taken
+     */
+    public long getCreatedAt() {
+        return createdAt;
+    }
+
+    /**
+     * Data version the snapshot was built from; increases with every change
+     */
+    public long getVersion() {
+        return version;
+    }
+}
@@ -0,0 +1,15 @@
+package me.itzrenzo.temprankmanager.audit;
+
+/**
+ * Kinds of changes recorded in the rank history
+ */
+public enum AuditAction {
+    GRANT,
+    ACCUMULATE,
+    REPLACE,
+    REMOVE,
+    EXPIRE,
+    PAUSE,
+    RESUME,
+    SCHEDULE
+}
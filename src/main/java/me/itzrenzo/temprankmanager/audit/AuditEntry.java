@@ -0,0 +1,46 @@
+package me.itzrenzo.temprankmanager.audit;
+
+import me.itzrenzo.temprankmanager.TimeUtil;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.UUID;
+
+/**
+ * One immutable history record
+ * @param durationMillis time granted or added, 0 when not applicable
+ * @param expirationTimestamp expiration after the change, 0 when not applicable
+ * @param note extra context such as the group reverted to, may be null
+ */
+public record AuditEntry(long timestamp, AuditAction action, UUID playerUUID, String playerName, String rankName,
+                         long durationMillis, long expirationTimestamp, String note) {
+
+    // DateTimeFormatter is immutable and thread-safe, unlike SimpleDateFormat
+    static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss").withZone(ZoneId.systemDefault());
+
+    public String formattedTimestamp() {
+        return DATE_FORMAT.format(Instant.ofEpochMilli(timestamp));
+    }
+
+    /**
+     * Console line for this entry, or null for actions that are only kept in history
+     */
+    String describe() {
+        return switch (action) {
+            case GRANT -> "Gave player " + playerName + " rank " + rankName + " for " + TimeUtil.formatTime(durationMillis)
+                    + " (expires " + DATE_FORMAT.format(Instant.ofEpochMilli(expirationTimestamp)) + ").";
+            case ACCUMULATE -> "Added " + TimeUtil.formatTime(durationMillis) + " to player " + playerName + "'s " + rankName
+                    + " rank. Total time remaining: " + TimeUtil.formatTime(Math.max(0, expirationTimestamp - timestamp))
+                    + " (expires " + DATE_FORMAT.format(Instant.ofEpochMilli(expirationTimestamp)) + ").";
+            case REPLACE -> "Replacing " + playerName + "'s " + rankName + " rank with " + note + ".";
+            case REMOVE -> "Manually removed temporary rank " + rankName + " from " + playerName + ". Reverted to " + note + ".";
+            case EXPIRE -> note != null && !note.equals(AuditLog.CLEANUP_NOTE)
+                    ? "Rank " + rankName + " expired for " + playerName + ". Reverted to " + note + "."
+                    : null;
+            case SCHEDULE -> "Scheduled rank " + rankName + " for player " + playerName + " for " + TimeUtil.formatTime(durationMillis)
+                    + " (starts " + DATE_FORMAT.format(Instant.ofEpochMilli(expirationTimestamp)) + ").";
+            case PAUSE, RESUME -> null;
+        };
+    }
+}
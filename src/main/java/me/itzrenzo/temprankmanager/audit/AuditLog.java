@@ -0,0 +1,186 @@
+package me.itzrenzo.temprankmanager.audit;
+
+import me.itzrenzo.temprankmanager.TempRankManager;
+import me.itzrenzo.temprankmanager.TimeUtil;
+import org.bukkit.configuration.file.FileConfiguration;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Rank history. Callers only build an entry and push it into a lock-free ring buffer;
+ * a background writer thread persists entries in batches, writes the console lines
+ * and prunes history older than the retention period.
+ */
+public class AuditLog {
+
+    /** Note on EXPIRE entries removed by the periodic cleanup rather than a scheduled expiry */
+    public static final String CLEANUP_NOTE = "cleanup";
+
+    private static final long PRUNE_INTERVAL_MILLIS = TimeUnit.HOURS.toMillis(1);
+
+    private final TempRankManager plugin;
+    private final AuditStore store;
+    private final AuditRingBuffer buffer;
+    private final int batchSize;
+    private final long flushIntervalNanos;
+    private final long retentionMillis;
+    private final boolean logToConsole;
+    private final AtomicLong dropped = new AtomicLong();
+    private final Thread writer;
+    private volatile boolean running = true;
+    private long lastPrune;
+
+    public AuditLog(TempRankManager plugin) {
+        this.plugin = plugin;
+        FileConfiguration config = plugin.getConfig();
+        this.buffer = new AuditRingBuffer(Math.max(16, config.getInt("audit.buffer-size", 8192)));
+        this.batchSize = Math.max(1, config.getInt("audit.batch-size", 256));
+        this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(50, config.getLong("audit.flush-interval-ms", 1000)));
+        this.retentionMillis = TimeUnit.DAYS.toMillis(config.getLong("audit.retention-days", 90));
+        this.logToConsole = config.getBoolean("audit.log-to-console", true);
+        this.store = config.getBoolean("audit.enabled", true) ? createStore(config) : null;
+
+        if (store != null) {
+            store.initialize();
+            plugin.getLogger().info("Recording rank history to " + store.getName() + " storage");
+        }
+
+        this.writer = new Thread(this::runWriter, "TempRankManager-Audit");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    private AuditStore createStore(FileConfiguration config) {
+        if (config.getString("storage.type", "sqlite").equalsIgnoreCase("yaml")) {
+            return new LogFileAuditStore(plugin);
+        }
+        return new SQLiteAuditStore(plugin, config.getString("sqlite.database-file", "tempranks.db"));
+    }
+
+    /**
+     * Queue an entry without blocking. Safe from any thread.
+     */
+    public void record(AuditAction action, UUID playerUUID, String playerName, String rankName, long durationMillis, long expirationTimestamp, String note) {
+        AuditEntry entry = new AuditEntry(TimeUtil.currentTimeMillis(), action, playerUUID, playerName, rankName, durationMillis, expirationTimestamp, note);
+        if (!buffer.offer(entry)) {
+            dropped.incrementAndGet();
+            return;
+        }
+        if (buffer.size() >= batchSize) {
+            LockSupport.unpark(writer);
+        }
+    }
+
+    public void record(AuditAction action, UUID playerUUID, String playerName, String rankName) {
+        record(action, playerUUID, playerName, rankName, 0, 0, null);
+    }
+
+    /**
+     * Most recent history for a player, newest first, read on the I/O executor.
+     * Entries still waiting in the buffer are not included.
+     */
+    public CompletableFuture<List<AuditEntry>> queryAsync(UUID playerUUID, int limit) {
+        if (store == null) {
+            return CompletableFuture.completedFuture(List.of());
+        }
+        return plugin.getDataManager().supplyAsync(() -> store.query(playerUUID, limit));
+    }
+
+    public boolean isEnabled() {
+        return store != null;
+    }
+
+    /**
+     * Stop the writer after it has flushed everything queued so far
+     */
+    public void close() {
+        running = false;
+        LockSupport.unpark(writer);
+        try {
+            writer.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (writer.isAlive()) {
+            plugin.getLogger().warning("Timed out flushing rank history; " + buffer.size() + " entries were not written.");
+        }
+        if (store != null) {
+            store.close();
+        }
+    }
+
+    private void runWriter() {
+        List<AuditEntry> batch = new ArrayList<>(batchSize);
+        pruneIfDue();
+
+        while (true) {
+            boolean stopping = !running;
+            batch.clear();
+            if (buffer.drainTo(batch, batchSize) > 0) {
+                write(batch);
+                // Keep draining while there is a backlog
+                continue;
+            }
+            if (stopping) {
+                break;
+            }
+
+            reportDropped();
+            pruneIfDue();
+            LockSupport.parkNanos(this, flushIntervalNanos);
+        }
+    }
+
+    private void write(List<AuditEntry> batch) {
+        try {
+            if (store != null) {
+                store.append(batch);
+            }
+            if (logToConsole) {
+                for (AuditEntry entry : batch) {
+                    String line = entry.describe();
+                    if (line != null) {
+                        plugin.getLogger().info(line);
+                    }
+                }
+            }
+        } catch (RuntimeException e) {
+            plugin.getLogger().severe("Failed to write rank history batch: " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+
+    private void reportDropped() {
+        long count = dropped.getAndSet(0);
+        if (count > 0) {
+            plugin.getLogger().warning("Rank history buffer was full; dropped " + count + " entries. Consider raising audit.buffer-size.");
+        }
+    }
+
+    private void pruneIfDue() {
+        if (store == null || retentionMillis <= 0) {
+            return;
+        }
+        long now = TimeUtil.currentTimeMillis();
+        if (now - lastPrune < PRUNE_INTERVAL_MILLIS) {
+            return;
+        }
+        lastPrune = now;
+
+        try {
+            int removed = store.prune(now - retentionMillis);
+            if (removed > 0) {
+                plugin.getLogger().info("Pruned " + removed + " rank history record(s) older than " + TimeUnit.MILLISECONDS.toDays(retentionMillis) + " days.");
+            }
+        } catch (RuntimeException e) {
+            plugin.getLogger().severe("Failed to prune rank history: " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package me.itzrenzo.temprankmanager.audit;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Bounded lock-free ring buffer with many producers and a single consumer.
+ * Producers claim a slot with one CAS and never block; when the buffer is full the entry is rejected.
+ */
+final class AuditRingBuffer {
+    private final AtomicReferenceArray<AuditEntry> slots;
+    private final int capacity;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong();
+    // Only written by the consumer, after the drained slots have been cleared
+    private volatile long head;
+
+    AuditRingBuffer(int requestedCapacity) {
+        int size = Integer.highestOneBit(Math.max(16, requestedCapacity - 1)) << 1;
+        this.slots = new AtomicReferenceArray<>(size);
+        this.capacity = size;
+        this.mask = size - 1;
+    }
+
+    boolean offer(AuditEntry entry) {
+        while (true) {
+            long claimed = tail.get();
+            if (claimed - head >= capacity) {
+                return false;
+            }
+            if (tail.compareAndSet(claimed, claimed + 1)) {
+                slots.set((int) (claimed & mask), entry);
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Move up to max published entries into the list, in claim order. Consumer thread only.
+     */
+    int drainTo(List<AuditEntry> target, int max) {
+        long position = head;
+        int drained = 0;
+        while (drained < max) {
+            int index = (int) (position & mask);
+            AuditEntry entry = slots.get(index);
+            if (entry == null) {
+                // Empty, or claimed but not yet published
+                break;
+            }
+            slots.set(index, null);
+            target.add(entry);
+            position++;
+            drained++;
+        }
+        head = position;
+        return drained;
+    }
+
+    int size() {
+        return (int) Math.max(0, tail.get() - head);
+    }
+
+    int capacity() {
+        return capacity;
+    }
+}
@@ -0,0 +1,29 @@
+package me.itzrenzo.temprankmanager.audit;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Persistent backend for rank history. Appends and pruning happen on the audit writer thread;
+ * queries may run concurrently on the I/O executor.
+ */
+public interface AuditStore {
+
+    /** Open files or connections and create the schema */
+    void initialize();
+
+    /** Release resources */
+    void close();
+
+    /** Persist a batch of entries, oldest first */
+    void append(List<AuditEntry> entries);
+
+    /** Most recent entries for a player, newest first */
+    List<AuditEntry> query(UUID playerUUID, int limit);
+
+    /** Delete history older than the given timestamp and return how many entries or files were removed */
+    int prune(long olderThan);
+
+    /** Name shown in logs */
+    String getName();
+}
@@ -0,0 +1,192 @@
+package me.itzrenzo.temprankmanager.audit;
+
+import me.itzrenzo.temprankmanager.TempRankManager;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Compact tab-separated history log for YAML storage, rotated daily into history/history-YYYY-MM-DD.log.
+ * There is no index, so per-player queries scan the newest files first and stop once enough entries are found.
+ */
+public class LogFileAuditStore implements AuditStore {
+
+    private static final String PREFIX = "history-";
+    private static final String SUFFIX = ".log";
+
+    private final TempRankManager plugin;
+    private final ZoneId zone = ZoneId.systemDefault();
+    private File directory;
+
+    public LogFileAuditStore(TempRankManager plugin) {
+        this.plugin = plugin;
+    }
+
+    @Override
+    public void initialize() {
+        directory = new File(plugin.getDataFolder(), "history");
+        if (!directory.exists() && !directory.mkdirs()) {
+            plugin.getLogger().severe("Could not create history directory: " + directory.getPath());
+        }
+    }
+
+    @Override
+    public void close() {
+        // Every batch is written and closed immediately
+    }
+
+    @Override
+    public void append(List<AuditEntry> entries) {
+        // A batch can straddle midnight, so group by day
+        int start = 0;
+        while (start < entries.size()) {
+            LocalDate day = dayOf(entries.get(start).timestamp());
+            int end = start + 1;
+            while (end < entries.size() && dayOf(entries.get(end).timestamp()).equals(day)) {
+                end++;
+            }
+            write(fileFor(day), entries.subList(start, end));
+            start = end;
+        }
+    }
+
+    private void write(File file, List<AuditEntry> entries) {
+        try (BufferedWriter writer = Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            for (AuditEntry entry : entries) {
+                writer.write(format(entry));
+                writer.newLine();
+            }
+        } catch (IOException e) {
+            plugin.getLogger().severe("Failed to write " + entries.size() + " history entries to " + file.getName() + ": " + e.getMessage());
+        }
+    }
+
+    @Override
+    public List<AuditEntry> query(UUID playerUUID, int limit) {
+        List<AuditEntry> result = new ArrayList<>();
+        String uuid = playerUUID.toString();
+
+        for (File file : historyFiles(Comparator.reverseOrder())) {
+            List<AuditEntry> fromFile = new ArrayList<>();
+            try {
+                for (String line : Files.readAllLines(file.toPath(), StandardCharsets.UTF_8)) {
+                    // Cheap pre-filter before splitting the line
+                    if (line.contains(uuid)) {
+                        AuditEntry entry = parse(line);
+                        if (entry != null && entry.playerUUID().equals(playerUUID)) {
+                            fromFile.add(entry);
+                        }
+                    }
+                }
+            } catch (IOException e) {
+                plugin.getLogger().warning("Failed to read history file " + file.getName() + ": " + e.getMessage());
+                continue;
+            }
+
+            for (int i = fromFile.size() - 1; i >= 0 && result.size() < limit; i--) {
+                result.add(fromFile.get(i));
+            }
+            if (result.size() >= limit) {
+                break;
+            }
+        }
+
+        return result;
+    }
+
+    @Override
+    public int prune(long olderThan) {
+        LocalDate cutoff = dayOf(olderThan);
+        int removed = 0;
+        for (File file : historyFiles(Comparator.naturalOrder())) {
+            LocalDate day = parseDay(file.getName());
+            // Only whole days older than the cutoff are dropped
+            if (day != null && day.isBefore(cutoff)) {
+                if (file.delete()) {
+                    removed++;
+                } else {
+                    plugin.getLogger().warning("Could not delete old history file " + file.getName());
+                }
+            }
+        }
+        return removed;
+    }
+
+    @Override
+    public String getName() {
+        return "log file";
+    }
+
+    private List<File> historyFiles(Comparator<String> order) {
+        File[] files = directory.listFiles((dir, name) -> name.startsWith(PREFIX) && name.endsWith(SUFFIX));
+        if (files == null) {
+            return List.of();
+        }
+        // ISO dates sort chronologically by name
+        Arrays.sort(files, Comparator.comparing(File::getName, order));
+        return Arrays.asList(files);
+    }
+
+    private LocalDate dayOf(long timestamp) {
+        return Instant.ofEpochMilli(timestamp).atZone(zone).toLocalDate();
+    }
+
+    private File fileFor(LocalDate day) {
+        return new File(directory, PREFIX + day + SUFFIX);
+    }
+
+    private static LocalDate parseDay(String fileName) {
+        try {
+            return LocalDate.parse(fileName.substring(PREFIX.length(), fileName.length() - SUFFIX.length()));
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    private static String format(AuditEntry entry) {
+        return entry.timestamp() + "\t" + entry.action() + "\t" + entry.playerUUID() + "\t" + nullToEmpty(entry.playerName())
+                + "\t" + nullToEmpty(entry.rankName()) + "\t" + entry.durationMillis() + "\t" + entry.expirationTimestamp()
+                + "\t" + nullToEmpty(entry.note());
+    }
+
+    private static AuditEntry parse(String line) {
+        String[] fields = line.split("\t", -1);
+        if (fields.length < 8) {
+            return null;
+        }
+        try {
+            return new AuditEntry(
+                    Long.parseLong(fields[0]),
+                    AuditAction.valueOf(fields[1]),
+                    UUID.fromString(fields[2]),
+                    emptyToNull(fields[3]),
+                    emptyToNull(fields[4]),
+                    Long.parseLong(fields[5]),
+                    Long.parseLong(fields[6]),
+                    emptyToNull(fields[7]));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static String nullToEmpty(String value) {
+        return value != null ? value : "";
+    }
+
+    private static String emptyToNull(String value) {
+        return value.isEmpty() ? null : value;
+    }
+}
@@ -0,0 +1,157 @@
+package me.itzrenzo.temprankmanager.audit;
+
+import me.itzrenzo.temprankmanager.TempRankManager;
+
+import java.io.File;
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * History table in the plugin's SQLite database, written through its own connection
+ * so history batches never wait on rank reads and writes.
+ */
+public class SQLiteAuditStore implements AuditStore {
+
+    private final TempRankManager plugin;
+    private final String databaseFile;
+    private Connection connection;
+
+    public SQLiteAuditStore(TempRankManager plugin, String databaseFile) {
+        this.plugin = plugin;
+        this.databaseFile = databaseFile;
+    }
+
+    @Override
+    public void initialize() {
+        try {
+            File dbFile = new File(plugin.getDataFolder(), databaseFile);
+            connection = DriverManager.getConnection("jdbc:sqlite:" + dbFile.getAbsolutePath());
+
+            try (Statement stmt = connection.createStatement()) {
+                // The rank connection may hold the write lock briefly
+                stmt.execute("PRAGMA busy_timeout = 5000");
+                stmt.execute("""
+                    CREATE TABLE IF NOT EXISTS temp_rank_history (
+                        id INTEGER PRIMARY KEY AUTOINCREMENT,
+                        created_at INTEGER NOT NULL,
+                        action TEXT NOT NULL,
+                        player_uuid TEXT NOT NULL,
+                        player_name TEXT,
+                        rank_name TEXT,
+                        duration_millis INTEGER NOT NULL DEFAULT 0,
+                        expiration_timestamp INTEGER NOT NULL DEFAULT 0,
+                        note TEXT
+                    )
+                    """);
+                // Per-player lookups newest first, and age-based pruning
+                stmt.execute("CREATE INDEX IF NOT EXISTS idx_history_player_time ON temp_rank_history (player_uuid, created_at)");
+                stmt.execute("CREATE INDEX IF NOT EXISTS idx_history_time ON temp_rank_history (created_at)");
+            }
+        } catch (SQLException e) {
+            plugin.getLogger().severe("Failed to initialize SQLite history table: " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+
+    @Override
+    public void close() {
+        if (connection != null) {
+            try {
+                connection.close();
+            } catch (SQLException e) {
+                plugin.getLogger().warning("Error closing SQLite history connection: " + e.getMessage());
+            }
+        }
+    }
+
+    @Override
+    public void append(List<AuditEntry> entries) {
+        String insert = """
+            INSERT INTO temp_rank_history
+            (created_at, action, player_uuid, player_name, rank_name, duration_millis, expiration_timestamp, note)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?)
+            """;
+
+        try {
+            connection.setAutoCommit(false);
+            try (PreparedStatement stmt = connection.prepareStatement(insert)) {
+                for (AuditEntry entry : entries) {
+                    stmt.setLong(1, entry.timestamp());
+                    stmt.setString(2, entry.action().name());
+                    stmt.setString(3, entry.playerUUID().toString());
+                    stmt.setString(4, entry.playerName());
+                    stmt.setString(5, entry.rankName());
+                    stmt.setLong(6, entry.durationMillis());
+                    stmt.setLong(7, entry.expirationTimestamp());
+                    stmt.setString(8, entry.note());
+                    stmt.addBatch();
+                }
+                stmt.executeBatch();
+                connection.commit();
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            plugin.getLogger().severe("Failed to write " + entries.size() + " history entries to SQLite: " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+
+    @Override
+    public List<AuditEntry> query(UUID playerUUID, int limit) {
+        List<AuditEntry> entries = new ArrayList<>();
+        String query = "SELECT * FROM temp_rank_history WHERE player_uuid = ? ORDER BY created_at DESC, id DESC LIMIT ?";
+
+        try (PreparedStatement stmt = connection.prepareStatement(query)) {
+            stmt.setString(1, playerUUID.toString());
+            stmt.setInt(2, limit);
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    AuditAction action;
+                    try {
+                        action = AuditAction.valueOf(rs.getString("action"));
+                    } catch (IllegalArgumentException e) {
+                        continue;
+                    }
+                    entries.add(new AuditEntry(
+                            rs.getLong("created_at"),
+                            action,
+                            playerUUID,
+                            rs.getString("player_name"),
+                            rs.getString("rank_name"),
+                            rs.getLong("duration_millis"),
+                            rs.getLong("expiration_timestamp"),
+                            rs.getString("note")));
+                }
+            }
+        } catch (SQLException e) {
+            plugin.getLogger().severe("Failed to read history from SQLite: " + e.getMessage());
+            e.printStackTrace();
+        }
+
+        return entries;
+    }
+
+    @Override
+    public int prune(long olderThan) {
+        try (PreparedStatement stmt = connection.prepareStatement("DELETE FROM temp_rank_history WHERE created_at < ?")) {
+            stmt.setLong(1, olderThan);
+            return stmt.executeUpdate();
+        } catch (SQLException e) {
+            plugin.getLogger().severe("Failed to prune SQLite history: " + e.getMessage());
+            e.printStackTrace();
+            return 0;
+        }
+    }
+
+    @Override
+    public String getName() {
+        return "SQLite";
+    }
+}
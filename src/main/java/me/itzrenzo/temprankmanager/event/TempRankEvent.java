@@ -0,0 +1,37 @@
+package me.itzrenzo.temprankmanager.event;
+
+import org.bukkit.Bukkit;
+import org.bukkit.event.Event;
+
+import java.util.UUID;
+
+/**
+ * Base class for events about a single player's temporary rank
+ */
+public abstract class TempRankEvent extends Event {
+    private final UUID playerUUID;
+    private final String playerName;
+    private final String rankName;
+
+    protected TempRankEvent(UUID playerUUID, String playerName, String rankName) {
+        super(!Bukkit.isPrimaryThread());
+        this.playerUUID = playerUUID;
+        this.playerName = playerName;
+        this.rankName = rankName;
+    }
+
+    public UUID getPlayerUUID() {
+        return playerUUID;
+    }
+
+    /**
+     * Last known name of the player, or "Unknown" if the server never saw them
+     */
+    public String getPlayerName() {
+        return playerName;
+    }
+
+    public String getRankName() {
+        return rankName;
+    }
+}
@@ -0,0 +1,50 @@
+package me.itzrenzo.temprankmanager.event;
+
+import org.bukkit.event.HandlerList;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.UUID;
+
+/**
+ * Called after a temporary rank has ended. Other temporary ranks of the player are unaffected;
+ * the player is reverted to the default group only when this was their last one.
+ */
+public class TempRankExpireEvent extends TempRankEvent {
+    private static final HandlerList HANDLERS = new HandlerList();
+
+    public enum Cause {
+        /** The rank's time ran out */
+        EXPIRED,
+        /** An admin removed the rank */
+        REMOVED
+    }
+
+    private final Cause cause;
+    private final String defaultGroup;
+
+    public TempRankExpireEvent(UUID playerUUID, String playerName, String rankName, Cause cause, String defaultGroup) {
+        super(playerUUID, playerName, rankName);
+        this.cause = cause;
+        this.defaultGroup = defaultGroup;
+    }
+
+    public Cause getCause() {
+        return cause;
+    }
+
+    /**
+     * The group the player was reverted to, or null if they still hold other temporary ranks
+     */
+    public String getDefaultGroup() {
+        return defaultGroup;
+    }
+
+    @Override
+    public @NotNull HandlerList getHandlers() {
+        return HANDLERS;
+    }
+
+    public static HandlerList getHandlerList() {
+        return HANDLERS;
+    }
+}
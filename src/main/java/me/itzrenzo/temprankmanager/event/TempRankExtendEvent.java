@@ -0,0 +1,52 @@
+package me.itzrenzo.temprankmanager.event;
+
+import org.bukkit.event.Cancellable;
+import org.bukkit.event.HandlerList;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.UUID;
+
+/**
+ * Called before time is added to a player's existing temporary rank (time accumulation).
+ * Cancelling it keeps the current expiration.
+ */
+public class TempRankExtendEvent extends TempRankEvent implements Cancellable {
+    private static final HandlerList HANDLERS = new HandlerList();
+
+    private final long addedMillis;
+    private final long newRemainingMillis;
+    private boolean cancelled;
+
+    public TempRankExtendEvent(UUID playerUUID, String playerName, String rankName, long addedMillis, long newRemainingMillis) {
+        super(playerUUID, playerName, rankName);
+        this.addedMillis = addedMillis;
+        this.newRemainingMillis = newRemainingMillis;
+    }
+
+    public long getAddedMillis() {
+        return addedMillis;
+    }
+
+    public long getNewRemainingMillis() {
+        return newRemainingMillis;
+    }
+
+    @Override
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    @Override
+    public void setCancelled(boolean cancelled) {
+        this.cancelled = cancelled;
+    }
+
+    @Override
+    public @NotNull HandlerList getHandlers() {
+        return HANDLERS;
+    }
+
+    public static HandlerList getHandlerList() {
+        return HANDLERS;
+    }
+}
@@ -0,0 +1,56 @@
+package me.itzrenzo.temprankmanager.event;
+
+import org.bukkit.event.Cancellable;
+import org.bukkit.event.HandlerList;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.UUID;
+
+/**
+ * Called before a temporary rank is granted, either as a new rank next to any others the player holds,
+ * or replacing the player's previous record of the same rank when time accumulation is off.
+ * Cancelling it leaves the player's groups and stored rank untouched.
+ */
+public class TempRankGrantEvent extends TempRankEvent implements Cancellable {
+    private static final HandlerList HANDLERS = new HandlerList();
+
+    private final long durationMillis;
+    private final String previousRankName;
+    private boolean cancelled;
+
+    public TempRankGrantEvent(UUID playerUUID, String playerName, String rankName, long durationMillis, String previousRankName) {
+        super(playerUUID, playerName, rankName);
+        this.durationMillis = durationMillis;
+        this.previousRankName = previousRankName;
+    }
+
+    public long getDurationMillis() {
+        return durationMillis;
+    }
+
+    /**
+     * The record of the same rank being replaced, or null if the player did not hold this rank
+     */
+    public String getPreviousRankName() {
+        return previousRankName;
+    }
+
+    @Override
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    @Override
+    public void setCancelled(boolean cancelled) {
+        this.cancelled = cancelled;
+    }
+
+    @Override
+    public @NotNull HandlerList getHandlers() {
+        return HANDLERS;
+    }
+
+    public static HandlerList getHandlerList() {
+        return HANDLERS;
+    }
+}
@@ -0,0 +1,46 @@
+package me.itzrenzo.temprankmanager.event;
+
+import org.bukkit.Bukkit;
+import org.bukkit.event.Event;
+import org.bukkit.event.HandlerList;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Called once after all timers were paused or resumed (whitelist mode toggled).
+ * This is a single aggregate event; no per-player events are fired for pause state changes.
+ */
+public class TempRankPauseStateEvent extends Event {
+    private static final HandlerList HANDLERS = new HandlerList();
+
+    private final boolean paused;
+    private final int affectedRanks;
+
+    public TempRankPauseStateEvent(boolean paused, int affectedRanks) {
+        super(!Bukkit.isPrimaryThread());
+        this.paused = paused;
+        this.affectedRanks = affectedRanks;
+    }
+
+    /**
+     * @return true if timers are now paused, false if they were resumed
+     */
+    public boolean isPaused() {
+        return paused;
+    }
+
+    /**
+     * Number of temporary ranks whose pause state changed
+     */
+    public int getAffectedRanks() {
+        return affectedRanks;
+    }
+
+    @Override
+    public @NotNull HandlerList getHandlers() {
+        return HANDLERS;
+    }
+
+    public static HandlerList getHandlerList() {
+        return HANDLERS;
+    }
+}
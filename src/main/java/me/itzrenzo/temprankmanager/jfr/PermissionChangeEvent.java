@@ -0,0 +1,34 @@
+package me.itzrenzo.temprankmanager.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A group added to or removed from a player through the permission plugin
+ */
+@Name("temprankmanager.PermissionChange")
+@Label("Permission Change")
+@Category({"TempRankManager", "Permissions"})
+@Description("A group added to or removed from a player through the permission plugin")
+@Enabled(false)
+@StackTrace(false)
+public class PermissionChangeEvent extends Event {
+
+    @Label("Operation")
+    public String operation;
+
+    @Label("Player UUID")
+    public String playerUUID;
+
+    @Label("Group")
+    public String group;
+
+    @Label("Succeeded")
+    @Description("False if the backend rejected the change; backends that apply changes later report true once it is queued")
+    public boolean succeeded;
+}
@@ -0,0 +1,27 @@
+package me.itzrenzo.temprankmanager.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * One PlaceholderAPI request for a %temprank_...% placeholder
+ */
+@Name("temprankmanager.PlaceholderRequest")
+@Label("Placeholder Request")
+@Category({"TempRankManager", "Placeholders"})
+@Description("A PlaceholderAPI request for a temprank placeholder")
+@Enabled(false)
+@StackTrace(false)
+public class PlaceholderRequestEvent extends Event {
+
+    @Label("Placeholder")
+    public String placeholder;
+
+    @Label("Player UUID")
+    public String playerUUID;
+}
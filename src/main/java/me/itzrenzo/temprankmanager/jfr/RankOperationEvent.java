@@ -0,0 +1,39 @@
+package me.itzrenzo.temprankmanager.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * A give, expiry or timer pause/resume handled by the SchedulerHandler
+ */
+@Name("temprankmanager.RankOperation")
+@Label("Rank Operation")
+@Category({"TempRankManager", "Scheduling"})
+@Description("A give, expiry, or pause or resume of all timers")
+@Enabled(false)
+@StackTrace(false)
+public class RankOperationEvent extends Event {
+
+    @Label("Operation")
+    public String operation;
+
+    @Label("Player UUID")
+    public String playerUUID;
+
+    @Label("Rank")
+    public String rankName;
+
+    @Label("Records")
+    @Description("Ranks affected; for pause and resume of all timers, ranks actually paused or resumed")
+    public int records;
+
+    @Label("Duration Given")
+    @Timespan(Timespan.MILLISECONDS)
+    public long durationMillis;
+}
@@ -0,0 +1,40 @@
+package me.itzrenzo.temprankmanager.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * One call into the storage provider
+ */
+@Name("temprankmanager.StorageCall")
+@Label("Storage Call")
+@Category({"TempRankManager", "Storage"})
+@Description("A call into the storage provider, with the records it read or wrote")
+@Enabled(false)
+@StackTrace(false)
+public class StorageCallEvent extends Event {
+
+    @Label("Operation")
+    public String operation;
+
+    @Label("Provider")
+    public String provider;
+
+    @Label("Player UUID")
+    public String playerUUID;
+
+    @Label("Rank")
+    public String rankName;
+
+    @Label("Records")
+    @Description("Records passed in, or returned for reads")
+    public int records;
+
+    @Label("Failed")
+    public boolean failed;
+}
@@ -0,0 +1,174 @@
+package me.itzrenzo.temprankmanager.permission;
+
+import net.luckperms.api.LuckPerms;
+import net.luckperms.api.model.group.Group;
+import net.luckperms.api.model.user.User;
+import net.luckperms.api.model.user.UserManager;
+import net.luckperms.api.node.NodeType;
+import net.luckperms.api.node.types.InheritanceNode;
+import org.bukkit.Bukkit;
+import org.bukkit.OfflinePlayer;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.plugin.RegisteredServiceProvider;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Group changes through the LuckPerms API. Changes are handed to LuckPerms' own executor instead
+ * of blocking the calling thread, one after another per player so they apply in order. Timed
+ * groups are written as temporary inheritance nodes, which LuckPerms drops at expiry by itself,
+ * even while this plugin or the server is not running.
+ */
+public class LuckPermsPermissionBackend implements PermissionBackend {
+    
+    private static final long CLOSE_TIMEOUT_SECONDS = 10;
+    
+    private final Plugin plugin;
+    private final UserManager userManager;
+    private final LuckPerms luckPerms;
+    // Last queued change per player; removed once it completes
+    private final Map<UUID, CompletableFuture<Void>> queued = new ConcurrentHashMap<>();
+    
+    public LuckPermsPermissionBackend(Plugin plugin, LuckPerms luckPerms) {
+        this.plugin = plugin;
+        this.luckPerms = luckPerms;
+        this.userManager = luckPerms.getUserManager();
+    }
+    
+    static LuckPermsPermissionBackend hook(Plugin plugin) {
+        RegisteredServiceProvider<LuckPerms> rsp = Bukkit.getServicesManager().getRegistration(LuckPerms.class);
+        if (rsp == null || rsp.getProvider() == null) {
+            return null;
+        }
+        return new LuckPermsPermissionBackend(plugin, rsp.getProvider());
+    }
+    
+    @Override
+    public String[] getGroups() {
+        Set<Group> groups = luckPerms.getGroupManager().getLoadedGroups();
+        String[] names = new String[groups.size()];
+        int i = 0;
+        for (Group group : groups) {
+            names[i++] = group.getName();
+        }
+        return names;
+    }
+    
+    @Override
+    public boolean inGroup(OfflinePlayer player, String group) {
+        User user = userManager.getUser(player.getUniqueId());
+        if (user == null) {
+            // Not online, so read from LuckPerms' storage. Blocks; only the reconciler's workers ask about offline players
+            user = userManager.loadUser(player.getUniqueId()).join();
+        }
+        for (InheritanceNode node : user.getNodes(NodeType.INHERITANCE)) {
+            if (!node.hasExpired() && node.getGroupName().equalsIgnoreCase(group)) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    @Override
+    public boolean dropsGroupBy(OfflinePlayer player, String group, long at) {
+        User user = userManager.getUser(player.getUniqueId());
+        // Unknown unless the user is loaded, with no change still queued that could add the group again
+        if (user == null || queued.containsKey(player.getUniqueId())) {
+            return false;
+        }
+        // Rounded up like addGroupUntil, so a node written for a rank ending at this time counts
+        long atSeconds = (at + 999) / 1000;
+        for (InheritanceNode node : user.getNodes(NodeType.INHERITANCE)) {
+            if (!node.hasExpired() && node.getGroupName().equalsIgnoreCase(group)
+                    && (!node.hasExpiry() || node.getExpiry().getEpochSecond() > atSeconds)) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    @Override
+    public boolean addGroup(OfflinePlayer player, String group) {
+        InheritanceNode node = inheritance(group).build();
+        return modify(player, group, "add", user -> replaceGroup(user, group, node));
+    }
+    
+    @Override
+    public boolean addGroupUntil(OfflinePlayer player, String group, long expiresAt) {
+        // Node expiry is in whole seconds; round up so the group never ends before the rank does
+        long expirySeconds = (expiresAt + 999) / 1000;
+        InheritanceNode node = inheritance(group).expiry(expirySeconds).build();
+        return modify(player, group, "add", user -> replaceGroup(user, group, node));
+    }
+    
+    @Override
+    public boolean removeGroup(OfflinePlayer player, String group) {
+        return modify(player, group, "remove", user -> replaceGroup(user, group, null));
+    }
+    
+    /**
+     * Node builder from this LuckPerms instance, rather than the static InheritanceNode.builder that looks LuckPerms up globally
+     */
+    private InheritanceNode.Builder inheritance(String group) {
+        return luckPerms.getNodeBuilderRegistry().forInheritance().group(group.toLowerCase(Locale.ROOT));
+    }
+    
+    /**
+     * Drop every node for the group, permanent or temporary, so the new node alone decides the expiry
+     */
+    private static void replaceGroup(User user, String group, InheritanceNode replacement) {
+        user.data().clear(node -> node instanceof InheritanceNode inheritance && inheritance.getGroupName().equalsIgnoreCase(group));
+        if (replacement != null) {
+            user.data().add(replacement);
+        }
+    }
+    
+    /**
+     * Queue a change behind the player's earlier ones. LuckPerms loads, changes and saves the user
+     * off the calling thread, so this only reports that the change was queued; a failure is logged.
+     */
+    private boolean modify(OfflinePlayer player, String group, String operation, Consumer<User> change) {
+        UUID playerUUID = player.getUniqueId();
+        CompletableFuture<Void> next = queued.compute(playerUUID, (uuid, previous) -> {
+            CompletableFuture<Void> after = previous != null ? previous : CompletableFuture.completedFuture(null);
+            return after.thenCompose(ignored -> userManager.modifyUser(uuid, change))
+                    .exceptionally(error -> {
+                        plugin.getLogger().severe("Failed to " + operation + " group " + group + " for " + uuid + " in LuckPerms: " + error.getMessage());
+                        return null;
+                    });
+        });
+        // Outside compute: the future may already be done, and the map must not be modified re-entrantly
+        next.whenComplete((ignored, error) -> queued.remove(playerUUID, next));
+        return true;
+    }
+    
+    @Override
+    public boolean expiresNatively() {
+        return true;
+    }
+    
+    @Override
+    public void close() {
+        CompletableFuture<?>[] pending = queued.values().toArray(new CompletableFuture<?>[0]);
+        if (pending.length == 0) {
+            return;
+        }
+        try {
+            CompletableFuture.allOf(pending).get(CLOSE_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (Exception e) {
+            plugin.getLogger().warning("Gave up waiting for " + queued.size() + " LuckPerms group change(s): " + e.getMessage());
+        }
+    }
+    
+    @Override
+    public String getName() {
+        return "LuckPerms";
+    }
+}
@@ -0,0 +1,102 @@
+package me.itzrenzo.temprankmanager.permission;
+
+import org.bukkit.OfflinePlayer;
+import org.bukkit.plugin.Plugin;
+
+import java.util.Locale;
+
+/**
+ * The permission plugin that holds the groups handed out as temporary ranks.
+ * <p>
+ * The add and remove methods return false if the change was rejected. A backend that applies changes
+ * asynchronously returns true as soon as the change is queued; if it later fails, the backend logs it
+ * and the reconciler repairs the group on its next run.
+ */
+public interface PermissionBackend {
+    
+    /**
+     * Every group the permission plugin knows, or null if it cannot list them
+     */
+    String[] getGroups();
+    
+    /**
+     * Whether the player is directly in the group. For an offline player the backend may have to load
+     * their data first and block until it has, so never ask about offline players on the server thread.
+     */
+    boolean inGroup(OfflinePlayer player, String group);
+    
+    /**
+     * True only if the backend knows from data it holds in memory that the player is out of the group
+     * by the given epoch milliseconds without being told: they are not in it, or only until then. Never
+     * loads anything, so it is safe on the server thread; false when unsure.
+     */
+    default boolean dropsGroupBy(OfflinePlayer player, String group, long at) {
+        return false;
+    }
+    
+    /**
+     * Put the player in the group with no expiry
+     */
+    boolean addGroup(OfflinePlayer player, String group);
+    
+    /**
+     * Put the player in the group until the given epoch milliseconds. Backends that cannot
+     * expire groups on their own add it permanently, and the plugin's timers remove it.
+     */
+    boolean addGroupUntil(OfflinePlayer player, String group, long expiresAt);
+    
+    /**
+     * Take the player out of the group, whether it was added with an expiry or not
+     */
+    boolean removeGroup(OfflinePlayer player, String group);
+    
+    /**
+     * True if groups added with {@link #addGroupUntil} are dropped by the permission plugin itself
+     * at expiry, so the plugin does not have to remove them
+     */
+    boolean expiresNatively();
+    
+    /**
+     * Wait for group changes that were handed off but not applied yet
+     */
+    default void close() {
+    }
+    
+    /**
+     * Get the name of this permission backend
+     */
+    String getName();
+    
+    /**
+     * Pick the backend named by permissions.backend. Vault is the default, and the fallback when
+     * LuckPerms is selected but not installed.
+     * @return the backend, or null if no permission plugin could be hooked
+     */
+    static PermissionBackend create(Plugin plugin) {
+        String configured = plugin.getConfig().getString("permissions.backend", "vault").toLowerCase(Locale.ROOT);
+        if (configured.equals("luckperms")) {
+            PermissionBackend luckPerms = isPresent("net.luckperms.api.LuckPerms") ? LuckPermsPermissionBackend.hook(plugin) : null;
+            if (luckPerms != null) {
+                return luckPerms;
+            }
+            plugin.getLogger().warning("permissions.backend is 'luckperms' but LuckPerms is not available; using Vault instead.");
+        } else if (!configured.equals("vault")) {
+            plugin.getLogger().warning("Unknown permissions.backend '" + configured + "'; using Vault.");
+        }
+        
+        // The adapters are only loaded once their API is known to be on the classpath
+        if (!isPresent("net.milkbowl.vault.permission.Permission")) {
+            return null;
+        }
+        return VaultPermissionBackend.hook();
+    }
+    
+    private static boolean isPresent(String className) {
+        try {
+            Class.forName(className);
+            return true;
+        } catch (ClassNotFoundException e) {
+            return false;
+        }
+    }
+}
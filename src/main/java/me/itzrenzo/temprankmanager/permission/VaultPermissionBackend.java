@@ -0,0 +1,63 @@
+package me.itzrenzo.temprankmanager.permission;
+
+import net.milkbowl.vault.permission.Permission;
+import org.bukkit.Bukkit;
+import org.bukkit.OfflinePlayer;
+import org.bukkit.plugin.RegisteredServiceProvider;
+
+/**
+ * Group changes through Vault, which works with any permission plugin. Vault calls are
+ * synchronous and have no notion of expiry, so timed groups are added permanently and
+ * removed by the plugin's own timers.
+ */
+public class VaultPermissionBackend implements PermissionBackend {
+    
+    private final Permission permission;
+    
+    public VaultPermissionBackend(Permission permission) {
+        this.permission = permission;
+    }
+    
+    static VaultPermissionBackend hook() {
+        RegisteredServiceProvider<Permission> rsp = Bukkit.getServicesManager().getRegistration(Permission.class);
+        if (rsp == null || rsp.getProvider() == null) {
+            return null;
+        }
+        return new VaultPermissionBackend(rsp.getProvider());
+    }
+    
+    @Override
+    public String[] getGroups() {
+        return permission.getGroups();
+    }
+    
+    @Override
+    public boolean inGroup(OfflinePlayer player, String group) {
+        return permission.playerInGroup(null, player, group);
+    }
+    
+    @Override
+    public boolean addGroup(OfflinePlayer player, String group) {
+        return permission.playerAddGroup(null, player, group);
+    }
+    
+    @Override
+    public boolean addGroupUntil(OfflinePlayer player, String group, long expiresAt) {
+        return addGroup(player, group);
+    }
+    
+    @Override
+    public boolean removeGroup(OfflinePlayer player, String group) {
+        return permission.playerRemoveGroup(null, player, group);
+    }
+    
+    @Override
+    public boolean expiresNatively() {
+        return false;
+    }
+    
+    @Override
+    public String getName() {
+        return "Vault (" + permission.getName() + ")";
+    }
+}
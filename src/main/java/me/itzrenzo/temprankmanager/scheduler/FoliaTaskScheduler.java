@@ -0,0 +1,83 @@
+package me.itzrenzo.temprankmanager.scheduler;
+
+import io.papermc.paper.threadedregions.scheduler.ScheduledTask;
+import org.bukkit.Bukkit;
+import org.bukkit.entity.Entity;
+import org.bukkit.plugin.Plugin;
+
+/**
+ * Scheduling backend for Folia: global work runs on the global region scheduler,
+ * per-player work on the entity's own scheduler and I/O on the async scheduler.
+ */
+public class FoliaTaskScheduler implements TaskScheduler {
+    
+    private static final boolean FOLIA = detectFolia();
+    
+    private final Plugin plugin;
+    
+    public FoliaTaskScheduler(Plugin plugin) {
+        this.plugin = plugin;
+    }
+    
+    public static boolean isFolia() {
+        return FOLIA;
+    }
+    
+    private static boolean detectFolia() {
+        try {
+            Class.forName("io.papermc.paper.threadedregions.RegionizedServer");
+            return true;
+        } catch (ClassNotFoundException e) {
+            return false;
+        }
+    }
+    
+    @Override
+    public TaskHandle runGlobal(Runnable task) {
+        return wrap(Bukkit.getGlobalRegionScheduler().run(plugin, scheduled -> task.run()));
+    }
+    
+    @Override
+    public TaskHandle runGlobalLater(Runnable task, long delayTicks) {
+        // Folia rejects delays below one tick
+        return wrap(Bukkit.getGlobalRegionScheduler().runDelayed(plugin, scheduled -> task.run(), Math.max(1, delayTicks)));
+    }
+    
+    @Override
+    public TaskHandle runGlobalTimer(Runnable task, long delayTicks, long periodTicks) {
+        return wrap(Bukkit.getGlobalRegionScheduler().runAtFixedRate(plugin, scheduled -> task.run(), Math.max(1, delayTicks), Math.max(1, periodTicks)));
+    }
+    
+    @Override
+    public TaskHandle runAsync(Runnable task) {
+        return wrap(Bukkit.getAsyncScheduler().runNow(plugin, scheduled -> task.run()));
+    }
+    
+    @Override
+    public void runForEntity(Entity entity, Runnable task) {
+        boolean scheduled = entity.getScheduler().execute(plugin, task, () -> runGlobal(task), 1L);
+        if (!scheduled) {
+            // Entity already removed (e.g. player logged out), nothing owns it anymore
+            runGlobal(task);
+        }
+    }
+    
+    @Override
+    public String getName() {
+        return "Folia";
+    }
+    
+    private static TaskHandle wrap(ScheduledTask task) {
+        return new TaskHandle() {
+            @Override
+            public void cancel() {
+                task.cancel();
+            }
+            
+            @Override
+            public boolean isCancelled() {
+                return task.isCancelled();
+            }
+        };
+    }
+}
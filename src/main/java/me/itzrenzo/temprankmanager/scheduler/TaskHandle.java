@@ -0,0 +1,17 @@
+package me.itzrenzo.temprankmanager.scheduler;
+
+/**
+ * A cancellable task scheduled through a TaskScheduler, independent of the server's scheduler API
+ */
+public interface TaskHandle {
+    
+    /**
+     * Cancel the task if it has not run yet, or stop further runs of a repeating task
+     */
+    void cancel();
+    
+    /**
+     * Check whether the task has been cancelled
+     */
+    boolean isCancelled();
+}
@@ -0,0 +1,48 @@
+package me.itzrenzo.temprankmanager.scheduler;
+
+import org.bukkit.entity.Entity;
+import org.bukkit.plugin.Plugin;
+
+public interface TaskScheduler {
+    
+    /**
+     * Run a task on the next tick of the global thread (the main thread on non-Folia servers)
+     */
+    TaskHandle runGlobal(Runnable task);
+    
+    /**
+     * Run a task on the global thread after a delay in ticks
+     */
+    TaskHandle runGlobalLater(Runnable task, long delayTicks);
+    
+    /**
+     * Run a task repeatedly on the global thread
+     */
+    TaskHandle runGlobalTimer(Runnable task, long delayTicks, long periodTicks);
+    
+    /**
+     * Run a task off the server threads
+     */
+    TaskHandle runAsync(Runnable task);
+    
+    /**
+     * Run a task on the thread that owns the entity. Falls back to the global thread
+     * if the entity is removed before the task can run.
+     */
+    void runForEntity(Entity entity, Runnable task);
+    
+    /**
+     * Get the name of this scheduling backend
+     */
+    String getName();
+    
+    /**
+     * Pick the Folia backend when the server is region-threaded, otherwise the Bukkit scheduler
+     */
+    static TaskScheduler create(Plugin plugin) {
+        if (FoliaTaskScheduler.isFolia()) {
+            return new FoliaTaskScheduler(plugin);
+        }
+        return new BukkitTaskScheduler(plugin);
+    }
+}
@@ -0,0 +1,82 @@
+package me.itzrenzo.temprankmanager.storage;
+
+import me.itzrenzo.temprankmanager.PendingGrant;
+import me.itzrenzo.temprankmanager.TempRankData;
+
+import java.util.Collection;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * Non-blocking view of a storage backend. Every call returns immediately and completes
+ * its future on an I/O thread, never on the server thread.
+ * Use {@link #of(StorageProvider, Executor, int)} to run an existing blocking provider behind this contract.
+ */
+public interface AsyncStorageProvider {
+    
+    /**
+     * Stream the matching records to the visitor on a storage thread
+     * @return completes with false if the visitor stopped early
+     */
+    CompletableFuture<Boolean> forEach(RankFilter filter, RankVisitor visitor);
+    
+    /**
+     * Save a temporary rank record
+     */
+    CompletableFuture<Void> saveTempRank(TempRankData data);
+    
+    /**
+     * Save many records in one task
+     */
+    CompletableFuture<Void> saveTempRanks(Collection<TempRankData> records);
+    
+    /**
+     * Remove one rank of a player
+     */
+    CompletableFuture<Void> removeTempRank(UUID playerUUID, String rankName);
+    
+    /**
+     * Remove many records, each matched by player and rank, in one task
+     */
+    CompletableFuture<Void> removeTempRanks(Collection<TempRankData> records);
+    
+    /**
+     * Add time to many ranks in one operation
+     * @see StorageProvider#extendTempRanks(long, String, boolean, long)
+     */
+    CompletableFuture<Integer> extendTempRanks(long millis, String rankName, boolean includePaused, long activeAt);
+    
+    /**
+     * Load every grant that has not started yet
+     */
+    CompletableFuture<Collection<PendingGrant>> loadPendingGrants();
+    
+    /**
+     * Save a grant that starts later
+     */
+    CompletableFuture<Void> savePendingGrant(PendingGrant grant);
+    
+    /**
+     * Remove grants that were activated or cancelled
+     */
+    CompletableFuture<Void> removePendingGrants(Collection<PendingGrant> grants);
+    
+    /**
+     * Capture a consistent backup
+     * @see StorageProvider#createBackup()
+     */
+    CompletableFuture<StorageBackup> createBackup();
+    
+    /**
+     * Get the name of the underlying storage provider
+     */
+    String getProviderName();
+    
+    /**
+     * Run a blocking provider on the given executor, with at most maxConcurrent calls in flight at once
+     */
+    static AsyncStorageProvider of(StorageProvider provider, Executor executor, int maxConcurrent) {
+        return new BlockingStorageAdapter(() -> provider, executor, maxConcurrent);
+    }
+}
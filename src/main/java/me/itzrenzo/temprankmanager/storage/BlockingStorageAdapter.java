@@ -0,0 +1,118 @@
+package me.itzrenzo.temprankmanager.storage;
+
+import me.itzrenzo.temprankmanager.PendingGrant;
+import me.itzrenzo.temprankmanager.TempRankData;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Adapts a blocking {@link StorageProvider} to {@link AsyncStorageProvider} by running each call on an executor.
+ * <p>
+ * Intended for virtual threads. The JDBC driver and the YAML provider block inside synchronized
+ * sections, which pins a virtual thread to its carrier, so a semaphore caps how many calls reach
+ * the provider at once. Waiting on the semaphore unmounts the virtual thread instead of pinning it.
+ */
+public class BlockingStorageAdapter implements AsyncStorageProvider {
+    private final Supplier<StorageProvider> provider;
+    private final Executor executor;
+    private final Semaphore permits;
+
+    /**
+     * @param provider looked up on every call, so the backing provider may be replaced while running
+     */
+    public BlockingStorageAdapter(Supplier<StorageProvider> provider, Executor executor, int maxConcurrent) {
+        this.provider = provider;
+        this.executor = executor;
+        this.permits = new Semaphore(Math.max(1, maxConcurrent));
+    }
+
+    @Override
+    public CompletableFuture<Boolean> forEach(RankFilter filter, RankVisitor visitor) {
+        return call(storage -> storage.forEach(filter, visitor));
+    }
+
+    @Override
+    public CompletableFuture<Void> saveTempRank(TempRankData data) {
+        return run(storage -> storage.saveTempRank(data));
+    }
+
+    @Override
+    public CompletableFuture<Void> saveTempRanks(Collection<TempRankData> records) {
+        List<TempRankData> copy = List.copyOf(records);
+        return run(storage -> storage.saveTempRanks(copy));
+    }
+
+    @Override
+    public CompletableFuture<Void> removeTempRank(UUID playerUUID, String rankName) {
+        return run(storage -> storage.removeTempRank(playerUUID, rankName));
+    }
+
+    @Override
+    public CompletableFuture<Void> removeTempRanks(Collection<TempRankData> records) {
+        List<TempRankData> copy = List.copyOf(records);
+        return run(storage -> storage.removeTempRanks(copy));
+    }
+
+    @Override
+    public CompletableFuture<Integer> extendTempRanks(long millis, String rankName, boolean includePaused, long activeAt) {
+        return call(storage -> storage.extendTempRanks(millis, rankName, includePaused, activeAt));
+    }
+
+    @Override
+    public CompletableFuture<Collection<PendingGrant>> loadPendingGrants() {
+        return call(StorageProvider::loadPendingGrants);
+    }
+
+    @Override
+    public CompletableFuture<Void> savePendingGrant(PendingGrant grant) {
+        return run(storage -> storage.savePendingGrant(grant));
+    }
+
+    @Override
+    public CompletableFuture<Void> removePendingGrants(Collection<PendingGrant> grants) {
+        List<PendingGrant> copy = List.copyOf(grants);
+        return run(storage -> storage.removePendingGrants(copy));
+    }
+
+    @Override
+    public CompletableFuture<StorageBackup> createBackup() {
+        return call(StorageProvider::createBackup);
+    }
+
+    @Override
+    public String getProviderName() {
+        return provider.get().getProviderName();
+    }
+
+    private CompletableFuture<Void> run(Consumer<StorageProvider> action) {
+        return call(storage -> {
+            action.accept(storage);
+            return null;
+        });
+    }
+
+    private <T> CompletableFuture<T> call(Function<StorageProvider, T> action) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                permits.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new CompletionException(e);
+            }
+            try {
+                return action.apply(provider.get());
+            } finally {
+                permits.release();
+            }
+        }, executor);
+    }
+}
@@ -0,0 +1,159 @@
+package me.itzrenzo.temprankmanager.storage;
+
+import me.itzrenzo.temprankmanager.PendingGrant;
+import me.itzrenzo.temprankmanager.TempRankData;
+import me.itzrenzo.temprankmanager.jfr.StorageCallEvent;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+/**
+ * Emits a {@link StorageCallEvent} around every call to the wrapped provider. While no recording
+ * has the event enabled, each call only pays for a disabled-check.
+ */
+public class InstrumentedStorageProvider implements StorageProvider {
+
+    private final StorageProvider delegate;
+
+    public InstrumentedStorageProvider(StorageProvider delegate) {
+        this.delegate = delegate;
+    }
+
+    private <T> T call(String operation, UUID playerUUID, String rankName, int records, Supplier<T> call) {
+        StorageCallEvent event = new StorageCallEvent();
+        event.begin();
+        boolean failed = true;
+        T result = null;
+        try {
+            result = call.get();
+            failed = false;
+            return result;
+        } finally {
+            event.end();
+            if (event.shouldCommit()) {
+                event.operation = operation;
+                event.provider = delegate.getProviderName();
+                event.playerUUID = playerUUID != null ? playerUUID.toString() : null;
+                event.rankName = rankName;
+                event.records = result instanceof Collection<?> read ? read.size()
+                        : result instanceof Map<?, ?> map ? map.size()
+                        : result instanceof Integer changed ? changed
+                        : records;
+                event.failed = failed;
+                event.commit();
+            }
+        }
+    }
+
+    private void run(String operation, UUID playerUUID, String rankName, int records, Runnable call) {
+        call(operation, playerUUID, rankName, records, () -> {
+            call.run();
+            return null;
+        });
+    }
+
+    @Override
+    public void initialize() {
+        run("initialize", null, null, 0, delegate::initialize);
+    }
+
+    @Override
+    public void close() {
+        run("close", null, null, 0, delegate::close);
+    }
+
+    @Override
+    public boolean forEach(RankFilter filter, RankVisitor visitor) {
+        // The record count is only known once the scan ends, so this one is not routed through call()
+        StorageCallEvent event = new StorageCallEvent();
+        event.begin();
+        int[] visited = {0};
+        boolean failed = true;
+        try {
+            boolean completed = delegate.forEach(filter, data -> {
+                visited[0]++;
+                return visitor.visit(data);
+            });
+            failed = false;
+            return completed;
+        } finally {
+            event.end();
+            if (event.shouldCommit()) {
+                event.operation = "forEach";
+                event.provider = delegate.getProviderName();
+                event.rankName = filter.rankName();
+                event.records = visited[0];
+                event.failed = failed;
+                event.commit();
+            }
+        }
+    }
+
+    @Override
+    public void saveTempRank(TempRankData data) {
+        run("saveTempRank", data.getPlayerUUID(), data.getRankName(), 1, () -> delegate.saveTempRank(data));
+    }
+
+    @Override
+    public void removeTempRank(UUID playerUUID, String rankName) {
+        run("removeTempRank", playerUUID, rankName, 1, () -> delegate.removeTempRank(playerUUID, rankName));
+    }
+
+    @Override
+    public void saveTempRanks(Collection<TempRankData> records) {
+        run("saveTempRanks", null, null, records.size(), () -> delegate.saveTempRanks(records));
+    }
+
+    @Override
+    public void removeTempRanks(Collection<TempRankData> records) {
+        run("removeTempRanks", null, null, records.size(), () -> delegate.removeTempRanks(records));
+    }
+
+    @Override
+    public int extendTempRanks(long millis, String rankName, boolean includePaused, long activeAt) {
+        return call("extendTempRanks", null, rankName, 0, () -> delegate.extendTempRanks(millis, rankName, includePaused, activeAt));
+    }
+
+    @Override
+    public Collection<PendingGrant> loadPendingGrants() {
+        return call("loadPendingGrants", null, null, 0, delegate::loadPendingGrants);
+    }
+
+    @Override
+    public void savePendingGrant(PendingGrant grant) {
+        run("savePendingGrant", grant.playerUUID(), grant.rankName(), 1, () -> delegate.savePendingGrant(grant));
+    }
+
+    @Override
+    public void removePendingGrants(Collection<PendingGrant> grants) {
+        run("removePendingGrants", null, null, grants.size(), () -> delegate.removePendingGrants(grants));
+    }
+
+    @Override
+    public StorageBackup createBackup() {
+        // Only the capture; the copy itself runs later on the backup thread
+        return call("createBackup", null, null, 0, delegate::createBackup);
+    }
+
+    @Override
+    public int getWriteLanes() {
+        return delegate.getWriteLanes();
+    }
+
+    @Override
+    public int writeLaneOf(UUID playerUUID) {
+        return delegate.writeLaneOf(playerUUID);
+    }
+
+    @Override
+    public String getBackupExtension() {
+        return delegate.getBackupExtension();
+    }
+
+    @Override
+    public String getProviderName() {
+        return delegate.getProviderName();
+    }
+}
@@ -0,0 +1,39 @@
+package me.itzrenzo.temprankmanager.storage;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps a single background writer under a byte rate by sleeping between chunks.
+ * Not thread-safe; each writer uses its own instance.
+ */
+public class IoThrottle {
+    private final long bytesPerSecond;
+    private final long startNanos = System.nanoTime();
+    private long bytes;
+
+    /**
+     * @param bytesPerSecond maximum rate, or 0 for no limit
+     */
+    public IoThrottle(long bytesPerSecond) {
+        this.bytesPerSecond = bytesPerSecond;
+    }
+
+    /**
+     * Account for written bytes and sleep until the average rate is back under the limit
+     */
+    public void acquire(long written) throws InterruptedException {
+        bytes += written;
+        if (bytesPerSecond <= 0) {
+            return;
+        }
+        long earliestNanos = startNanos + bytes * TimeUnit.SECONDS.toNanos(1) / bytesPerSecond;
+        long waitNanos = earliestNanos - System.nanoTime();
+        if (waitNanos > 0) {
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+        }
+    }
+
+    public long getBytes() {
+        return bytes;
+    }
+}
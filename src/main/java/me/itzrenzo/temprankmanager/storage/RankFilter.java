@@ -0,0 +1,41 @@
+package me.itzrenzo.temprankmanager.storage;
+
+import me.itzrenzo.temprankmanager.TempRankData;
+
+/**
+ * Which records a {@link StorageProvider#forEach} scan visits. Null fields match anything.
+ * SQL providers turn the filter into a WHERE clause, so skipped records are never read.
+ * @param rankName only this rank (case-insensitive)
+ * @param paused only paused or only running ranks
+ * @param playtime only playtime or only wall-clock ranks
+ */
+public record RankFilter(String rankName, Boolean paused, Boolean playtime) {
+
+    private static final RankFilter ALL = new RankFilter(null, null, null);
+
+    public static RankFilter all() {
+        return ALL;
+    }
+
+    public static RankFilter rank(String rankName) {
+        return new RankFilter(rankName, null, null);
+    }
+
+    public RankFilter withPaused(boolean paused) {
+        return new RankFilter(rankName, paused, playtime);
+    }
+
+    public RankFilter withPlaytime(boolean playtime) {
+        return new RankFilter(rankName, paused, playtime);
+    }
+
+    public boolean matches(String rankName, boolean paused, boolean playtime) {
+        return (this.rankName == null || this.rankName.equalsIgnoreCase(rankName))
+                && (this.paused == null || this.paused == paused)
+                && (this.playtime == null || this.playtime == playtime);
+    }
+
+    public boolean matches(TempRankData data) {
+        return matches(data.getRankName(), data.isPaused(), data.isPlaytime());
+    }
+}
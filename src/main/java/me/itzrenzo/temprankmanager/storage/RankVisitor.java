@@ -0,0 +1,15 @@
+package me.itzrenzo.temprankmanager.storage;
+
+import me.itzrenzo.temprankmanager.TempRankData;
+
+/**
+ * Receives records one at a time from a {@link StorageProvider#forEach} scan
+ */
+@FunctionalInterface
+public interface RankVisitor {
+
+    /**
+     * @return true to continue, false to stop the scan
+     */
+    boolean visit(TempRankData data);
+}
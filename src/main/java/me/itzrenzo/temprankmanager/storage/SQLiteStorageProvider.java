@@ -1,16 +1,31 @@
 package me.itzrenzo.temprankmanager.storage;
 
+import me.itzrenzo.temprankmanager.PendingGrant;
 import me.itzrenzo.temprankmanager.TempRankData;
 import me.itzrenzo.temprankmanager.TempRankManager;
+import me.itzrenzo.temprankmanager.storage.migration.SchemaMigrator;
+import org.sqlite.SQLiteConnection;
+import org.sqlite.SQLiteErrorCode;
+import org.sqlite.core.DB;
 
 import java.io.File;
 import java.sql.*;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 import java.util.UUID;
 
 public class SQLiteStorageProvider implements StorageProvider {
     
+    // Pages copied per online backup step; the throttle sleeps between steps
+    private static final int BACKUP_PAGES_PER_STEP = 64;
+    
+    private static final String UPSERT = """
+        INSERT OR REPLACE INTO temp_ranks 
+        (player_uuid, rank_name, expiration_timestamp, is_paused, time_left_millis, playtime) 
+        VALUES (?, ?, ?, ?, ?, ?)
+        """;
+    
     private final TempRankManager plugin;
     private final String databaseFile;
     private Connection connection;
@@ -27,6 +42,11 @@ public class SQLiteStorageProvider implements StorageProvider {
             String url = "jdbc:sqlite:" + dbFile.getAbsolutePath();
             
             connection = DriverManager.getConnection(url);
+            try (Statement stmt = connection.createStatement()) {
+                // WAL lets backups and the history writer read while ranks are being written
+                stmt.execute("PRAGMA journal_mode = WAL");
+                stmt.execute("PRAGMA busy_timeout = 5000");
+            }
             createTables();
             
             plugin.getLogger().info("Connected to SQLite database: " + databaseFile);
@@ -37,19 +57,9 @@ public class SQLiteStorageProvider implements StorageProvider {
     }
     
     private void createTables() throws SQLException {
-        String createTable = """
-            CREATE TABLE IF NOT EXISTS temp_ranks (
-                player_uuid TEXT PRIMARY KEY,
-                rank_name TEXT NOT NULL,
-                expiration_timestamp INTEGER NOT NULL,
-                is_paused INTEGER NOT NULL DEFAULT 0,
-                time_left_millis INTEGER NOT NULL DEFAULT 0
-            )
-            """;
-        
-        try (Statement stmt = connection.createStatement()) {
-            stmt.execute(createTable);
-        }
+        // The schema is defined by the ordered migrations; this only applies the pending ones
+        int version = new SchemaMigrator(plugin.getLogger(), SchemaMigrator.defaultMigrations()).migrate(connection);
+        plugin.getLogger().info("SQLite schema is at version " + version);
     }
     
     @Override
@@ -65,47 +75,46 @@ public class SQLiteStorageProvider implements StorageProvider {
     }
     
     @Override
-    public Collection<TempRankData> loadAllData() {
-        Collection<TempRankData> data = new ArrayList<>();
+    public boolean forEach(RankFilter filter, RankVisitor visitor) {
+        // The filter becomes the WHERE clause and rows are read one at a time from the cursor
+        StringBuilder query = new StringBuilder("SELECT * FROM temp_ranks");
+        List<Object> parameters = new ArrayList<>();
+        if (filter.rankName() != null) {
+            query.append(parameters.isEmpty() ? " WHERE" : " AND").append(" rank_name = ? COLLATE NOCASE");
+            parameters.add(filter.rankName());
+        }
+        if (filter.paused() != null) {
+            query.append(parameters.isEmpty() ? " WHERE" : " AND").append(" is_paused = ?");
+            parameters.add(filter.paused() ? 1 : 0);
+        }
+        if (filter.playtime() != null) {
+            query.append(parameters.isEmpty() ? " WHERE" : " AND").append(" playtime = ?");
+            parameters.add(filter.playtime() ? 1 : 0);
+        }
         
-        String query = "SELECT * FROM temp_ranks";
-        try (Statement stmt = connection.createStatement();
-             ResultSet rs = stmt.executeQuery(query)) {
-            
-            while (rs.next()) {
-                UUID playerUUID = UUID.fromString(rs.getString("player_uuid"));
-                String rankName = rs.getString("rank_name");
-                long expirationTimestamp = rs.getLong("expiration_timestamp");
-                boolean isPaused = rs.getInt("is_paused") == 1;
-                long timeLeftMillis = rs.getLong("time_left_millis");
-                
-                TempRankData tempRank = new TempRankData(playerUUID, rankName, expirationTimestamp, isPaused, timeLeftMillis);
-                data.add(tempRank);
+        try (PreparedStatement stmt = connection.prepareStatement(query.toString())) {
+            for (int i = 0; i < parameters.size(); i++) {
+                stmt.setObject(i + 1, parameters.get(i));
             }
-            
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    if (!visitor.visit(readRow(rs))) {
+                        return false;
+                    }
+                }
+            }
+            return true;
         } catch (SQLException e) {
-            plugin.getLogger().severe("Failed to load data from SQLite: " + e.getMessage());
+            plugin.getLogger().severe("Failed to read temp ranks from SQLite: " + e.getMessage());
             e.printStackTrace();
+            return false;
         }
-        
-        return data;
     }
     
     @Override
     public void saveTempRank(TempRankData data) {
-        String upsert = """
-            INSERT OR REPLACE INTO temp_ranks 
-            (player_uuid, rank_name, expiration_timestamp, is_paused, time_left_millis) 
-            VALUES (?, ?, ?, ?, ?)
-            """;
-        
-        try (PreparedStatement stmt = connection.prepareStatement(upsert)) {
-            stmt.setString(1, data.getPlayerUUID().toString());
-            stmt.setString(2, data.getRankName());
-            stmt.setLong(3, data.getExpirationTimestamp());
-            stmt.setInt(4, data.isPaused() ? 1 : 0);
-            stmt.setLong(5, data.getTimeLeftMillis());
-            
+        try (PreparedStatement stmt = connection.prepareStatement(UPSERT)) {
+            bindRow(stmt, data);
             stmt.executeUpdate();
         } catch (SQLException e) {
             plugin.getLogger().severe("Failed to save temp rank to SQLite: " + e.getMessage());
@@ -114,11 +123,60 @@ public class SQLiteStorageProvider implements StorageProvider {
     }
     
     @Override
-    public void removeTempRank(UUID playerUUID) {
-        String delete = "DELETE FROM temp_ranks WHERE player_uuid = ?";
+    public void saveTempRanks(Collection<TempRankData> records) {
+        if (records.isEmpty()) {
+            return;
+        }
+        
+        try {
+            inTransaction(() -> {
+                try (PreparedStatement stmt = connection.prepareStatement(UPSERT)) {
+                    for (TempRankData data : records) {
+                        bindRow(stmt, data);
+                        stmt.addBatch();
+                    }
+                    stmt.executeBatch();
+                }
+            });
+        } catch (SQLException e) {
+            plugin.getLogger().severe("Failed to save temp ranks to SQLite: " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+    
+    private void bindRow(PreparedStatement stmt, TempRankData data) throws SQLException {
+        stmt.setBytes(1, UuidBytes.toBytes(data.getPlayerUUID()));
+        stmt.setString(2, data.getRankName());
+        stmt.setLong(3, data.getExpirationTimestamp());
+        stmt.setInt(4, data.isPaused() ? 1 : 0);
+        stmt.setLong(5, data.getTimeLeftMillis());
+        stmt.setInt(6, data.isPlaytime() ? 1 : 0);
+    }
+    
+    private void inTransaction(SqlAction action) throws SQLException {
+        connection.setAutoCommit(false);
+        try {
+            action.run();
+            connection.commit();
+        } catch (SQLException | RuntimeException e) {
+            connection.rollback();
+            throw e;
+        } finally {
+            connection.setAutoCommit(true);
+        }
+    }
+    
+    private interface SqlAction {
+        void run() throws SQLException;
+    }
+    
+    @Override
+    public void removeTempRank(UUID playerUUID, String rankName) {
+        String delete = "DELETE FROM temp_ranks WHERE player_uuid = ? AND rank_name = ?";
         
         try (PreparedStatement stmt = connection.prepareStatement(delete)) {
-            stmt.setString(1, playerUUID.toString());
+            stmt.setBytes(1, UuidBytes.toBytes(playerUUID));
+            stmt.setString(2, rankName);
             stmt.executeUpdate();
         } catch (SQLException e) {
             plugin.getLogger().severe("Failed to remove temp rank from SQLite: " + e.getMessage());
@@ -127,51 +185,182 @@ public class SQLiteStorageProvider implements StorageProvider {
     }
     
     @Override
-    public TempRankData getTempRank(UUID playerUUID) {
-        String query = "SELECT * FROM temp_ranks WHERE player_uuid = ?";
+    public void removeTempRanks(Collection<TempRankData> records) {
+        if (records.isEmpty()) {
+            return;
+        }
         
-        try (PreparedStatement stmt = connection.prepareStatement(query)) {
-            stmt.setString(1, playerUUID.toString());
-            ResultSet rs = stmt.executeQuery();
-            
-            if (rs.next()) {
-                String rankName = rs.getString("rank_name");
-                long expirationTimestamp = rs.getLong("expiration_timestamp");
-                boolean isPaused = rs.getInt("is_paused") == 1;
-                long timeLeftMillis = rs.getLong("time_left_millis");
-                
-                return new TempRankData(playerUUID, rankName, expirationTimestamp, isPaused, timeLeftMillis);
-            }
+        try {
+            inTransaction(() -> {
+                try (PreparedStatement stmt = connection.prepareStatement("DELETE FROM temp_ranks WHERE player_uuid = ? AND rank_name = ?")) {
+                    for (TempRankData data : records) {
+                        stmt.setBytes(1, UuidBytes.toBytes(data.getPlayerUUID()));
+                        stmt.setString(2, data.getRankName());
+                        stmt.addBatch();
+                    }
+                    stmt.executeBatch();
+                }
+            });
         } catch (SQLException e) {
-            plugin.getLogger().severe("Failed to get temp rank from SQLite: " + e.getMessage());
+            plugin.getLogger().severe("Failed to remove temp ranks from SQLite: " + e.getMessage());
             e.printStackTrace();
         }
+    }
+    
+    private TempRankData readRow(ResultSet rs) throws SQLException {
+        UUID playerUUID = UuidBytes.fromBytes(rs.getBytes("player_uuid"));
+        String rankName = rs.getString("rank_name");
+        long expirationTimestamp = rs.getLong("expiration_timestamp");
+        boolean isPaused = rs.getInt("is_paused") == 1;
+        long timeLeftMillis = rs.getLong("time_left_millis");
+        boolean playtime = rs.getInt("playtime") == 1;
         
-        return null;
+        return new TempRankData(playerUUID, rankName, expirationTimestamp, isPaused, timeLeftMillis, playtime);
     }
     
     @Override
-    public boolean hasTempRank(UUID playerUUID) {
-        return getTempRank(playerUUID) != null;
+    public int extendTempRanks(long millis, String rankName, boolean includePaused, long activeAt) {
+        // One set-based statement instead of a read and write per player
+        String update = """
+            UPDATE temp_ranks
+            SET expiration_timestamp = expiration_timestamp + ?,
+                time_left_millis = CASE WHEN is_paused = 1 THEN time_left_millis + ? ELSE time_left_millis END
+            WHERE (is_paused = 0 AND expiration_timestamp > ?
+            """ + (includePaused ? " OR is_paused = 1)" : ")")
+                + (rankName != null ? " AND rank_name = ? COLLATE NOCASE" : "");
+        
+        try (PreparedStatement stmt = connection.prepareStatement(update)) {
+            stmt.setLong(1, millis);
+            stmt.setLong(2, millis);
+            stmt.setLong(3, activeAt);
+            if (rankName != null) {
+                stmt.setString(4, rankName);
+            }
+            return stmt.executeUpdate();
+        } catch (SQLException e) {
+            plugin.getLogger().severe("Failed to extend temp ranks in SQLite: " + e.getMessage());
+            e.printStackTrace();
+            return 0;
+        }
     }
     
     @Override
-    public void removeExpiredRanks() {
-        String delete = "DELETE FROM temp_ranks WHERE is_paused = 0 AND expiration_timestamp <= ?";
-        
-        try (PreparedStatement stmt = connection.prepareStatement(delete)) {
-            stmt.setLong(1, System.currentTimeMillis());
-            int removed = stmt.executeUpdate();
-            
-            if (removed > 0) {
-                plugin.getLogger().info("Removed " + removed + " expired rank(s) from SQLite database.");
+    public Collection<PendingGrant> loadPendingGrants() {
+        Collection<PendingGrant> grants = new ArrayList<>();
+    
+        try (Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT * FROM temp_rank_pending ORDER BY start_at")) {
+            while (rs.next()) {
+                grants.add(new PendingGrant(
+                        UuidBytes.fromBytes(rs.getBytes("grant_id")),
+                        UuidBytes.fromBytes(rs.getBytes("player_uuid")),
+                        rs.getString("player_name"),
+                        rs.getString("rank_name"),
+                        rs.getLong("duration_millis"),
+                        rs.getLong("start_at"),
+                        rs.getInt("playtime") == 1));
             }
         } catch (SQLException e) {
-            plugin.getLogger().severe("Failed to remove expired ranks from SQLite: " + e.getMessage());
+            plugin.getLogger().severe("Failed to load pending grants from SQLite: " + e.getMessage());
+            e.printStackTrace();
+        }
+    
+        return grants;
+    }
+    
+    @Override
+    public void savePendingGrant(PendingGrant grant) {
+        String insert = """
+            INSERT OR REPLACE INTO temp_rank_pending
+            (grant_id, player_uuid, player_name, rank_name, duration_millis, start_at, playtime)
+            VALUES (?, ?, ?, ?, ?, ?, ?)
+            """;
+    
+        try (PreparedStatement stmt = connection.prepareStatement(insert)) {
+            stmt.setBytes(1, UuidBytes.toBytes(grant.id()));
+            stmt.setBytes(2, UuidBytes.toBytes(grant.playerUUID()));
+            stmt.setString(3, grant.playerName());
+            stmt.setString(4, grant.rankName());
+            stmt.setLong(5, grant.durationMillis());
+            stmt.setLong(6, grant.startAt());
+            stmt.setInt(7, grant.playtime() ? 1 : 0);
+            stmt.executeUpdate();
+        } catch (SQLException e) {
+            plugin.getLogger().severe("Failed to save pending grant to SQLite: " + e.getMessage());
             e.printStackTrace();
         }
     }
     
+    @Override
+    public void removePendingGrants(Collection<PendingGrant> grants) {
+        if (grants.isEmpty()) {
+            return;
+        }
+    
+        try {
+            inTransaction(() -> {
+                try (PreparedStatement stmt = connection.prepareStatement("DELETE FROM temp_rank_pending WHERE grant_id = ?")) {
+                    for (PendingGrant grant : grants) {
+                        stmt.setBytes(1, UuidBytes.toBytes(grant.id()));
+                        stmt.addBatch();
+                    }
+                    stmt.executeBatch();
+                }
+            });
+        } catch (SQLException e) {
+            plugin.getLogger().severe("Failed to remove pending grants from SQLite: " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+    
+    @Override
+    public StorageBackup createBackup() {
+        // Nothing to capture here: the copy reads one consistent WAL snapshot on its own connection
+        File dbFile = new File(plugin.getDataFolder(), databaseFile);
+        
+        return (target, throttle) -> {
+            try (Connection source = DriverManager.getConnection("jdbc:sqlite:" + dbFile.getAbsolutePath())) {
+                int pageSize;
+                source.setAutoCommit(false);
+                try (Statement stmt = source.createStatement()) {
+                    stmt.execute("PRAGMA busy_timeout = 5000");
+                    try (ResultSet rs = stmt.executeQuery("PRAGMA page_size")) {
+                        pageSize = rs.next() ? rs.getInt(1) : 4096;
+                    }
+                    // Open the read transaction so every backup step sees the same snapshot and
+                    // writes on the plugin's connection do not force the copy to restart
+                    try (ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM temp_ranks")) {
+                        rs.next();
+                    }
+                }
+                
+                int[] lastRemaining = {-1};
+                DB database = source.unwrap(SQLiteConnection.class).getDatabase();
+                int result = database.backup("main", target.getAbsolutePath(), (remaining, pageCount) -> {
+                    int copied = (lastRemaining[0] < 0 ? pageCount : lastRemaining[0]) - remaining;
+                    lastRemaining[0] = remaining;
+                    try {
+                        throttle.acquire((long) copied * pageSize);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }, 100, 50, BACKUP_PAGES_PER_STEP);
+                
+                source.rollback();
+                return result == SQLiteErrorCode.SQLITE_OK.code || result == SQLiteErrorCode.SQLITE_DONE.code;
+            } catch (SQLException e) {
+                plugin.getLogger().severe("Failed to back up SQLite database: " + e.getMessage());
+                e.printStackTrace();
+                return false;
+            }
+        };
+    }
+    
+    @Override
+    public String getBackupExtension() {
+        return "db";
+    }
+    
     @Override
     public String getProviderName() {
         return "SQLite";
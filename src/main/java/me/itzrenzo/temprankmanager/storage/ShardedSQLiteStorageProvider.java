@@ -0,0 +1,506 @@
+package me.itzrenzo.temprankmanager.storage;
+
+import me.itzrenzo.temprankmanager.PendingGrant;
+import me.itzrenzo.temprankmanager.RankKey;
+import me.itzrenzo.temprankmanager.TempRankData;
+import me.itzrenzo.temprankmanager.TempRankManager;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * SQLite storage spread over several database files by player UUID hash, so writes to different
+ * shards run in parallel. Each shard is a regular {@link SQLiteStorageProvider} whose connection
+ * is only used by that shard's writer thread.
+ * <p>
+ * Writes run on the owning shard's writer thread and return once committed there, so the caller's
+ * write chain only moves on once the data is durable. Each shard is its own write lane, so writes for
+ * players on different shards can be in flight at once; a batch that spans shards commits on all of them
+ * in parallel and fails if any shard fails. Reads on a shard run behind its queued writes. Queries over
+ * all players fan out to every shard in parallel and merge the results.
+ * <p>
+ * The shard count is recorded in a layout file next to the database. When the configured count differs,
+ * records are moved to their new shard at startup in transactions; an interrupted move is repeated on the next start.
+ * The main database file is kept in every layout because rank history lives there.
+ */
+public class ShardedSQLiteStorageProvider implements StorageProvider {
+
+    private static final String LAYOUT_SUFFIX = ".shards";
+    private static final int REBALANCE_BATCH = 1000;
+    private static final long CLOSE_TIMEOUT_SECONDS = 10;
+    private static final int BACKUP_COPY_BUFFER = 64 * 1024;
+
+    private final TempRankManager plugin;
+    private final String databaseFile;
+    private final int shardCount;
+    private final List<Shard> shards = new ArrayList<>();
+
+    private record Shard(int index, SQLiteStorageProvider storage, ExecutorService writer) {
+    }
+
+    public ShardedSQLiteStorageProvider(TempRankManager plugin, String databaseFile, int shardCount) {
+        this.plugin = plugin;
+        this.databaseFile = databaseFile;
+        this.shardCount = Math.max(1, shardCount);
+    }
+
+    /**
+     * Whether the database was previously split into shards, in which case this provider is
+     * needed even for a single shard so the records can be merged back
+     */
+    public static boolean isSharded(TempRankManager plugin, String databaseFile) {
+        return new File(plugin.getDataFolder(), databaseFile + LAYOUT_SUFFIX).exists();
+    }
+
+    /**
+     * Shard of a player for the given shard count. Must never change, or records would be looked up in the wrong file.
+     */
+    static int shardIndex(UUID playerUUID, int shardCount) {
+        return Math.floorMod(playerUUID.hashCode(), shardCount);
+    }
+
+    private String shardFileName(int index) {
+        if (shardCount == 1) {
+            return databaseFile;
+        }
+        int dot = databaseFile.lastIndexOf('.');
+        String base = dot > 0 ? databaseFile.substring(0, dot) : databaseFile;
+        String extension = dot > 0 ? databaseFile.substring(dot) : "";
+        return base + "-shard-" + index + extension;
+    }
+
+    @Override
+    public void initialize() {
+        if (readLayout() != shardCount) {
+            rebalance();
+        }
+
+        for (int i = 0; i < shardCount; i++) {
+            int index = i;
+            SQLiteStorageProvider storage = new SQLiteStorageProvider(plugin, shardFileName(index));
+            storage.initialize();
+            ExecutorService writer = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "TempRankManager-Shard-" + index);
+                thread.setDaemon(true);
+                return thread;
+            });
+            shards.add(new Shard(index, storage, writer));
+        }
+        plugin.getLogger().info("SQLite storage is split into " + shardCount + " shard(s)");
+    }
+
+    // ---- Rebalancing ----
+
+    private int readLayout() {
+        File layout = new File(plugin.getDataFolder(), databaseFile + LAYOUT_SUFFIX);
+        if (!layout.exists()) {
+            return 1;
+        }
+        try {
+            return Integer.parseInt(Files.readString(layout.toPath(), StandardCharsets.UTF_8).trim());
+        } catch (IOException | NumberFormatException e) {
+            plugin.getLogger().warning("Could not read shard layout, rebalancing all shards: " + e.getMessage());
+            return -1;
+        }
+    }
+
+    private void writeLayout() throws IOException {
+        File layout = new File(plugin.getDataFolder(), databaseFile + LAYOUT_SUFFIX);
+        if (shardCount == 1) {
+            Files.deleteIfExists(layout.toPath());
+            return;
+        }
+        File part = new File(layout.getPath() + ".part");
+        Files.writeString(part.toPath(), String.valueOf(shardCount), StandardCharsets.UTF_8);
+        Files.move(part.toPath(), layout.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Every existing file that may hold records, whatever layout it was written under: the main
+     * database plus any shard file, including those left behind by an interrupted rebalance
+     */
+    private List<String> existingSourceFiles() {
+        List<String> files = new ArrayList<>();
+        if (new File(plugin.getDataFolder(), databaseFile).exists()) {
+            files.add(databaseFile);
+        }
+        int dot = databaseFile.lastIndexOf('.');
+        String base = dot > 0 ? databaseFile.substring(0, dot) : databaseFile;
+        String extension = dot > 0 ? databaseFile.substring(dot) : "";
+        Pattern pattern = Pattern.compile(Pattern.quote(base) + "-shard-(\\d+)" + Pattern.quote(extension));
+
+        Map<Integer, String> shardFiles = new TreeMap<>();
+        String[] names = plugin.getDataFolder().list();
+        if (names != null) {
+            for (String name : names) {
+                Matcher matcher = pattern.matcher(name);
+                if (matcher.matches()) {
+                    shardFiles.put(Integer.parseInt(matcher.group(1)), name);
+                }
+            }
+        }
+        files.addAll(shardFiles.values());
+        return files;
+    }
+
+    private void rebalance() {
+        plugin.getLogger().info("Moving temporary ranks into " + shardCount + " SQLite shard(s)...");
+        List<String> targetFiles = new ArrayList<>();
+        for (int i = 0; i < shardCount; i++) {
+            targetFiles.add(shardFileName(i));
+        }
+
+        Map<String, SQLiteStorageProvider> open = new LinkedHashMap<>();
+        Function<String, SQLiteStorageProvider> opener = file -> open.computeIfAbsent(file, name -> {
+            SQLiteStorageProvider storage = new SQLiteStorageProvider(plugin, name);
+            storage.initialize();
+            return storage;
+        });
+
+        int moved = 0;
+        boolean complete = true;
+        List<String> drained = new ArrayList<>();
+        try {
+            for (String sourceFile : existingSourceFiles()) {
+                SQLiteStorageProvider source = opener.apply(sourceFile);
+                // Stream the source and copy each target's batch as soon as it fills, so at most one batch
+                // per target is held; only the keys of copied records are kept for the delete afterwards
+                Map<String, List<TempRankData>> outgoing = new HashMap<>();
+                List<RankKey> copied = new ArrayList<>();
+                boolean scanned = source.forEach(RankFilter.all(), data -> {
+                    String targetFile = targetFiles.get(shardIndex(data.getPlayerUUID(), shardCount));
+                    if (!targetFile.equals(sourceFile)) {
+                        List<TempRankData> batch = outgoing.computeIfAbsent(targetFile, key -> new ArrayList<>(REBALANCE_BATCH));
+                        batch.add(data);
+                        if (batch.size() >= REBALANCE_BATCH) {
+                            copyBatch(opener.apply(targetFile), batch, copied);
+                        }
+                    }
+                    return true;
+                });
+                outgoing.forEach((targetFile, batch) -> copyBatch(opener.apply(targetFile), batch, copied));
+
+                // Copy before delete: a crash in between leaves a duplicate that the next run overwrites.
+                // The source is only written once its scan has finished.
+                for (int start = 0; start < copied.size(); start += REBALANCE_BATCH) {
+                    List<TempRankData> batch = new ArrayList<>(REBALANCE_BATCH);
+                    for (RankKey key : copied.subList(start, Math.min(copied.size(), start + REBALANCE_BATCH))) {
+                        // Removal only matches on player and rank
+                        batch.add(new TempRankData(key.playerUUID(), key.rankName(), 0));
+                    }
+                    source.removeTempRanks(batch);
+                }
+                moved += copied.size();
+
+                // Pending grants follow their player
+                Map<String, List<PendingGrant>> outgoingGrants = new HashMap<>();
+                for (PendingGrant grant : source.loadPendingGrants()) {
+                    String targetFile = targetFiles.get(shardIndex(grant.playerUUID(), shardCount));
+                    if (!targetFile.equals(sourceFile)) {
+                        outgoingGrants.computeIfAbsent(targetFile, key -> new ArrayList<>()).add(grant);
+                    }
+                }
+                for (Map.Entry<String, List<PendingGrant>> entry : outgoingGrants.entrySet()) {
+                    SQLiteStorageProvider target = opener.apply(entry.getKey());
+                    entry.getValue().forEach(target::savePendingGrant);
+                    source.removePendingGrants(entry.getValue());
+                    moved += entry.getValue().size();
+                }
+
+                if (!scanned) {
+                    plugin.getLogger().warning("Could not read every record of " + sourceFile + "; the rest are moved on the next start.");
+                    complete = false;
+                } else if (!targetFiles.contains(sourceFile) && !sourceFile.equals(databaseFile)) {
+                    drained.add(sourceFile);
+                }
+            }
+        } finally {
+            open.values().forEach(SQLiteStorageProvider::close);
+        }
+
+        for (String file : drained) {
+            for (String suffix : new String[] {"", "-wal", "-shm"}) {
+                File leftover = new File(plugin.getDataFolder(), file + suffix);
+                if (leftover.exists() && !leftover.delete()) {
+                    plugin.getLogger().warning("Could not delete drained shard file " + leftover.getName());
+                }
+            }
+        }
+
+        // Without the new layout on disk the move is repeated on the next start
+        if (complete) {
+            try {
+                writeLayout();
+            } catch (IOException e) {
+                plugin.getLogger().severe("Failed to record the SQLite shard layout: " + e.getMessage());
+                e.printStackTrace();
+            }
+        }
+        plugin.getLogger().info("Moved " + moved + " temporary rank(s) while rebalancing to " + shardCount + " shard(s)");
+    }
+
+    private static void copyBatch(SQLiteStorageProvider target, List<TempRankData> batch, List<RankKey> copied) {
+        target.saveTempRanks(batch);
+        for (TempRankData data : batch) {
+            copied.add(data.getKey());
+        }
+        batch.clear();
+    }
+
+    // ---- Routing ----
+
+    private Shard shardFor(UUID playerUUID) {
+        return shards.get(shardIndex(playerUUID, shards.size()));
+    }
+
+    private CompletableFuture<Void> execute(Shard shard, Consumer<SQLiteStorageProvider> write) {
+        return CompletableFuture.runAsync(() -> write.accept(shard.storage()), shard.writer());
+    }
+
+    /**
+     * Wait for writes running on several shards, rethrowing the first failure once all have finished
+     */
+    private void await(Collection<CompletableFuture<Void>> writes) {
+        RuntimeException failure = null;
+        for (CompletableFuture<Void> write : writes) {
+            try {
+                await(write);
+            } catch (RuntimeException e) {
+                if (failure == null) {
+                    failure = e;
+                } else {
+                    failure.addSuppressed(e);
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    private void await(CompletableFuture<Void> write) {
+        try {
+            write.join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : e;
+        }
+    }
+
+    private <T> CompletableFuture<T> submit(Shard shard, Function<SQLiteStorageProvider, T> query) {
+        return CompletableFuture.supplyAsync(() -> query.apply(shard.storage()), shard.writer());
+    }
+
+    /**
+     * Run the query on every shard at once and wait for all of them
+     */
+    private <T> List<T> fanOut(Function<SQLiteStorageProvider, T> query) {
+        List<CompletableFuture<T>> futures = new ArrayList<>(shards.size());
+        for (Shard shard : shards) {
+            futures.add(submit(shard, query));
+        }
+        List<T> results = new ArrayList<>(futures.size());
+        for (CompletableFuture<T> future : futures) {
+            results.add(future.join());
+        }
+        return results;
+    }
+
+    private <T> Map<Shard, List<T>> groupByShard(Collection<T> items, Function<T, UUID> key) {
+        Map<Shard, List<T>> groups = new HashMap<>();
+        for (T item : items) {
+            groups.computeIfAbsent(shardFor(key.apply(item)), shard -> new ArrayList<>()).add(item);
+        }
+        return groups;
+    }
+
+    /**
+     * Write each shard's part of the items on that shard, all shards at once, and wait for every one
+     */
+    private <T> void executeByShard(Collection<T> items, Function<T, UUID> key, BiConsumer<SQLiteStorageProvider, List<T>> write) {
+        List<CompletableFuture<Void>> writes = new ArrayList<>();
+        groupByShard(items, key).forEach((shard, batch) -> writes.add(execute(shard, storage -> write.accept(storage, batch))));
+        await(writes);
+    }
+
+    // ---- StorageProvider ----
+
+    @Override
+    public void close() {
+        for (Shard shard : shards) {
+            shard.writer().shutdown();
+        }
+        for (Shard shard : shards) {
+            try {
+                if (!shard.writer().awaitTermination(CLOSE_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                    plugin.getLogger().warning("Timed out waiting for SQLite shard " + shard.index() + " to finish its queued writes.");
+                    shard.writer().shutdownNow();
+                }
+            } catch (InterruptedException e) {
+                shard.writer().shutdownNow();
+                Thread.currentThread().interrupt();
+            }
+            shard.storage().close();
+        }
+    }
+
+    @Override
+    public boolean forEach(RankFilter filter, RankVisitor visitor) {
+        // Every shard is read at once, each behind its queued writes. Visitor calls are serialized
+        // across the shard threads, and once it stops the other shards stop at their next record.
+        Object visiting = new Object();
+        AtomicBoolean stopped = new AtomicBoolean();
+        RankVisitor serialized = data -> {
+            synchronized (visiting) {
+                if (stopped.get()) {
+                    return false;
+                }
+                if (!visitor.visit(data)) {
+                    stopped.set(true);
+                    return false;
+                }
+                return true;
+            }
+        };
+        boolean completed = true;
+        for (boolean shardCompleted : fanOut(storage -> storage.forEach(filter, serialized))) {
+            completed &= shardCompleted;
+        }
+        return completed && !stopped.get();
+    }
+
+    @Override
+    public void saveTempRank(TempRankData data) {
+        await(execute(shardFor(data.getPlayerUUID()), storage -> storage.saveTempRank(data)));
+    }
+
+    @Override
+    public void saveTempRanks(Collection<TempRankData> records) {
+        executeByShard(records, TempRankData::getPlayerUUID, SQLiteStorageProvider::saveTempRanks);
+    }
+
+    @Override
+    public void removeTempRank(UUID playerUUID, String rankName) {
+        await(execute(shardFor(playerUUID), storage -> storage.removeTempRank(playerUUID, rankName)));
+    }
+
+    @Override
+    public void removeTempRanks(Collection<TempRankData> records) {
+        executeByShard(records, TempRankData::getPlayerUUID, SQLiteStorageProvider::removeTempRanks);
+    }
+
+    @Override
+    public int extendTempRanks(long millis, String rankName, boolean includePaused, long activeAt) {
+        int changed = 0;
+        for (int shardChanged : fanOut(storage -> storage.extendTempRanks(millis, rankName, includePaused, activeAt))) {
+            changed += shardChanged;
+        }
+        return changed;
+    }
+
+    @Override
+    public Collection<PendingGrant> loadPendingGrants() {
+        List<PendingGrant> grants = new ArrayList<>();
+        fanOut(SQLiteStorageProvider::loadPendingGrants).forEach(grants::addAll);
+        return grants;
+    }
+
+    @Override
+    public void savePendingGrant(PendingGrant grant) {
+        await(execute(shardFor(grant.playerUUID()), storage -> storage.savePendingGrant(grant)));
+    }
+
+    @Override
+    public void removePendingGrants(Collection<PendingGrant> grants) {
+        executeByShard(grants, PendingGrant::playerUUID, SQLiteStorageProvider::removePendingGrants);
+    }
+
+    @Override
+    public StorageBackup createBackup() {
+        // Each shard's backup is taken behind the writes already queued on it. The copies run one
+        // after another, each from its own snapshot, so the set is not point-in-time across shards.
+        List<StorageBackup> backups = fanOut(SQLiteStorageProvider::createBackup);
+
+        return (target, throttle) -> {
+            List<File> parts = new ArrayList<>();
+            try {
+                for (int i = 0; i < backups.size(); i++) {
+                    File part = new File(target.getPath() + ".shard-" + i);
+                    parts.add(part);
+                    if (!backups.get(i).writeTo(part, throttle)) {
+                        return false;
+                    }
+                }
+
+                try (ZipOutputStream zip = new ZipOutputStream(new FileOutputStream(target))) {
+                    byte[] buffer = new byte[BACKUP_COPY_BUFFER];
+                    for (int i = 0; i < parts.size(); i++) {
+                        zip.putNextEntry(new ZipEntry(shardFileName(i)));
+                        try (InputStream in = new FileInputStream(parts.get(i))) {
+                            int read;
+                            while ((read = in.read(buffer)) > 0) {
+                                zip.write(buffer, 0, read);
+                            }
+                        }
+                        zip.closeEntry();
+                    }
+                }
+                return true;
+            } catch (IOException e) {
+                plugin.getLogger().severe("Failed to write sharded SQLite backup: " + e.getMessage());
+                e.printStackTrace();
+                return false;
+            } finally {
+                for (File part : parts) {
+                    part.delete();
+                }
+            }
+        };
+    }
+
+    @Override
+    public int getWriteLanes() {
+        return shards.size();
+    }
+
+    @Override
+    public int writeLaneOf(UUID playerUUID) {
+        return shardIndex(playerUUID, shards.size());
+    }
+
+    @Override
+    public String getBackupExtension() {
+        return "zip";
+    }
+
+    @Override
+    public String getProviderName() {
+        return "SQLite (" + shardCount + " shards)";
+    }
+}
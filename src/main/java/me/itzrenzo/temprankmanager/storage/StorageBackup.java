@@ -0,0 +1,17 @@
+package me.itzrenzo.temprankmanager.storage;
+
+import java.io.File;
+
+/**
+ * A point-in-time backup captured by {@link StorageProvider#createBackup()}.
+ * Capturing is cheap and happens on the calling thread; writing happens on a background thread.
+ */
+@FunctionalInterface
+public interface StorageBackup {
+
+    /**
+     * Write the captured data to the target file, throttled by the given throttle
+     * @return true if the backup was written completely
+     */
+    boolean writeTo(File target, IoThrottle throttle);
+}
@@ -1,5 +1,6 @@
 package me.itzrenzo.temprankmanager.storage;
 
+import me.itzrenzo.temprankmanager.PendingGrant;
 import me.itzrenzo.temprankmanager.TempRankData;
 
 import java.util.Collection;
@@ -18,9 +19,11 @@ public interface StorageProvider {
     void close();
     
     /**
-     * Load all temporary rank data
+     * Stream the matching records to the visitor one at a time, without collecting them first.
+     * The visitor is never called concurrently, but may run on a storage thread, and must not call back into the provider.
+     * @return true if every matching record was visited, false if the visitor stopped early or the scan failed
      */
-    Collection<TempRankData> loadAllData();
+    boolean forEach(RankFilter filter, RankVisitor visitor);
     
     /**
      * Save a temporary rank record
@@ -28,24 +31,77 @@ public interface StorageProvider {
     void saveTempRank(TempRankData data);
     
     /**
-     * Remove a temporary rank record
+     * Remove one rank of a player (rank name case-insensitive), leaving their other ranks alone
      */
-    void removeTempRank(UUID playerUUID);
+    void removeTempRank(UUID playerUUID, String rankName);
     
     /**
-     * Get a specific temporary rank record
+     * Save many records at once. Providers that support transactions write them in one.
      */
-    TempRankData getTempRank(UUID playerUUID);
+    default void saveTempRanks(Collection<TempRankData> records) {
+        for (TempRankData data : records) {
+            saveTempRank(data);
+        }
+    }
     
     /**
-     * Check if a player has a temporary rank
+     * Remove many records at once, each matched by player and rank. Providers that support transactions remove them in one.
      */
-    boolean hasTempRank(UUID playerUUID);
+    default void removeTempRanks(Collection<TempRankData> records) {
+        for (TempRankData data : records) {
+            removeTempRank(data.getPlayerUUID(), data.getRankName());
+        }
+    }
     
     /**
-     * Remove all expired ranks
+     * Add time to many ranks in one operation
+     * @param rankName only ranks with this name (case-insensitive), or null for all
+     * @param includePaused also add the time to the frozen remainder of paused ranks
+     * @param activeAt running ranks that expired at or before this time are left alone
+     * @return number of ranks changed
      */
-    void removeExpiredRanks();
+    int extendTempRanks(long millis, String rankName, boolean includePaused, long activeAt);
+    
+    /**
+     * Load every grant that has not started yet
+     */
+    Collection<PendingGrant> loadPendingGrants();
+    
+    /**
+     * Save a grant that starts later
+     */
+    void savePendingGrant(PendingGrant grant);
+    
+    /**
+     * Remove grants that were activated or cancelled
+     */
+    void removePendingGrants(Collection<PendingGrant> grants);
+    
+    /**
+     * Number of write lanes: writes for players in different lanes may be called at the same time,
+     * writes within one lane are called one after another
+     */
+    default int getWriteLanes() {
+        return 1;
+    }
+    
+    /**
+     * Write lane of a player, from 0 to {@link #getWriteLanes()} - 1. Must not change while the provider is open.
+     */
+    default int writeLaneOf(UUID playerUUID) {
+        return 0;
+    }
+    
+    /**
+     * Capture a consistent backup. Called from the storage write queue and must return quickly;
+     * the returned backup is written on a background thread.
+     */
+    StorageBackup createBackup();
+    
+    /**
+     * File extension for backups of this provider, without the dot
+     */
+    String getBackupExtension();
     
     /**
      * Get the name of this storage provider
@@ -0,0 +1,28 @@
+package me.itzrenzo.temprankmanager.storage;
+
+import java.nio.ByteBuffer;
+import java.util.UUID;
+
+/**
+ * Conversion between UUIDs and their 16-byte big-endian form used as SQLite keys
+ */
+public final class UuidBytes {
+
+    private UuidBytes() {
+    }
+
+    public static byte[] toBytes(UUID uuid) {
+        return ByteBuffer.allocate(16)
+                .putLong(uuid.getMostSignificantBits())
+                .putLong(uuid.getLeastSignificantBits())
+                .array();
+    }
+
+    public static UUID fromBytes(byte[] bytes) {
+        if (bytes == null || bytes.length != 16) {
+            throw new IllegalArgumentException("Expected 16 bytes for a UUID");
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        return new UUID(buffer.getLong(), buffer.getLong());
+    }
+}
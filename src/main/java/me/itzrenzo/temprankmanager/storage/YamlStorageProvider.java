@@ -1,20 +1,31 @@
 package me.itzrenzo.temprankmanager.storage;
 
+import me.itzrenzo.temprankmanager.PendingGrant;
+import me.itzrenzo.temprankmanager.RankKey;
 import me.itzrenzo.temprankmanager.TempRankData;
 import me.itzrenzo.temprankmanager.TempRankManager;
 import org.bukkit.configuration.file.FileConfiguration;
 import org.bukkit.configuration.file.YamlConfiguration;
 
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
 
 public class YamlStorageProvider implements StorageProvider {
     
+    private static final int BACKUP_CHUNK_BYTES = 64 * 1024;
+    
+    // Top-level section for grants that start later; every other top-level key is a player UUID
+    private static final String PENDING_SECTION = "pending";
+    
     private final TempRankManager plugin;
     private final String dataFileName;
-    private final Map<UUID, TempRankData> tempRanks = new ConcurrentHashMap<>();
+    private final Map<RankKey, TempRankData> tempRanks = new ConcurrentHashMap<>();
+    private final Map<UUID, PendingGrant> pendingGrants = new ConcurrentHashMap<>();
     private File dataFile;
     
     public YamlStorageProvider(TempRankManager plugin, String dataFileName) {
@@ -51,19 +62,40 @@ public class YamlStorageProvider implements StorageProvider {
     
     private void loadData() {
         tempRanks.clear();
+        pendingGrants.clear();
         FileConfiguration dataConfig = YamlConfiguration.loadConfiguration(dataFile);
+        int legacy = 0;
         
         for (String uuidString : dataConfig.getKeys(false)) {
+            if (uuidString.equals(PENDING_SECTION)) {
+                readPendingGrants(dataConfig);
+                continue;
+            }
             try {
                 UUID playerUUID = UUID.fromString(uuidString);
-                String rankName = dataConfig.getString(uuidString + ".rankName");
-                long expirationTimestamp = dataConfig.getLong(uuidString + ".expirationTimestamp");
-                boolean isPaused = dataConfig.getBoolean(uuidString + ".isPaused", false);
-                long timeLeftMillis = dataConfig.getLong(uuidString + ".timeLeftMillis", 0);
                 
-                if (rankName != null) {
-                    TempRankData data = new TempRankData(playerUUID, rankName, expirationTimestamp, isPaused, timeLeftMillis);
-                    tempRanks.put(playerUUID, data);
+                if (dataConfig.isString(uuidString + ".rankName")) {
+                    // Single-rank layout written before players could hold several ranks
+                    String rankName = dataConfig.getString(uuidString + ".rankName");
+                    long expirationTimestamp = dataConfig.getLong(uuidString + ".expirationTimestamp");
+                    boolean isPaused = dataConfig.getBoolean(uuidString + ".isPaused", false);
+                    long timeLeftMillis = dataConfig.getLong(uuidString + ".timeLeftMillis", 0);
+                    boolean playtime = dataConfig.getBoolean(uuidString + ".playtime", false);
+                    put(new TempRankData(playerUUID, rankName, expirationTimestamp, isPaused, timeLeftMillis, playtime));
+                    legacy++;
+                    continue;
+                }
+                
+                for (Map<?, ?> rank : dataConfig.getMapList(uuidString + ".ranks")) {
+                    Object rankName = rank.get("rankName");
+                    if (rankName == null) {
+                        continue;
+                    }
+                    put(new TempRankData(playerUUID, rankName.toString(),
+                            longValue(rank.get("expirationTimestamp")),
+                            Boolean.TRUE.equals(rank.get("isPaused")),
+                            longValue(rank.get("timeLeftMillis")),
+                            Boolean.TRUE.equals(rank.get("playtime"))));
                 }
             } catch (IllegalArgumentException e) {
                 plugin.getLogger().warning("Invalid UUID in YAML data file: " + uuidString);
@@ -71,20 +103,45 @@ public class YamlStorageProvider implements StorageProvider {
         }
         
         plugin.getLogger().info("Loaded " + tempRanks.size() + " temporary rank records from YAML.");
+        if (legacy > 0) {
+            saveData();
+            plugin.getLogger().info("Converted " + legacy + " single-rank record(s) to the per-rank layout.");
+        }
     }
     
-    private void saveData() {
-        FileConfiguration dataConfig = new YamlConfiguration();
-        
-        for (Map.Entry<UUID, TempRankData> entry : tempRanks.entrySet()) {
-            String uuidString = entry.getKey().toString();
-            TempRankData data = entry.getValue();
-            
-            dataConfig.set(uuidString + ".rankName", data.getRankName());
-            dataConfig.set(uuidString + ".expirationTimestamp", data.getExpirationTimestamp());
-            dataConfig.set(uuidString + ".isPaused", data.isPaused());
-            dataConfig.set(uuidString + ".timeLeftMillis", data.getTimeLeftMillis());
+    private void put(TempRankData data) {
+        tempRanks.put(data.getKey(), data);
+    }
+    
+    private static long longValue(Object value) {
+        return value instanceof Number number ? number.longValue() : 0;
+    }
+    
+    private void readPendingGrants(FileConfiguration dataConfig) {
+        for (String idString : dataConfig.getConfigurationSection(PENDING_SECTION).getKeys(false)) {
+            String path = PENDING_SECTION + "." + idString;
+            try {
+                String rankName = dataConfig.getString(path + ".rankName");
+                if (rankName != null) {
+                    PendingGrant grant = new PendingGrant(
+                            UUID.fromString(idString),
+                            UUID.fromString(dataConfig.getString(path + ".player")),
+                            dataConfig.getString(path + ".playerName"),
+                            rankName,
+                            dataConfig.getLong(path + ".durationMillis"),
+                            dataConfig.getLong(path + ".startAt"),
+                            dataConfig.getBoolean(path + ".playtime", false));
+                    pendingGrants.put(grant.id(), grant);
+                }
+            } catch (IllegalArgumentException | NullPointerException e) {
+                plugin.getLogger().warning("Invalid pending grant in YAML data file: " + idString);
+            }
         }
+    }
+    
+    // Writers on different threads must not interleave their file writes
+    private synchronized void saveData() {
+        FileConfiguration dataConfig = toConfiguration(tempRanks.values(), pendingGrants.values());
         
         try {
             dataConfig.save(dataFile);
@@ -93,51 +150,159 @@ public class YamlStorageProvider implements StorageProvider {
         }
     }
     
+    private static FileConfiguration toConfiguration(Collection<TempRankData> records, Collection<PendingGrant> grants) {
+        FileConfiguration dataConfig = new YamlConfiguration();
+        
+        // Each player's ranks as a list, so rank names never have to be escaped as keys
+        Map<UUID, List<Map<String, Object>>> byPlayer = new LinkedHashMap<>();
+        for (TempRankData data : records) {
+            Map<String, Object> rank = new LinkedHashMap<>();
+            rank.put("rankName", data.getRankName());
+            rank.put("expirationTimestamp", data.getExpirationTimestamp());
+            rank.put("isPaused", data.isPaused());
+            rank.put("timeLeftMillis", data.getTimeLeftMillis());
+            if (data.isPlaytime()) {
+                rank.put("playtime", true);
+            }
+            byPlayer.computeIfAbsent(data.getPlayerUUID(), key -> new ArrayList<>()).add(rank);
+        }
+        byPlayer.forEach((playerUUID, ranks) -> dataConfig.set(playerUUID + ".ranks", ranks));
+        
+        for (PendingGrant grant : grants) {
+            String path = PENDING_SECTION + "." + grant.id();
+            
+            dataConfig.set(path + ".player", grant.playerUUID().toString());
+            dataConfig.set(path + ".playerName", grant.playerName());
+            dataConfig.set(path + ".rankName", grant.rankName());
+            dataConfig.set(path + ".durationMillis", grant.durationMillis());
+            dataConfig.set(path + ".startAt", grant.startAt());
+            if (grant.playtime()) {
+                dataConfig.set(path + ".playtime", true);
+            }
+        }
+        
+        return dataConfig;
+    }
+    
+    @Override
+    public int extendTempRanks(long millis, String rankName, boolean includePaused, long activeAt) {
+        int changed = 0;
+        // One pass over the map and a single save
+        for (TempRankData data : tempRanks.values()) {
+            if (rankName != null && !data.getRankName().equalsIgnoreCase(rankName)) {
+                continue;
+            }
+            TempRankData updated;
+            if (data.isPaused()) {
+                if (!includePaused) {
+                    continue;
+                }
+                updated = data.withExpirationTimestamp(data.getExpirationTimestamp() + millis).withTimeLeftMillis(data.getTimeLeftMillis() + millis);
+            } else if (data.getExpirationTimestamp() > activeAt) {
+                updated = data.withExpirationTimestamp(data.getExpirationTimestamp() + millis);
+            } else {
+                continue;
+            }
+            if (tempRanks.replace(data.getKey(), data, updated)) {
+                changed++;
+            }
+        }
+        
+        if (changed > 0) {
+            saveData();
+        }
+        return changed;
+    }
+    
     @Override
-    public Collection<TempRankData> loadAllData() {
-        return new ArrayList<>(tempRanks.values());
+    public StorageBackup createBackup() {
+        // Snapshot point: records are immutable, so copying the references is enough
+        List<TempRankData> snapshot = new ArrayList<>(tempRanks.values());
+        List<PendingGrant> pendingSnapshot = new ArrayList<>(pendingGrants.values());
+        
+        return (target, throttle) -> {
+            byte[] content = toConfiguration(snapshot, pendingSnapshot).saveToString().getBytes(StandardCharsets.UTF_8);
+            try (OutputStream out = new FileOutputStream(target)) {
+                for (int offset = 0; offset < content.length; offset += BACKUP_CHUNK_BYTES) {
+                    int length = Math.min(BACKUP_CHUNK_BYTES, content.length - offset);
+                    out.write(content, offset, length);
+                    throttle.acquire(length);
+                }
+                return true;
+            } catch (IOException e) {
+                plugin.getLogger().severe("Failed to write YAML backup: " + e.getMessage());
+                return false;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        };
     }
     
     @Override
-    public void saveTempRank(TempRankData data) {
-        tempRanks.put(data.getPlayerUUID(), data);
-        saveData();
+    public Collection<PendingGrant> loadPendingGrants() {
+        return new ArrayList<>(pendingGrants.values());
     }
     
     @Override
-    public void removeTempRank(UUID playerUUID) {
-        tempRanks.remove(playerUUID);
+    public void savePendingGrant(PendingGrant grant) {
+        pendingGrants.put(grant.id(), grant);
         saveData();
     }
     
     @Override
-    public TempRankData getTempRank(UUID playerUUID) {
-        return tempRanks.get(playerUUID);
+    public void removePendingGrants(Collection<PendingGrant> grants) {
+        if (grants.isEmpty()) {
+            return;
+        }
+        for (PendingGrant grant : grants) {
+            pendingGrants.remove(grant.id());
+        }
+        saveData();
     }
     
     @Override
-    public boolean hasTempRank(UUID playerUUID) {
-        return tempRanks.containsKey(playerUUID);
+    public String getBackupExtension() {
+        return "yml";
     }
     
     @Override
-    public void removeExpiredRanks() {
-        List<UUID> toRemove = new ArrayList<>();
-        for (Map.Entry<UUID, TempRankData> entry : tempRanks.entrySet()) {
-            TempRankData data = entry.getValue();
-            if (!data.isPaused() && System.currentTimeMillis() >= data.getExpirationTimestamp()) {
-                toRemove.add(entry.getKey());
+    public boolean forEach(RankFilter filter, RankVisitor visitor) {
+        // Straight over the live map; records are immutable, so nothing needs copying
+        for (TempRankData data : tempRanks.values()) {
+            if (filter.matches(data) && !visitor.visit(data)) {
+                return false;
             }
         }
-        
-        for (UUID uuid : toRemove) {
-            tempRanks.remove(uuid);
+        return true;
+    }
+    
+    @Override
+    public void saveTempRank(TempRankData data) {
+        put(data);
+        saveData();
+    }
+    
+    @Override
+    public void saveTempRanks(Collection<TempRankData> records) {
+        for (TempRankData data : records) {
+            put(data);
         }
-        
-        if (!toRemove.isEmpty()) {
-            saveData();
-            plugin.getLogger().info("Removed " + toRemove.size() + " expired rank(s) from YAML storage.");
+        saveData();
+    }
+    
+    @Override
+    public void removeTempRank(UUID playerUUID, String rankName) {
+        tempRanks.remove(RankKey.of(playerUUID, rankName));
+        saveData();
+    }
+    
+    @Override
+    public void removeTempRanks(Collection<TempRankData> records) {
+        for (TempRankData data : records) {
+            tempRanks.remove(data.getKey());
         }
+        saveData();
     }
     
     @Override
@@ -0,0 +1,179 @@
+package me.itzrenzo.temprankmanager.storage.migration;
+
+import me.itzrenzo.temprankmanager.storage.UuidBytes;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.UUID;
+import java.util.logging.Logger;
+
+/**
+ * Version 2: store player_uuid as a 16-byte BLOB in a WITHOUT ROWID table, so the primary key
+ * is the table itself and lookups compare 16 bytes instead of 36 characters.
+ * <p>
+ * Rows are copied in batches; each batch commits together with a cursor in schema_migration_progress,
+ * so an interrupted migration resumes where it stopped. The old table is swapped out, and the progress
+ * table dropped, in one final transaction.
+ */
+class BinaryUuidKeyMigration implements SchemaMigration {
+
+    private static final int BATCH_SIZE = 1000;
+    private static final String TARGET_TABLE = "temp_ranks_binary";
+
+    @Override
+    public int getVersion() {
+        return 2;
+    }
+
+    @Override
+    public String getDescription() {
+        return "Store player_uuid as 16-byte BLOB keys";
+    }
+
+    @Override
+    public void migrate(Connection connection, Logger logger) throws SQLException {
+        if (isAlreadyBinary(connection)) {
+            // The swap committed but the version was not recorded
+            return;
+        }
+
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute("""
+                CREATE TABLE IF NOT EXISTS temp_ranks_binary (
+                    player_uuid BLOB PRIMARY KEY NOT NULL,
+                    rank_name TEXT NOT NULL,
+                    expiration_timestamp INTEGER NOT NULL,
+                    is_paused INTEGER NOT NULL DEFAULT 0,
+                    time_left_millis INTEGER NOT NULL DEFAULT 0
+                ) WITHOUT ROWID
+                """);
+            stmt.execute("""
+                CREATE TABLE IF NOT EXISTS schema_migration_progress (
+                    version INTEGER PRIMARY KEY,
+                    cursor INTEGER NOT NULL
+                )
+                """);
+        }
+
+        long cursor = readCursor(connection);
+        long total = count(connection, "SELECT COUNT(*) FROM temp_ranks");
+        long copied = count(connection, "SELECT COUNT(*) FROM temp_ranks WHERE rowid <= " + cursor);
+        if (cursor > 0) {
+            logger.info("Resuming UUID key migration at " + copied + "/" + total + " rows");
+        }
+
+        int lastReportedPercent = -1;
+        boolean autoCommit = connection.getAutoCommit();
+        connection.setAutoCommit(false);
+        try {
+            while (true) {
+                int batch = copyBatch(connection, logger, cursor);
+                if (batch == 0) {
+                    break;
+                }
+                cursor = readCursor(connection);
+                copied += batch;
+
+                int percent = total > 0 ? (int) (copied * 100 / total) : 100;
+                if (percent / 10 != lastReportedPercent / 10) {
+                    logger.info("Migrating UUID keys: " + copied + "/" + total + " rows (" + percent + "%)");
+                    lastReportedPercent = percent;
+                }
+            }
+
+            try (Statement stmt = connection.createStatement()) {
+                stmt.execute("DROP TABLE temp_ranks");
+                stmt.execute("ALTER TABLE " + TARGET_TABLE + " RENAME TO temp_ranks");
+                // Rank-filtered listings and expiry-ordered scans (cleanup, next-to-expire)
+                stmt.execute("CREATE INDEX IF NOT EXISTS idx_temp_ranks_rank ON temp_ranks (rank_name COLLATE NOCASE, expiration_timestamp)");
+                stmt.execute("CREATE INDEX IF NOT EXISTS idx_temp_ranks_expiration ON temp_ranks (is_paused, expiration_timestamp)");
+                // Only this migration keeps progress
+                stmt.execute("DROP TABLE schema_migration_progress");
+            }
+            connection.commit();
+        } catch (SQLException e) {
+            connection.rollback();
+            throw e;
+        } finally {
+            connection.setAutoCommit(autoCommit);
+        }
+    }
+
+    /**
+     * Copy the next batch after the cursor and advance the cursor in the same transaction
+     * @return number of source rows consumed
+     */
+    private int copyBatch(Connection connection, Logger logger, long cursor) throws SQLException {
+        String select = "SELECT rowid, * FROM temp_ranks WHERE rowid > ? ORDER BY rowid LIMIT " + BATCH_SIZE;
+        String insert = "INSERT OR REPLACE INTO " + TARGET_TABLE + " (player_uuid, rank_name, expiration_timestamp, is_paused, time_left_millis) VALUES (?, ?, ?, ?, ?)";
+
+        int consumed = 0;
+        long lastRowId = cursor;
+        try (PreparedStatement selectStmt = connection.prepareStatement(select);
+             PreparedStatement insertStmt = connection.prepareStatement(insert)) {
+            selectStmt.setLong(1, cursor);
+            try (ResultSet rs = selectStmt.executeQuery()) {
+                while (rs.next()) {
+                    consumed++;
+                    lastRowId = rs.getLong(1);
+                    UUID playerUUID;
+                    try {
+                        playerUUID = UUID.fromString(rs.getString("player_uuid"));
+                    } catch (IllegalArgumentException e) {
+                        logger.warning("Skipping temp rank row with invalid UUID: " + rs.getString("player_uuid"));
+                        continue;
+                    }
+                    insertStmt.setBytes(1, UuidBytes.toBytes(playerUUID));
+                    insertStmt.setString(2, rs.getString("rank_name"));
+                    insertStmt.setLong(3, rs.getLong("expiration_timestamp"));
+                    insertStmt.setInt(4, rs.getInt("is_paused"));
+                    insertStmt.setLong(5, rs.getLong("time_left_millis"));
+                    insertStmt.addBatch();
+                }
+            }
+            if (consumed == 0) {
+                return 0;
+            }
+            insertStmt.executeBatch();
+        }
+
+        try (PreparedStatement stmt = connection.prepareStatement("INSERT OR REPLACE INTO schema_migration_progress (version, cursor) VALUES (?, ?)")) {
+            stmt.setInt(1, getVersion());
+            stmt.setLong(2, lastRowId);
+            stmt.executeUpdate();
+        }
+        connection.commit();
+        return consumed;
+    }
+
+    private long readCursor(Connection connection) throws SQLException {
+        try (PreparedStatement stmt = connection.prepareStatement("SELECT cursor FROM schema_migration_progress WHERE version = ?")) {
+            stmt.setInt(1, getVersion());
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next() ? rs.getLong(1) : 0;
+            }
+        }
+    }
+
+    private static long count(Connection connection, String query) throws SQLException {
+        try (Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery(query)) {
+            return rs.next() ? rs.getLong(1) : 0;
+        }
+    }
+
+    private static boolean isAlreadyBinary(Connection connection) throws SQLException {
+        try (Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery("PRAGMA table_info(temp_ranks)")) {
+            while (rs.next()) {
+                if (rs.getString("name").equalsIgnoreCase("player_uuid")) {
+                    return "BLOB".equalsIgnoreCase(rs.getString("type"));
+                }
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,38 @@
+package me.itzrenzo.temprankmanager.storage.migration;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.logging.Logger;
+
+/**
+ * Version 1: the original layout with text UUID keys. Databases created before schema
+ * versioning already have this table, so it only records the baseline for them.
+ */
+class CreateTempRanksMigration implements SchemaMigration {
+
+    @Override
+    public int getVersion() {
+        return 1;
+    }
+
+    @Override
+    public String getDescription() {
+        return "Create temp_ranks table";
+    }
+
+    @Override
+    public void migrate(Connection connection, Logger logger) throws SQLException {
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute("""
+                CREATE TABLE IF NOT EXISTS temp_ranks (
+                    player_uuid TEXT PRIMARY KEY,
+                    rank_name TEXT NOT NULL,
+                    expiration_timestamp INTEGER NOT NULL,
+                    is_paused INTEGER NOT NULL DEFAULT 0,
+                    time_left_millis INTEGER NOT NULL DEFAULT 0
+                )
+                """);
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package me.itzrenzo.temprankmanager.storage.migration;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.logging.Logger;
+
+/**
+ * Version 4: grants that start at a future time, read in start order at startup
+ */
+class PendingGrantsMigration implements SchemaMigration {
+
+    @Override
+    public int getVersion() {
+        return 4;
+    }
+
+    @Override
+    public String getDescription() {
+        return "Add pending grants table";
+    }
+
+    @Override
+    public void migrate(Connection connection, Logger logger) throws SQLException {
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute("""
+                CREATE TABLE IF NOT EXISTS temp_rank_pending (
+                    grant_id BLOB PRIMARY KEY,
+                    player_uuid BLOB NOT NULL,
+                    player_name TEXT,
+                    rank_name TEXT NOT NULL,
+                    duration_millis INTEGER NOT NULL,
+                    start_at INTEGER NOT NULL,
+                    playtime INTEGER NOT NULL DEFAULT 0
+                )
+                """);
+            stmt.execute("CREATE INDEX IF NOT EXISTS idx_temp_rank_pending_start ON temp_rank_pending (start_at)");
+        }
+    }
+}
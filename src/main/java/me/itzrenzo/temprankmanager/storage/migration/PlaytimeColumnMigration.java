@@ -0,0 +1,38 @@
+package me.itzrenzo.temprankmanager.storage.migration;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.logging.Logger;
+
+/**
+ * Version 3: flag for ranks that only count down while the player is online
+ */
+class PlaytimeColumnMigration implements SchemaMigration {
+
+    @Override
+    public int getVersion() {
+        return 3;
+    }
+
+    @Override
+    public String getDescription() {
+        return "Add playtime countdown flag";
+    }
+
+    @Override
+    public void migrate(Connection connection, Logger logger) throws SQLException {
+        try (Statement stmt = connection.createStatement()) {
+            // ALTER TABLE has no IF NOT EXISTS for columns
+            try (ResultSet rs = stmt.executeQuery("PRAGMA table_info(temp_ranks)")) {
+                while (rs.next()) {
+                    if (rs.getString("name").equalsIgnoreCase("playtime")) {
+                        return;
+                    }
+                }
+            }
+            stmt.execute("ALTER TABLE temp_ranks ADD COLUMN playtime INTEGER NOT NULL DEFAULT 0");
+        }
+    }
+}
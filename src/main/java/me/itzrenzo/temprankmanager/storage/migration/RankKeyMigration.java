@@ -0,0 +1,79 @@
+package me.itzrenzo.temprankmanager.storage.migration;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.logging.Logger;
+
+/**
+ * Version 5: key temp_ranks by (player_uuid, rank_name) so a player can hold several ranks at once.
+ * Existing databases hold at most one row per player, so every row carries over unchanged; the
+ * copy and table swap happen in one transaction. rank_name compares case-insensitively, matching
+ * how rank names are looked up everywhere else.
+ */
+class RankKeyMigration implements SchemaMigration {
+
+    @Override
+    public int getVersion() {
+        return 5;
+    }
+
+    @Override
+    public String getDescription() {
+        return "Key temp ranks by player and rank";
+    }
+
+    @Override
+    public void migrate(Connection connection, Logger logger) throws SQLException {
+        if (isAlreadyKeyedByRank(connection)) {
+            // The swap committed but the version was not recorded
+            return;
+        }
+
+        boolean autoCommit = connection.getAutoCommit();
+        connection.setAutoCommit(false);
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute("DROP TABLE IF EXISTS temp_ranks_by_rank");
+            stmt.execute("""
+                CREATE TABLE temp_ranks_by_rank (
+                    player_uuid BLOB NOT NULL,
+                    rank_name TEXT NOT NULL COLLATE NOCASE,
+                    expiration_timestamp INTEGER NOT NULL,
+                    is_paused INTEGER NOT NULL DEFAULT 0,
+                    time_left_millis INTEGER NOT NULL DEFAULT 0,
+                    playtime INTEGER NOT NULL DEFAULT 0,
+                    PRIMARY KEY (player_uuid, rank_name)
+                ) WITHOUT ROWID
+                """);
+            int copied = stmt.executeUpdate("""
+                INSERT OR REPLACE INTO temp_ranks_by_rank
+                (player_uuid, rank_name, expiration_timestamp, is_paused, time_left_millis, playtime)
+                SELECT player_uuid, rank_name, expiration_timestamp, is_paused, time_left_millis, playtime FROM temp_ranks
+                """);
+            stmt.execute("DROP TABLE temp_ranks");
+            stmt.execute("ALTER TABLE temp_ranks_by_rank RENAME TO temp_ranks");
+            stmt.execute("CREATE INDEX IF NOT EXISTS idx_temp_ranks_rank ON temp_ranks (rank_name COLLATE NOCASE, expiration_timestamp)");
+            stmt.execute("CREATE INDEX IF NOT EXISTS idx_temp_ranks_expiration ON temp_ranks (is_paused, expiration_timestamp)");
+            connection.commit();
+            logger.info("Moved " + copied + " temporary rank(s) to the per-rank layout");
+        } catch (SQLException e) {
+            connection.rollback();
+            throw e;
+        } finally {
+            connection.setAutoCommit(autoCommit);
+        }
+    }
+
+    private static boolean isAlreadyKeyedByRank(Connection connection) throws SQLException {
+        try (Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery("PRAGMA table_info(temp_ranks)")) {
+            while (rs.next()) {
+                if (rs.getString("name").equalsIgnoreCase("rank_name")) {
+                    return rs.getInt("pk") > 0;
+                }
+            }
+        }
+        return false;
+    }
+}
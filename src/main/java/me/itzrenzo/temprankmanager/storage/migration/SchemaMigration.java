@@ -0,0 +1,23 @@
+package me.itzrenzo.temprankmanager.storage.migration;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.logging.Logger;
+
+/**
+ * One step in the SQLite schema history. Versions are applied in ascending order and each runs once.
+ */
+public interface SchemaMigration {
+
+    /** Version this migration brings the schema to */
+    int getVersion();
+
+    /** Short description stored in schema_version */
+    String getDescription();
+
+    /**
+     * Apply the migration. Long migrations may commit in batches, but must be safe to run again
+     * if the server stops before the runner records the version.
+     */
+    void migrate(Connection connection, Logger logger) throws SQLException;
+}
@@ -0,0 +1,92 @@
+package me.itzrenzo.temprankmanager.storage.migration;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.logging.Logger;
+
+/**
+ * Applies pending {@link SchemaMigration}s in version order and records each in the schema_version table
+ */
+public class SchemaMigrator {
+
+    private final Logger logger;
+    private final List<SchemaMigration> migrations;
+
+    public SchemaMigrator(Logger logger, List<SchemaMigration> migrations) {
+        this.logger = logger;
+        this.migrations = new ArrayList<>(migrations);
+        this.migrations.sort(Comparator.comparingInt(SchemaMigration::getVersion));
+    }
+
+    /**
+     * The migrations that make up the temp_ranks schema, oldest first
+     */
+    public static List<SchemaMigration> defaultMigrations() {
+        return List.of(
+                new CreateTempRanksMigration(),
+                new BinaryUuidKeyMigration(),
+                new PlaytimeColumnMigration(),
+                new PendingGrantsMigration(),
+                new RankKeyMigration());
+    }
+
+    /**
+     * Bring the database up to the latest known version
+     * @return the schema version after migrating
+     */
+    public int migrate(Connection connection) throws SQLException {
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute("""
+                CREATE TABLE IF NOT EXISTS schema_version (
+                    version INTEGER PRIMARY KEY,
+                    description TEXT NOT NULL,
+                    applied_at INTEGER NOT NULL
+                )
+                """);
+        }
+
+        int current = getCurrentVersion(connection);
+        int latest = migrations.isEmpty() ? 0 : migrations.get(migrations.size() - 1).getVersion();
+        if (current > latest) {
+            logger.warning("Database schema version " + current + " is newer than this plugin supports (" + latest + "). Was it written by a newer version?");
+            return current;
+        }
+
+        for (SchemaMigration migration : migrations) {
+            if (migration.getVersion() <= current) {
+                continue;
+            }
+
+            logger.info("Applying database migration " + migration.getVersion() + ": " + migration.getDescription());
+            long started = System.currentTimeMillis();
+            migration.migrate(connection, logger);
+            recordVersion(connection, migration);
+            current = migration.getVersion();
+            logger.info("Database migration " + migration.getVersion() + " finished in " + (System.currentTimeMillis() - started) + " ms");
+        }
+
+        return current;
+    }
+
+    public static int getCurrentVersion(Connection connection) throws SQLException {
+        try (Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT MAX(version) FROM schema_version")) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+
+    private void recordVersion(Connection connection, SchemaMigration migration) throws SQLException {
+        try (PreparedStatement stmt = connection.prepareStatement("INSERT OR REPLACE INTO schema_version (version, description, applied_at) VALUES (?, ?, ?)")) {
+            stmt.setInt(1, migration.getVersion());
+            stmt.setString(2, migration.getDescription());
+            stmt.setLong(3, System.currentTimeMillis());
+            stmt.executeUpdate();
+        }
+    }
+}
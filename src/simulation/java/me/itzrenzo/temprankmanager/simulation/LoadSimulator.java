@@ -0,0 +1,317 @@
+package me.itzrenzo.temprankmanager.simulation;
+
+import me.itzrenzo.temprankmanager.TempRankPlaceholders;
+import me.itzrenzo.temprankmanager.TimeUtil;
+import org.bukkit.command.CommandExecutor;
+import org.bukkit.command.PluginCommand;
+import org.bukkit.event.server.ServerCommandEvent;
+import org.bukkit.plugin.PluginDescriptionFile;
+import org.bukkit.plugin.java.JavaPluginLoader;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+
+/**
+ * Headless soak test for TempRankManager. Runs the real plugin classes against a simulated server,
+ * scheduler, player base and Vault backend, once per storage provider, and writes a Markdown report.
+ *
+ * Run with: mvn -P simulation compile exec:java -Dexec.args="--players 100000 --providers sqlite"
+ */
+public class LoadSimulator {
+    private static final long SIMULATION_EPOCH = 1_735_689_600_000L; // 2025-01-01T00:00:00Z
+    private static final String[] POLLED_PLACEHOLDERS = {"rank", "time_formatted", "time_raw", "is_paused"};
+
+    private final SimulationOptions options;
+    private final SimulatedClock clock = new SimulatedClock(SIMULATION_EPOCH);
+    private final Logger logger = Logger.getLogger("LoadSimulator");
+    private final SimulatedScheduler scheduler = new SimulatedScheduler(clock, logger);
+    private final SimulatedPermission permission;
+    private final SimulatedServer server;
+    private final SimulationReport report;
+
+    private SimulatedTempRankManager plugin;
+    private StorageOpCounter storageCounter;
+    private CommandExecutor commandExecutor;
+    private TempRankPlaceholders placeholders;
+    private List<UUID> playerIds;
+    private List<String> playerNames;
+
+    public LoadSimulator(SimulationOptions options) {
+        this.options = options;
+        this.permission = new SimulatedPermission(withDefaultGroup(options.ranks()));
+        this.server = SimulatedServer.install(scheduler);
+        this.report = new SimulationReport(options);
+        TimeUtil.setClock(clock);
+    }
+
+    public static void main(String[] args) throws Exception {
+        SimulationOptions options = SimulationOptions.parse(args);
+        LoadSimulator simulator = new LoadSimulator(options);
+        for (String provider : options.providers()) {
+            simulator.runProvider(provider);
+        }
+        simulator.report.write(options.reportFile());
+        System.out.println(simulator.report.render());
+        System.out.println("Report written to " + options.reportFile().getAbsolutePath());
+        System.exit(0);
+    }
+
+    private static String[] withDefaultGroup(List<String> ranks) {
+        List<String> groups = new ArrayList<>(ranks);
+        groups.add("default");
+        return groups.toArray(new String[0]);
+    }
+
+    /**
+     * Run every scenario phase against one storage provider with a freshly enabled plugin
+     */
+    public void runProvider(String provider) throws Exception {
+        logger.info("Starting simulation run for " + provider + " storage");
+        setUp(provider);
+        try {
+            report.addPhase(provider, runGivePhase());
+            report.addPhase(provider, runPlaceholderPhase());
+            report.addPhase(provider, runWhitelistPhase());
+            report.addPhase(provider, runExpirationPhase());
+        } finally {
+            tearDown();
+        }
+    }
+
+    private void setUp(String provider) throws Exception {
+        scheduler.reset();
+        server.reset();
+        permission.reset();
+
+        File dataFolder = new File(options.workDirectory(), provider);
+        deleteRecursively(dataFolder.toPath());
+        dataFolder.mkdirs();
+
+        PluginDescriptionFile description;
+        try (InputStream in = LoadSimulator.class.getClassLoader().getResourceAsStream("plugin.yml")) {
+            if (in == null) {
+                throw new IllegalStateException("plugin.yml not found on the classpath");
+            }
+            description = new PluginDescriptionFile(new InputStreamReader(in, StandardCharsets.UTF_8));
+        }
+
+        plugin = new SimulatedTempRankManager(new JavaPluginLoader(server.getServer()), description, dataFolder, new File(dataFolder, "TempRankManager.jar"));
+        plugin.getLogger().setLevel(options.verbose() ? Level.INFO : Level.WARNING);
+        server.registerPlugin(plugin);
+        server.registerCommand("temprank", plugin);
+        server.registerPermission(permission, plugin);
+
+        plugin.saveDefaultConfig();
+        plugin.getConfig().set("storage.type", provider);
+
+        Random random = new Random(options.seed());
+        playerIds = new ArrayList<>(options.players());
+        playerNames = new ArrayList<>(options.players());
+        for (int i = 0; i < options.players(); i++) {
+            UUID uuid = new UUID(random.nextLong(), random.nextLong());
+            String name = "Player" + i;
+            playerIds.add(uuid);
+            playerNames.add(name);
+            server.addPlayer(uuid, name, i < options.onlinePlayers());
+        }
+
+        plugin.simulateEnabled(true);
+        storageCounter = StorageOpCounter.install(plugin.getDataManager());
+        PluginCommand command = plugin.getCommand("temprank");
+        commandExecutor = command.getExecutor();
+        placeholders = new TempRankPlaceholders(plugin);
+    }
+
+    private void tearDown() {
+        if (plugin != null) {
+            plugin.simulateEnabled(false);
+        }
+        scheduler.reset();
+        plugin = null;
+    }
+
+    private PhaseMetrics runGivePhase() {
+        PhaseMetrics phase = new PhaseMetrics("mass give");
+        Random random = new Random(options.seed() + 1);
+        int total = options.players() + (int) (options.players() * options.extraGiveRatio());
+        PhaseContext context = begin(phase);
+
+        int issued = 0;
+        while (issued < total) {
+            if (context.timedOut()) {
+                phase.setNote("aborted after " + issued + " of " + total + " gives (phase timeout)");
+                break;
+            }
+            int batchEnd = Math.min(total, issued + options.givesPerTick());
+            int from = issued;
+            tick(phase, () -> {
+                for (int i = from; i < batchEnd; i++) {
+                    int playerIndex = i < options.players() ? i : random.nextInt(options.players());
+                    String rank = options.ranks().get(random.nextInt(options.ranks().size()));
+                    String duration = options.durations().get(random.nextInt(options.durations().size()));
+                    commandExecutor.onCommand(server.getConsole(), null, "temprank",
+                            new String[]{"give", playerNames.get(playerIndex), rank, duration});
+                }
+            });
+            issued = batchEnd;
+        }
+
+        return end(context);
+    }
+
+    private PhaseMetrics runPlaceholderPhase() {
+        PhaseMetrics phase = new PhaseMetrics("placeholder polling");
+        PhaseContext context = begin(phase);
+        int online = Math.min(options.onlinePlayers(), options.players());
+        int interval = Math.max(1, options.pollIntervalTicks());
+        long ticks = options.pollSeconds() * 20L;
+
+        for (long t = 0; t < ticks; t++) {
+            if (context.timedOut()) {
+                phase.setNote("aborted after " + t + " of " + ticks + " ticks (phase timeout)");
+                break;
+            }
+            // Spread each scoreboard refresh over the interval the way per-player boards are staggered
+            int slot = (int) (t % interval);
+            tick(phase, () -> {
+                for (int i = slot; i < online; i += interval) {
+                    var player = server.getKnownPlayer(playerIds.get(i));
+                    for (String params : POLLED_PLACEHOLDERS) {
+                        placeholders.onRequest(player, params);
+                    }
+                }
+            });
+        }
+
+        return end(context);
+    }
+
+    private PhaseMetrics runWhitelistPhase() {
+        PhaseMetrics phase = new PhaseMetrics("whitelist toggles");
+        PhaseContext context = begin(phase);
+
+        int toggles = options.whitelistToggles() + (options.whitelistToggles() % 2); // always finish with whitelist off
+        for (int i = 0; i < toggles; i++) {
+            if (context.timedOut()) {
+                phase.setNote("aborted after " + i + " of " + toggles + " toggles (phase timeout)");
+                break;
+            }
+            boolean enable = !server.hasWhitelist();
+            tick(phase, () -> {
+                server.setWhitelist(enable);
+                plugin.onServerCommand(new ServerCommandEvent(server.getConsole(), enable ? "whitelist on" : "whitelist off"));
+            });
+            runTicks(phase, options.toggleIntervalTicks(), context);
+        }
+
+        return end(context);
+    }
+
+    private PhaseMetrics runExpirationPhase() {
+        PhaseMetrics phase = new PhaseMetrics("mass expiration");
+        PhaseContext context = begin(phase);
+
+        long longest = options.durations().stream().mapToLong(TimeUtil::parseTime).max().orElse(0);
+        long targetTick = scheduler.getCurrentTick() + (longest + 60_000L) / SimulatedScheduler.MILLIS_PER_TICK;
+        fastForward(phase, targetTick, context);
+
+        return end(context);
+    }
+
+    /**
+     * Run one main-thread tick: the scenario's own work first (commands, polls), then due scheduler tasks
+     */
+    private void tick(PhaseMetrics phase, Runnable work) {
+        scheduler.advanceTick();
+        long start = System.nanoTime();
+        if (work != null) {
+            work.run();
+        }
+        scheduler.runDueTasks();
+        phase.recordTick(System.nanoTime() - start);
+        phase.sampleHeap();
+    }
+
+    private void runTicks(PhaseMetrics phase, long ticks, PhaseContext context) {
+        fastForward(phase, scheduler.getCurrentTick() + ticks, context);
+    }
+
+    /**
+     * Advance to the target tick, executing only ticks that have due tasks and skipping idle ones
+     */
+    private void fastForward(PhaseMetrics phase, long targetTick, PhaseContext context) {
+        while (!context.timedOut()) {
+            long next = scheduler.nextDueTick();
+            if (next > targetTick) {
+                break;
+            }
+            if (next - 1 > scheduler.getCurrentTick()) {
+                phase.addSkippedTicks(next - 1 - scheduler.getCurrentTick());
+                scheduler.skipTo(next - 1);
+            }
+            tick(phase, null);
+        }
+        if (context.timedOut() && phase.getNote() == null) {
+            phase.setNote("aborted at tick " + scheduler.getCurrentTick() + " (phase timeout)");
+        }
+        phase.addSkippedTicks(Math.max(0, targetTick - scheduler.getCurrentTick()));
+        scheduler.skipTo(targetTick);
+    }
+
+    private PhaseContext begin(PhaseMetrics phase) {
+        scheduler.awaitAsync(10_000);
+        return new PhaseContext(phase, System.nanoTime(), clock.millis(), storageCounter.snapshot(),
+                permission.getMutationCount(), server.getConsoleMessageCount(), scheduler.getTaskErrors(),
+                options.phaseTimeoutSeconds() * 1_000_000_000L);
+    }
+
+    private PhaseMetrics end(PhaseContext context) {
+        scheduler.awaitAsync(10_000);
+        PhaseMetrics phase = context.phase();
+        phase.setWallNanos(System.nanoTime() - context.wallStart());
+        phase.setSimulatedMillis(clock.millis() - context.simulatedStart());
+        phase.setStorageOps(context.storageBefore(), storageCounter.snapshot());
+        phase.setPermissionMutations(permission.getMutationCount() - context.permissionBefore());
+        phase.setSenderMessages(server.getConsoleMessageCount() - context.messagesBefore());
+        phase.setTaskErrors(scheduler.getTaskErrors() - context.errorsBefore());
+
+        System.gc();
+        Runtime runtime = Runtime.getRuntime();
+        phase.setRetainedHeapBytes(runtime.totalMemory() - runtime.freeMemory());
+        logger.info("Finished phase '" + phase.getName() + "' in " + (phase.getWallNanos() / 1_000_000) + " ms");
+        return phase;
+    }
+
+    private void deleteRecursively(Path path) throws IOException {
+        if (!Files.exists(path)) {
+            return;
+        }
+        try (Stream<Path> walk = Files.walk(path)) {
+            for (Path entry : walk.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(entry);
+            }
+        }
+    }
+
+    private record PhaseContext(PhaseMetrics phase, long wallStart, long simulatedStart, Map<String, Long> storageBefore,
+                                long permissionBefore, long messagesBefore, long errorsBefore, long timeoutNanos) {
+
+        boolean timedOut() {
+            return timeoutNanos > 0 && System.nanoTime() - wallStart > timeoutNanos;
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package me.itzrenzo.temprankmanager.simulation;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Measurements for one scenario phase: main-thread nanoseconds per executed tick, storage calls and heap usage.
+ */
+public class PhaseMetrics {
+    private static final long TICK_BUDGET_NANOS = 50_000_000L;
+
+    private final String name;
+    private long[] tickNanos = new long[1024];
+    private int tickCount;
+    private long skippedTicks;
+    private long simulatedMillis;
+    private long wallNanos;
+    private long storageOps;
+    private Map<String, Long> storageOpsByMethod = new TreeMap<>();
+    private long permissionMutations;
+    private long peakHeapBytes;
+    private long retainedHeapBytes;
+    private long senderMessages;
+    private long taskErrors;
+    private String note;
+
+    public PhaseMetrics(String name) {
+        this.name = name;
+    }
+
+    public void recordTick(long nanos) {
+        if (tickCount == tickNanos.length) {
+            tickNanos = Arrays.copyOf(tickNanos, tickCount * 2);
+        }
+        tickNanos[tickCount++] = nanos;
+    }
+
+    public void sampleHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        peakHeapBytes = Math.max(peakHeapBytes, runtime.totalMemory() - runtime.freeMemory());
+    }
+
+    /**
+     * Record the storage calls made during this phase as the difference between two counter snapshots
+     */
+    public void setStorageOps(Map<String, Long> before, Map<String, Long> after) {
+        Map<String, Long> delta = new TreeMap<>();
+        long sum = 0;
+        for (Map.Entry<String, Long> entry : after.entrySet()) {
+            long count = entry.getValue() - before.getOrDefault(entry.getKey(), 0L);
+            if (count > 0) {
+                delta.put(entry.getKey(), count);
+                sum += count;
+            }
+        }
+        this.storageOpsByMethod = delta;
+        this.storageOps = sum;
+    }
+
+    public void addSkippedTicks(long ticks) {
+        skippedTicks += ticks;
+    }
+
+    public void setSimulatedMillis(long simulatedMillis) {
+        this.simulatedMillis = simulatedMillis;
+    }
+
+    public void setWallNanos(long wallNanos) {
+        this.wallNanos = wallNanos;
+    }
+
+    public void setPermissionMutations(long permissionMutations) {
+        this.permissionMutations = permissionMutations;
+    }
+
+    public void setRetainedHeapBytes(long retainedHeapBytes) {
+        this.retainedHeapBytes = retainedHeapBytes;
+    }
+
+    public void setSenderMessages(long senderMessages) {
+        this.senderMessages = senderMessages;
+    }
+
+    public void setTaskErrors(long taskErrors) {
+        this.taskErrors = taskErrors;
+    }
+
+    public void setNote(String note) {
+        this.note = note;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getTickCount() {
+        return tickCount;
+    }
+
+    public long getSkippedTicks() {
+        return skippedTicks;
+    }
+
+    public long getSimulatedMillis() {
+        return simulatedMillis;
+    }
+
+    public long getWallNanos() {
+        return wallNanos;
+    }
+
+    public long getStorageOps() {
+        return storageOps;
+    }
+
+    public Map<String, Long> getStorageOpsByMethod() {
+        return storageOpsByMethod;
+    }
+
+    public long getPermissionMutations() {
+        return permissionMutations;
+    }
+
+    public long getPeakHeapBytes() {
+        return peakHeapBytes;
+    }
+
+    public long getRetainedHeapBytes() {
+        return retainedHeapBytes;
+    }
+
+    public long getSenderMessages() {
+        return senderMessages;
+    }
+
+    public long getTaskErrors() {
+        return taskErrors;
+    }
+
+    public String getNote() {
+        return note;
+    }
+
+    public double getStorageOpsPerWallSecond() {
+        return wallNanos > 0 ? storageOps / (wallNanos / 1_000_000_000D) : 0;
+    }
+
+    public double getStorageOpsPerSimulatedSecond() {
+        return simulatedMillis > 0 ? storageOps / (simulatedMillis / 1000D) : 0;
+    }
+
+    public long getTicksOverBudget() {
+        long over = 0;
+        for (int i = 0; i < tickCount; i++) {
+            if (tickNanos[i] > TICK_BUDGET_NANOS) {
+                over++;
+            }
+        }
+        return over;
+    }
+
+    /**
+     * Tick-time summary in milliseconds: mean, p50, p95, p99 and max
+     */
+    public Map<String, Double> getTickStatsMillis() {
+        Map<String, Double> stats = new HashMap<>();
+        if (tickCount == 0) {
+            return stats;
+        }
+        long[] sorted = Arrays.copyOf(tickNanos, tickCount);
+        Arrays.sort(sorted);
+        long total = 0;
+        for (long nanos : sorted) {
+            total += nanos;
+        }
+        stats.put("mean", total / (double) tickCount / 1_000_000D);
+        stats.put("p50", percentile(sorted, 0.50));
+        stats.put("p95", percentile(sorted, 0.95));
+        stats.put("p99", percentile(sorted, 0.99));
+        stats.put("max", sorted[sorted.length - 1] / 1_000_000D);
+        stats.put("total", total / 1_000_000D);
+        return stats;
+    }
+
+    private static double percentile(long[] sorted, double percentile) {
+        int index = (int) Math.ceil(percentile * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(sorted.length - 1, index))] / 1_000_000D;
+    }
+}
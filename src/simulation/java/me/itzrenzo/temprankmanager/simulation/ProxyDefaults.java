@@ -0,0 +1,64 @@
+package me.itzrenzo.temprankmanager.simulation;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+
+/**
+ * Shared helpers for the dynamic-proxy stand-ins of Bukkit interfaces that are too large to implement by hand.
+ */
+final class ProxyDefaults {
+
+    private ProxyDefaults() {
+    }
+
+    static <T> T create(Class<T> type, java.lang.reflect.InvocationHandler handler) {
+        return type.cast(Proxy.newProxyInstance(ProxyDefaults.class.getClassLoader(), new Class<?>[]{type}, handler));
+    }
+
+    /**
+     * Answer java.lang.Object methods on a proxy by identity, returning null when the method is not one of them
+     */
+    static Object handleObjectMethod(Object proxy, Method method, Object[] args, String description) {
+        return switch (method.getName()) {
+            case "hashCode" -> System.identityHashCode(proxy);
+            case "equals" -> proxy == args[0];
+            case "toString" -> description;
+            default -> null;
+        };
+    }
+
+    static boolean isObjectMethod(Method method) {
+        return method.getDeclaringClass() == Object.class;
+    }
+
+    /**
+     * Zero value for the return type of an unhandled proxy method
+     */
+    static Object defaultValue(Class<?> type) {
+        if (!type.isPrimitive() || type == void.class) {
+            return null;
+        }
+        if (type == boolean.class) {
+            return false;
+        }
+        if (type == char.class) {
+            return '\0';
+        }
+        if (type == long.class) {
+            return 0L;
+        }
+        if (type == double.class) {
+            return 0D;
+        }
+        if (type == float.class) {
+            return 0F;
+        }
+        if (type == short.class) {
+            return (short) 0;
+        }
+        if (type == byte.class) {
+            return (byte) 0;
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,41 @@
+package me.itzrenzo.temprankmanager.simulation;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+/**
+ * Manually advanced clock installed through TimeUtil.setClock so expirations can be fast-forwarded.
+ */
+public class SimulatedClock extends Clock {
+    private volatile long millis;
+
+    public SimulatedClock(long startMillis) {
+        this.millis = startMillis;
+    }
+
+    public void advance(long deltaMillis) {
+        millis += deltaMillis;
+    }
+
+    @Override
+    public long millis() {
+        return millis;
+    }
+
+    @Override
+    public Instant instant() {
+        return Instant.ofEpochMilli(millis);
+    }
+
+    @Override
+    public ZoneId getZone() {
+        return ZoneOffset.UTC;
+    }
+
+    @Override
+    public Clock withZone(ZoneId zone) {
+        return this;
+    }
+}
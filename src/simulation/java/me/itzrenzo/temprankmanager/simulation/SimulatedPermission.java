@@ -0,0 +1,147 @@
+package me.itzrenzo.temprankmanager.simulation;
+
+import net.milkbowl.vault.permission.Permission;
+import org.bukkit.OfflinePlayer;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * In-memory Vault permission backend that tracks group membership per player and counts mutations.
+ */
+public class SimulatedPermission extends Permission {
+    private final String[] groups;
+    private final Map<UUID, Set<String>> memberships = new ConcurrentHashMap<>();
+    private final LongAdder mutations = new LongAdder();
+
+    public SimulatedPermission(String... groups) {
+        this.groups = groups.clone();
+    }
+
+    public long getMutationCount() {
+        return mutations.sum();
+    }
+
+    public void reset() {
+        memberships.clear();
+        mutations.reset();
+    }
+
+    public boolean isMember(UUID playerUUID, String group) {
+        Set<String> playerGroups = memberships.get(playerUUID);
+        return playerGroups != null && playerGroups.contains(group.toLowerCase());
+    }
+
+    @Override
+    public boolean playerInGroup(String world, OfflinePlayer player, String group) {
+        return isMember(player.getUniqueId(), group);
+    }
+
+    @Override
+    public boolean playerAddGroup(String world, OfflinePlayer player, String group) {
+        mutations.increment();
+        return memberships.computeIfAbsent(player.getUniqueId(), id -> ConcurrentHashMap.newKeySet()).add(group.toLowerCase());
+    }
+
+    @Override
+    public boolean playerRemoveGroup(String world, OfflinePlayer player, String group) {
+        mutations.increment();
+        Set<String> playerGroups = memberships.get(player.getUniqueId());
+        return playerGroups != null && playerGroups.remove(group.toLowerCase());
+    }
+
+    @Override
+    public String[] getPlayerGroups(String world, OfflinePlayer player) {
+        Set<String> playerGroups = memberships.get(player.getUniqueId());
+        return playerGroups != null ? playerGroups.toArray(new String[0]) : new String[0];
+    }
+
+    @Override
+    public String getPrimaryGroup(String world, OfflinePlayer player) {
+        String[] playerGroups = getPlayerGroups(world, player);
+        return playerGroups.length > 0 ? playerGroups[0] : "default";
+    }
+
+    @Override
+    public String getName() {
+        return "Simulated";
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return true;
+    }
+
+    @Override
+    public boolean hasSuperPermsCompat() {
+        return true;
+    }
+
+    @Override
+    public boolean playerHas(String world, String player, String permission) {
+        return true;
+    }
+
+    @Override
+    public boolean playerAdd(String world, String player, String permission) {
+        return true;
+    }
+
+    @Override
+    public boolean playerRemove(String world, String player, String permission) {
+        return true;
+    }
+
+    @Override
+    public boolean groupHas(String world, String group, String permission) {
+        return false;
+    }
+
+    @Override
+    public boolean groupAdd(String world, String group, String permission) {
+        return true;
+    }
+
+    @Override
+    public boolean groupRemove(String world, String group, String permission) {
+        return true;
+    }
+
+    @Override
+    public boolean playerInGroup(String world, String player, String group) {
+        throw new UnsupportedOperationException("Name-based group lookups are not simulated");
+    }
+
+    @Override
+    public boolean playerAddGroup(String world, String player, String group) {
+        throw new UnsupportedOperationException("Name-based group mutations are not simulated");
+    }
+
+    @Override
+    public boolean playerRemoveGroup(String world, String player, String group) {
+        throw new UnsupportedOperationException("Name-based group mutations are not simulated");
+    }
+
+    @Override
+    public String[] getPlayerGroups(String world, String player) {
+        throw new UnsupportedOperationException("Name-based group lookups are not simulated");
+    }
+
+    @Override
+    public String getPrimaryGroup(String world, String player) {
+        throw new UnsupportedOperationException("Name-based group lookups are not simulated");
+    }
+
+    @Override
+    public String[] getGroups() {
+        return groups.clone();
+    }
+
+    @Override
+    public boolean hasGroupSupport() {
+        return true;
+    }
+}
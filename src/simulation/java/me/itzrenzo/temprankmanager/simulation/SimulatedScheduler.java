@@ -0,0 +1,309 @@
+package me.itzrenzo.temprankmanager.simulation;
+
+import org.bukkit.plugin.Plugin;
+import org.bukkit.scheduler.BukkitScheduler;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Single-threaded stand-in for the Bukkit scheduler. Ticks only advance when the simulator asks,
+ * so the clock can jump straight to the next due task instead of idling through empty ticks.
+ */
+public class SimulatedScheduler implements InvocationHandler {
+    public static final long MILLIS_PER_TICK = 50;
+
+    private final SimulatedClock clock;
+    private final Logger logger;
+    private final PriorityQueue<SimulatedTask> queue = new PriorityQueue<>(
+            Comparator.comparingLong((SimulatedTask task) -> task.dueTick).thenComparingLong(task -> task.sequence));
+    private final Map<Integer, SimulatedTask> tasks = new ConcurrentHashMap<>();
+    private final AtomicInteger inFlightAsync = new AtomicInteger();
+    private final BukkitScheduler proxy;
+    private ExecutorService asyncExecutor = Executors.newCachedThreadPool();
+    private Thread mainThread = Thread.currentThread();
+    private long currentTick;
+    private long sequence;
+    private int nextTaskId = 1;
+    private long taskErrors;
+
+    public SimulatedScheduler(SimulatedClock clock, Logger logger) {
+        this.clock = clock;
+        this.logger = logger;
+        this.proxy = ProxyDefaults.create(BukkitScheduler.class, this);
+    }
+
+    public BukkitScheduler asBukkitScheduler() {
+        return proxy;
+    }
+
+    public long getCurrentTick() {
+        return currentTick;
+    }
+
+    public long getTaskErrors() {
+        return taskErrors;
+    }
+
+    public int getPendingTaskCount() {
+        return tasks.size();
+    }
+
+    public boolean isMainThread() {
+        return Thread.currentThread() == mainThread;
+    }
+
+    /**
+     * Move to the next tick, advancing the simulated clock by one tick length
+     */
+    public void advanceTick() {
+        currentTick++;
+        clock.advance(MILLIS_PER_TICK);
+    }
+
+    /**
+     * Jump to the given tick without running anything in between
+     */
+    public void skipTo(long tick) {
+        if (tick > currentTick) {
+            clock.advance((tick - currentTick) * MILLIS_PER_TICK);
+            currentTick = tick;
+        }
+    }
+
+    /**
+     * Tick at which the earliest live task is due, or Long.MAX_VALUE when nothing is queued
+     */
+    public synchronized long nextDueTick() {
+        SimulatedTask head = queue.peek();
+        while (head != null && head.cancelled) {
+            queue.poll();
+            head = queue.peek();
+        }
+        return head != null ? head.dueTick : Long.MAX_VALUE;
+    }
+
+    /**
+     * Run every task due at the current tick on the calling (main) thread
+     * @return Number of tasks executed
+     */
+    public int runDueTasks() {
+        int executed = 0;
+        while (true) {
+            SimulatedTask task;
+            synchronized (this) {
+                task = queue.peek();
+                if (task == null || task.dueTick > currentTick) {
+                    break;
+                }
+                queue.poll();
+            }
+            if (task.cancelled) {
+                continue;
+            }
+
+            executed++;
+            if (task.sync) {
+                runSafely(task);
+            } else {
+                submitAsync(task);
+            }
+
+            synchronized (this) {
+                if (task.period > 0 && !task.cancelled) {
+                    task.dueTick += task.period;
+                    task.sequence = sequence++;
+                    queue.add(task);
+                } else {
+                    tasks.remove(task.id);
+                }
+            }
+        }
+        return executed;
+    }
+
+    /**
+     * Wait for asynchronous tasks submitted so far to finish
+     */
+    public void awaitAsync(long timeoutMillis) {
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        while (inFlightAsync.get() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.onSpinWait();
+        }
+    }
+
+    /**
+     * Drop all queued work so the next simulation run starts from tick zero of a clean scheduler
+     */
+    public synchronized void reset() {
+        for (SimulatedTask task : tasks.values()) {
+            task.cancelled = true;
+        }
+        tasks.clear();
+        queue.clear();
+        asyncExecutor.shutdownNow();
+        try {
+            asyncExecutor.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        asyncExecutor = Executors.newCachedThreadPool();
+        inFlightAsync.set(0);
+        mainThread = Thread.currentThread();
+        taskErrors = 0;
+    }
+
+    private void runSafely(SimulatedTask task) {
+        try {
+            task.body.accept(task);
+        } catch (Throwable t) {
+            taskErrors++;
+            logger.log(Level.WARNING, "Simulated task " + task.id + " threw an exception", t);
+        }
+    }
+
+    private void submitAsync(SimulatedTask task) {
+        inFlightAsync.incrementAndGet();
+        asyncExecutor.execute(() -> {
+            try {
+                runSafely(task);
+            } finally {
+                inFlightAsync.decrementAndGet();
+            }
+        });
+    }
+
+    private synchronized SimulatedTask schedule(Plugin owner, Consumer<BukkitTask> body, long delay, long period, boolean sync) {
+        SimulatedTask task = new SimulatedTask(nextTaskId++, owner, body, sync);
+        task.dueTick = currentTick + Math.max(1, delay);
+        task.period = period;
+        task.sequence = sequence++;
+        tasks.put(task.id, task);
+        queue.add(task);
+        return task;
+    }
+
+    private synchronized void cancel(int taskId) {
+        SimulatedTask task = tasks.remove(taskId);
+        if (task != null) {
+            task.cancelled = true;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Consumer<BukkitTask> toBody(Object argument) {
+        if (argument instanceof Runnable runnable) {
+            return task -> runnable.run();
+        }
+        if (argument instanceof Consumer<?> consumer) {
+            return (Consumer<BukkitTask>) consumer;
+        }
+        throw new IllegalArgumentException("Unsupported task body: " + argument);
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) {
+        if (ProxyDefaults.isObjectMethod(method)) {
+            return ProxyDefaults.handleObjectMethod(proxy, method, args, "SimulatedScheduler");
+        }
+
+        String name = method.getName();
+        SimulatedTask task;
+        switch (name) {
+            case "runTask", "scheduleSyncDelayedTask" -> {
+                long delay = args.length > 2 ? (Long) args[2] : 0;
+                task = schedule((Plugin) args[0], toBody(args[1]), delay, -1, true);
+            }
+            case "runTaskLater" -> task = schedule((Plugin) args[0], toBody(args[1]), (Long) args[2], -1, true);
+            case "runTaskTimer", "scheduleSyncRepeatingTask" ->
+                    task = schedule((Plugin) args[0], toBody(args[1]), (Long) args[2], Math.max(1, (Long) args[3]), true);
+            case "runTaskAsynchronously" -> task = schedule((Plugin) args[0], toBody(args[1]), 0, -1, false);
+            case "runTaskLaterAsynchronously" -> task = schedule((Plugin) args[0], toBody(args[1]), (Long) args[2], -1, false);
+            case "runTaskTimerAsynchronously" ->
+                    task = schedule((Plugin) args[0], toBody(args[1]), (Long) args[2], Math.max(1, (Long) args[3]), false);
+            case "cancelTask" -> {
+                cancel((Integer) args[0]);
+                return null;
+            }
+            case "cancelTasks" -> {
+                for (Integer id : tasks.keySet()) {
+                    cancel(id);
+                }
+                return null;
+            }
+            case "isQueued" -> {
+                return tasks.containsKey((Integer) args[0]);
+            }
+            case "isCurrentlyRunning" -> {
+                return false;
+            }
+            case "getMainThreadExecutor" -> {
+                Plugin owner = (Plugin) args[0];
+                return (java.util.concurrent.Executor) command -> schedule(owner, toBody(command), 0, -1, true);
+            }
+            default -> throw new UnsupportedOperationException("Simulated scheduler does not support " + method);
+        }
+
+        Class<?> returnType = method.getReturnType();
+        if (returnType == int.class) {
+            return task.id;
+        }
+        return returnType == void.class ? null : task;
+    }
+
+    final class SimulatedTask implements BukkitTask {
+        private final int id;
+        private final Plugin owner;
+        private final Consumer<BukkitTask> body;
+        private final boolean sync;
+        private volatile boolean cancelled;
+        private long dueTick;
+        private long period;
+        private long sequence;
+
+        SimulatedTask(int id, Plugin owner, Consumer<BukkitTask> body, boolean sync) {
+            this.id = id;
+            this.owner = owner;
+            this.body = body;
+            this.sync = sync;
+        }
+
+        @Override
+        public int getTaskId() {
+            return id;
+        }
+
+        @Override
+        public Plugin getOwner() {
+            return owner;
+        }
+
+        @Override
+        public boolean isSync() {
+            return sync;
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return cancelled;
+        }
+
+        @Override
+        public void cancel() {
+            SimulatedScheduler.this.cancel(id);
+            cancelled = true;
+        }
+    }
+}
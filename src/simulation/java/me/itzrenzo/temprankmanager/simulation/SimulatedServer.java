@@ -0,0 +1,317 @@
+package me.itzrenzo.temprankmanager.simulation;
+
+import net.milkbowl.vault.permission.Permission;
+import org.bukkit.Bukkit;
+import org.bukkit.OfflinePlayer;
+import org.bukkit.Server;
+import org.bukkit.command.ConsoleCommandSender;
+import org.bukkit.command.PluginCommand;
+import org.bukkit.entity.Player;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.plugin.PluginManager;
+import org.bukkit.plugin.RegisteredServiceProvider;
+import org.bukkit.plugin.ServicePriority;
+import org.bukkit.plugin.ServicesManager;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Logger;
+
+/**
+ * Dynamic-proxy Bukkit server exposing just what TempRankManager touches: scheduler, players,
+ * whitelist state, services, plugin commands and event dispatch.
+ */
+public class SimulatedServer {
+    private static SimulatedServer installed;
+
+    private final Logger logger = Logger.getLogger("SimulatedServer");
+    private final SimulatedScheduler scheduler;
+    private final Server server;
+    private final ConsoleCommandSender console;
+    private final PluginManager pluginManager;
+    private final ServicesManager servicesManager;
+    private final Map<UUID, Player> playersById = new HashMap<>();
+    private final Map<String, Player> playersByName = new HashMap<>();
+    private final Set<UUID> onlinePlayers = ConcurrentHashMap.newKeySet();
+    private final Map<String, PluginCommand> commands = new HashMap<>();
+    private final Map<Class<?>, RegisteredServiceProvider<?>> services = new ConcurrentHashMap<>();
+    private final Map<String, Plugin> plugins = new HashMap<>();
+    private final LongAdder consoleMessages = new LongAdder();
+    private final LongAdder eventsCalled = new LongAdder();
+    private volatile boolean whitelist;
+
+    private SimulatedServer(SimulatedScheduler scheduler) {
+        this.scheduler = scheduler;
+        this.server = ProxyDefaults.create(Server.class, this::invokeServer);
+        this.console = ProxyDefaults.create(ConsoleCommandSender.class, this::invokeConsole);
+        this.pluginManager = ProxyDefaults.create(PluginManager.class, this::invokePluginManager);
+        this.servicesManager = ProxyDefaults.create(ServicesManager.class, this::invokeServicesManager);
+    }
+
+    /**
+     * Install the simulated server as the Bukkit singleton. Bukkit only accepts one server per JVM,
+     * so every simulation run shares this instance and calls reset in between.
+     */
+    public static synchronized SimulatedServer install(SimulatedScheduler scheduler) {
+        if (installed == null) {
+            installed = new SimulatedServer(scheduler);
+            Bukkit.setServer(installed.server);
+        }
+        return installed;
+    }
+
+    public void reset() {
+        playersById.clear();
+        playersByName.clear();
+        onlinePlayers.clear();
+        commands.clear();
+        services.clear();
+        plugins.clear();
+        consoleMessages.reset();
+        eventsCalled.reset();
+        whitelist = false;
+    }
+
+    public Server getServer() {
+        return server;
+    }
+
+    public ConsoleCommandSender getConsole() {
+        return console;
+    }
+
+    public long getConsoleMessageCount() {
+        return consoleMessages.sum();
+    }
+
+    public long getEventsCalled() {
+        return eventsCalled.sum();
+    }
+
+    public void setWhitelist(boolean whitelist) {
+        this.whitelist = whitelist;
+    }
+
+    public boolean hasWhitelist() {
+        return whitelist;
+    }
+
+    public void registerPlugin(Plugin plugin) {
+        plugins.put(plugin.getName().toLowerCase(Locale.ROOT), plugin);
+    }
+
+    public void registerPermission(Permission permission, Plugin owner) {
+        services.put(Permission.class, new RegisteredServiceProvider<>(Permission.class, permission, ServicePriority.Normal, owner));
+    }
+
+    /**
+     * Register the plugin.yml commands of a plugin, mirroring what the server does before onEnable
+     */
+    public void registerCommand(String name, Plugin owner) {
+        try {
+            Constructor<PluginCommand> constructor = PluginCommand.class.getDeclaredConstructor(String.class, Plugin.class);
+            constructor.setAccessible(true);
+            PluginCommand command = constructor.newInstance(name, owner);
+            commands.put(name.toLowerCase(Locale.ROOT), command);
+            commands.put(owner.getName().toLowerCase(Locale.ROOT) + ":" + name.toLowerCase(Locale.ROOT), command);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Could not create plugin command " + name, e);
+        }
+    }
+
+    /**
+     * Add a player who has joined before
+     */
+    public Player addPlayer(UUID uuid, String name, boolean online) {
+        Player player = ProxyDefaults.create(Player.class, (proxy, method, args) -> invokePlayer(proxy, method, args, uuid, name));
+        playersById.put(uuid, player);
+        playersByName.put(name.toLowerCase(Locale.ROOT), player);
+        if (online) {
+            onlinePlayers.add(uuid);
+        }
+        return player;
+    }
+
+    public void setOnline(UUID uuid, boolean online) {
+        if (online) {
+            onlinePlayers.add(uuid);
+        } else {
+            onlinePlayers.remove(uuid);
+        }
+    }
+
+    public Player getKnownPlayer(UUID uuid) {
+        return playersById.get(uuid);
+    }
+
+    private OfflinePlayer unknownPlayer(UUID uuid, String name) {
+        return ProxyDefaults.create(OfflinePlayer.class, (proxy, method, args) -> {
+            if (ProxyDefaults.isObjectMethod(method)) {
+                return ProxyDefaults.handleObjectMethod(proxy, method, args, "UnknownPlayer[" + name + "]");
+            }
+            return switch (method.getName()) {
+                case "getUniqueId" -> uuid;
+                case "getName" -> name;
+                default -> ProxyDefaults.defaultValue(method.getReturnType());
+            };
+        });
+    }
+
+    private Collection<Player> onlinePlayerList() {
+        List<Player> online = new ArrayList<>(onlinePlayers.size());
+        for (UUID uuid : onlinePlayers) {
+            Player player = playersById.get(uuid);
+            if (player != null) {
+                online.add(player);
+            }
+        }
+        return Collections.unmodifiableList(online);
+    }
+
+    private Object invokeServer(Object proxy, Method method, Object[] args) {
+        if (ProxyDefaults.isObjectMethod(method)) {
+            return ProxyDefaults.handleObjectMethod(proxy, method, args, "SimulatedServer");
+        }
+
+        switch (method.getName()) {
+            case "getName":
+                return "SimulatedServer";
+            case "getVersion":
+            case "getBukkitVersion":
+            case "getMinecraftVersion":
+                return "simulated";
+            case "getLogger":
+                return logger;
+            case "getScheduler":
+                return scheduler.asBukkitScheduler();
+            case "getPluginManager":
+                return pluginManager;
+            case "getServicesManager":
+                return servicesManager;
+            case "getConsoleSender":
+                return console;
+            case "hasWhitelist":
+                return whitelist;
+            case "isPrimaryThread":
+                return scheduler.isMainThread();
+            case "getOnlinePlayers":
+                return onlinePlayerList();
+            case "getPluginCommand":
+                return commands.get(((String) args[0]).toLowerCase(Locale.ROOT));
+            case "getOfflinePlayer":
+                if (args[0] instanceof UUID uuid) {
+                    Player known = playersById.get(uuid);
+                    return known != null ? known : unknownPlayer(uuid, null);
+                } else {
+                    String name = (String) args[0];
+                    Player known = playersByName.get(name.toLowerCase(Locale.ROOT));
+                    return known != null ? known : unknownPlayer(UUID.nameUUIDFromBytes(("OfflinePlayer:" + name).getBytes()), name);
+                }
+            case "getOfflinePlayerIfCached":
+                return playersByName.get(((String) args[0]).toLowerCase(Locale.ROOT));
+            case "getPlayer":
+            case "getPlayerExact":
+                Player player = args[0] instanceof UUID uuid ? playersById.get(uuid) : playersByName.get(((String) args[0]).toLowerCase(Locale.ROOT));
+                return player != null && onlinePlayers.contains(player.getUniqueId()) ? player : null;
+            default:
+                return ProxyDefaults.defaultValue(method.getReturnType());
+        }
+    }
+
+    private Object invokePlayer(Object proxy, Method method, Object[] args, UUID uuid, String name) {
+        if (ProxyDefaults.isObjectMethod(method)) {
+            return ProxyDefaults.handleObjectMethod(proxy, method, args, "SimulatedPlayer[" + name + "]");
+        }
+
+        return switch (method.getName()) {
+            case "getUniqueId" -> uuid;
+            case "getName" -> name;
+            case "hasPlayedBefore" -> true;
+            case "isOnline", "isValid", "isConnected" -> onlinePlayers.contains(uuid);
+            case "getPlayer" -> onlinePlayers.contains(uuid) ? proxy : null;
+            case "hasPermission", "isOp" -> true;
+            case "getServer" -> server;
+            default -> ProxyDefaults.defaultValue(method.getReturnType());
+        };
+    }
+
+    private Object invokeConsole(Object proxy, Method method, Object[] args) {
+        if (ProxyDefaults.isObjectMethod(method)) {
+            return ProxyDefaults.handleObjectMethod(proxy, method, args, "SimulatedConsole");
+        }
+
+        return switch (method.getName()) {
+            case "sendMessage", "sendRichMessage", "sendPlainMessage" -> {
+                consoleMessages.increment();
+                yield null;
+            }
+            case "getName" -> "CONSOLE";
+            case "hasPermission", "isOp", "isPermissionSet" -> true;
+            case "getServer" -> server;
+            default -> ProxyDefaults.defaultValue(method.getReturnType());
+        };
+    }
+
+    private Object invokePluginManager(Object proxy, Method method, Object[] args) {
+        if (ProxyDefaults.isObjectMethod(method)) {
+            return ProxyDefaults.handleObjectMethod(proxy, method, args, "SimulatedPluginManager");
+        }
+
+        switch (method.getName()) {
+            case "getPlugin":
+                return plugins.get(((String) args[0]).toLowerCase(Locale.ROOT));
+            case "isPluginEnabled":
+                return args[0] instanceof Plugin plugin ? plugin.isEnabled() : plugins.containsKey(((String) args[0]).toLowerCase(Locale.ROOT));
+            case "callEvent":
+                eventsCalled.increment();
+                return null;
+            case "registerEvents":
+            case "disablePlugin":
+                return null;
+            default:
+                return ProxyDefaults.defaultValue(method.getReturnType());
+        }
+    }
+
+    private Object invokeServicesManager(Object proxy, Method method, Object[] args) {
+        if (ProxyDefaults.isObjectMethod(method)) {
+            return ProxyDefaults.handleObjectMethod(proxy, method, args, "SimulatedServicesManager");
+        }
+
+        switch (method.getName()) {
+            case "register":
+                registerService((Class<?>) args[0], args[1], (Plugin) args[2], (ServicePriority) args[3]);
+                return null;
+            case "getRegistration":
+                return services.get((Class<?>) args[0]);
+            case "load":
+                RegisteredServiceProvider<?> registration = services.get((Class<?>) args[0]);
+                return registration != null ? registration.getProvider() : null;
+            case "unregisterAll":
+                services.values().removeIf(registered -> registered.getPlugin() == args[0]);
+                return null;
+            case "unregister":
+                Object provider = args[args.length - 1];
+                services.values().removeIf(registered -> registered.getProvider() == provider);
+                return null;
+            default:
+                return ProxyDefaults.defaultValue(method.getReturnType());
+        }
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private void registerService(Class service, Object provider, Plugin plugin, ServicePriority priority) {
+        services.put(service, new RegisteredServiceProvider(service, provider, priority, plugin));
+    }
+}
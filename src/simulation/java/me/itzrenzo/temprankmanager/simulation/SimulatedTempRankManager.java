@@ -0,0 +1,26 @@
+package me.itzrenzo.temprankmanager.simulation;
+
+import me.itzrenzo.temprankmanager.TempRankManager;
+import org.bukkit.plugin.PluginDescriptionFile;
+import org.bukkit.plugin.java.JavaPluginLoader;
+
+import java.io.File;
+
+/**
+ * The plugin as the load simulator runs it: constructed without a plugin class loader and
+ * enabled or disabled directly instead of through a plugin manager.
+ */
+public class SimulatedTempRankManager extends TempRankManager {
+
+    public SimulatedTempRankManager(JavaPluginLoader loader, PluginDescriptionFile description, File dataFolder, File file) {
+        super(loader, description, dataFolder, file);
+    }
+
+    /**
+     * Enable or disable the plugin the way the server does: the enabled flag flips first, then
+     * onEnable or onDisable runs, so code that checks isEnabled() sees what it would on a server
+     */
+    public void simulateEnabled(boolean enabled) {
+        setEnabled(enabled);
+    }
+}
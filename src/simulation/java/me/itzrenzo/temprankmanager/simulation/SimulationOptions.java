@@ -0,0 +1,102 @@
+package me.itzrenzo.temprankmanager.simulation;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Command line options for the load simulator. Every value is echoed into the report so runs can be repeated.
+ */
+public record SimulationOptions(
+        int players,
+        List<String> providers,
+        int givesPerTick,
+        double extraGiveRatio,
+        int onlinePlayers,
+        int pollIntervalTicks,
+        int pollSeconds,
+        int whitelistToggles,
+        int toggleIntervalTicks,
+        List<String> ranks,
+        List<String> durations,
+        long seed,
+        long phaseTimeoutSeconds,
+        File workDirectory,
+        File reportFile,
+        boolean verbose) {
+
+    public static SimulationOptions defaults() {
+        return new SimulationOptions(100_000, List.of("sqlite", "yaml"), 500, 0.1, 1_000, 20, 60, 4, 100,
+                List.of("vip", "premium", "booster"), List.of("1h", "2h", "1d"), 42L, 600,
+                new File("target/simulation"), new File("target/simulation-report.md"), false);
+    }
+
+    /**
+     * Parse --key value pairs on top of the defaults
+     */
+    public static SimulationOptions parse(String[] args) {
+        SimulationOptions defaults = defaults();
+        Map<String, String> values = new LinkedHashMap<>();
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            if (!arg.startsWith("--")) {
+                throw new IllegalArgumentException("Unexpected argument: " + arg);
+            }
+            if (arg.equals("--verbose")) {
+                values.put("verbose", "true");
+            } else if (i + 1 < args.length) {
+                values.put(arg.substring(2), args[++i]);
+            } else {
+                throw new IllegalArgumentException("Missing value for " + arg);
+            }
+        }
+
+        return new SimulationOptions(
+                Integer.parseInt(values.getOrDefault("players", String.valueOf(defaults.players))),
+                list(values.get("providers"), defaults.providers),
+                Integer.parseInt(values.getOrDefault("gives-per-tick", String.valueOf(defaults.givesPerTick))),
+                Double.parseDouble(values.getOrDefault("extra-give-ratio", String.valueOf(defaults.extraGiveRatio))),
+                Integer.parseInt(values.getOrDefault("online", String.valueOf(defaults.onlinePlayers))),
+                Integer.parseInt(values.getOrDefault("poll-interval-ticks", String.valueOf(defaults.pollIntervalTicks))),
+                Integer.parseInt(values.getOrDefault("poll-seconds", String.valueOf(defaults.pollSeconds))),
+                Integer.parseInt(values.getOrDefault("whitelist-toggles", String.valueOf(defaults.whitelistToggles))),
+                Integer.parseInt(values.getOrDefault("toggle-interval-ticks", String.valueOf(defaults.toggleIntervalTicks))),
+                list(values.get("ranks"), defaults.ranks),
+                list(values.get("durations"), defaults.durations),
+                Long.parseLong(values.getOrDefault("seed", String.valueOf(defaults.seed))),
+                Long.parseLong(values.getOrDefault("phase-timeout", String.valueOf(defaults.phaseTimeoutSeconds))),
+                new File(values.getOrDefault("work-dir", defaults.workDirectory.getPath())),
+                new File(values.getOrDefault("report", defaults.reportFile.getPath())),
+                Boolean.parseBoolean(values.getOrDefault("verbose", "false")));
+    }
+
+    private static List<String> list(String value, List<String> fallback) {
+        if (value == null || value.isBlank()) {
+            return fallback;
+        }
+        return Arrays.stream(value.split(",")).map(String::trim).filter(s -> !s.isEmpty()).toList();
+    }
+
+    /**
+     * Options in a stable order for the report header
+     */
+    public Map<String, Object> describe() {
+        Map<String, Object> description = new LinkedHashMap<>();
+        description.put("players", players);
+        description.put("providers", String.join(",", providers));
+        description.put("gives-per-tick", givesPerTick);
+        description.put("extra-give-ratio", extraGiveRatio);
+        description.put("online", onlinePlayers);
+        description.put("poll-interval-ticks", pollIntervalTicks);
+        description.put("poll-seconds", pollSeconds);
+        description.put("whitelist-toggles", whitelistToggles);
+        description.put("toggle-interval-ticks", toggleIntervalTicks);
+        description.put("ranks", String.join(",", ranks));
+        description.put("durations", String.join(",", durations));
+        description.put("seed", seed);
+        description.put("phase-timeout", phaseTimeoutSeconds + "s");
+        return description;
+    }
+}
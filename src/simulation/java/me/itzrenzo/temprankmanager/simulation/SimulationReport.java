@@ -0,0 +1,94 @@
+package me.itzrenzo.temprankmanager.simulation;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Collects the phase metrics of every provider run and renders them as a Markdown report.
+ */
+public class SimulationReport {
+    private final SimulationOptions options;
+    private final Map<String, List<PhaseMetrics>> runs = new LinkedHashMap<>();
+
+    public SimulationReport(SimulationOptions options) {
+        this.options = options;
+    }
+
+    public void addPhase(String provider, PhaseMetrics phase) {
+        runs.computeIfAbsent(provider, key -> new ArrayList<>()).add(phase);
+    }
+
+    public String render() {
+        StringBuilder out = new StringBuilder();
+        out.append("# TempRankManager load simulation\n\n");
+        out.append("Workload is fully determined by the options below; timings depend on the host.\n\n");
+        out.append("| Option | Value |\n|---|---|\n");
+        options.describe().forEach((key, value) -> out.append("| ").append(key).append(" | ").append(value).append(" |\n"));
+        out.append("| java | ").append(System.getProperty("java.version")).append(" |\n");
+        out.append("| os | ").append(System.getProperty("os.name")).append(' ').append(System.getProperty("os.arch")).append(" |\n");
+        out.append("| max heap | ").append(megabytes(Runtime.getRuntime().maxMemory())).append(" |\n\n");
+
+        for (Map.Entry<String, List<PhaseMetrics>> run : runs.entrySet()) {
+            out.append("## Storage: ").append(run.getKey()).append("\n\n");
+            out.append("| Phase | Ticks run | Ticks skipped | Mean ms | p50 ms | p95 ms | p99 ms | Max ms | Ticks > 50ms | Storage ops | Ops/s (wall) | Ops/s (simulated) | Vault mutations | Peak heap | Retained heap |\n");
+            out.append("|---|---|---|---|---|---|---|---|---|---|---|---|---|---|---|\n");
+            for (PhaseMetrics phase : run.getValue()) {
+                Map<String, Double> stats = phase.getTickStatsMillis();
+                out.append("| ").append(phase.getName())
+                        .append(" | ").append(phase.getTickCount())
+                        .append(" | ").append(phase.getSkippedTicks())
+                        .append(" | ").append(millis(stats.get("mean")))
+                        .append(" | ").append(millis(stats.get("p50")))
+                        .append(" | ").append(millis(stats.get("p95")))
+                        .append(" | ").append(millis(stats.get("p99")))
+                        .append(" | ").append(millis(stats.get("max")))
+                        .append(" | ").append(phase.getTicksOverBudget())
+                        .append(" | ").append(phase.getStorageOps())
+                        .append(" | ").append(String.format(Locale.ROOT, "%.0f", phase.getStorageOpsPerWallSecond()))
+                        .append(" | ").append(String.format(Locale.ROOT, "%.1f", phase.getStorageOpsPerSimulatedSecond()))
+                        .append(" | ").append(phase.getPermissionMutations())
+                        .append(" | ").append(megabytes(phase.getPeakHeapBytes()))
+                        .append(" | ").append(megabytes(phase.getRetainedHeapBytes()))
+                        .append(" |\n");
+            }
+            out.append('\n');
+
+            for (PhaseMetrics phase : run.getValue()) {
+                out.append("- **").append(phase.getName()).append("**: ")
+                        .append(String.format(Locale.ROOT, "%.1f s wall, %.1f s simulated", phase.getWallNanos() / 1e9, phase.getSimulatedMillis() / 1e3))
+                        .append(", sender messages ").append(phase.getSenderMessages())
+                        .append(", task errors ").append(phase.getTaskErrors())
+                        .append(", storage calls ").append(phase.getStorageOpsByMethod());
+                if (phase.getNote() != null) {
+                    out.append(" — ").append(phase.getNote());
+                }
+                out.append('\n');
+            }
+            out.append('\n');
+        }
+        return out.toString();
+    }
+
+    public void write(File file) throws IOException {
+        File parent = file.getAbsoluteFile().getParentFile();
+        if (parent != null) {
+            parent.mkdirs();
+        }
+        Files.writeString(file.toPath(), render(), StandardCharsets.UTF_8);
+    }
+
+    private static String millis(Double value) {
+        return value == null ? "-" : String.format(Locale.ROOT, "%.3f", value);
+    }
+
+    private static String megabytes(long bytes) {
+        return String.format(Locale.ROOT, "%.1f MB", bytes / (1024D * 1024D));
+    }
+}
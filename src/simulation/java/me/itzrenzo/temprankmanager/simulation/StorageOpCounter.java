@@ -0,0 +1,89 @@
+package me.itzrenzo.temprankmanager.simulation;
+
+import me.itzrenzo.temprankmanager.DataManager;
+import me.itzrenzo.temprankmanager.storage.StorageProvider;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts every call made to a DataManager's StorageProvider by swapping in a counting proxy.
+ * The proxy implements every interface of the real provider, so it keeps working as the contract grows.
+ */
+public class StorageOpCounter {
+    private static final Set<String> UNCOUNTED = Set.of("getProviderName", "initialize", "close", "getWriteLanes", "writeLaneOf");
+
+    private final Map<String, LongAdder> counts = new ConcurrentHashMap<>();
+    private final LongAdder total = new LongAdder();
+
+    private StorageOpCounter() {
+    }
+
+    public static StorageOpCounter install(DataManager dataManager) {
+        StorageOpCounter counter = new StorageOpCounter();
+        try {
+            Field field = DataManager.class.getDeclaredField("storageProvider");
+            field.setAccessible(true);
+            StorageProvider target = (StorageProvider) field.get(dataManager);
+            field.set(dataManager, counter.wrap(target));
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Could not attach storage counter to DataManager", e);
+        }
+        return counter;
+    }
+
+    private Object wrap(StorageProvider target) {
+        Set<Class<?>> interfaces = new LinkedHashSet<>();
+        for (Class<?> type = target.getClass(); type != null; type = type.getSuperclass()) {
+            collectInterfaces(type, interfaces);
+        }
+        return Proxy.newProxyInstance(StorageOpCounter.class.getClassLoader(), interfaces.toArray(new Class<?>[0]), (proxy, method, args) -> {
+            if (ProxyDefaults.isObjectMethod(method)) {
+                return ProxyDefaults.handleObjectMethod(proxy, method, args, "Counting[" + target + "]");
+            }
+            record(method);
+            try {
+                return method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        });
+    }
+
+    private static void collectInterfaces(Class<?> type, Set<Class<?>> interfaces) {
+        for (Class<?> implemented : type.getInterfaces()) {
+            if (interfaces.add(implemented)) {
+                collectInterfaces(implemented, interfaces);
+            }
+        }
+    }
+
+    private void record(Method method) {
+        if (UNCOUNTED.contains(method.getName())) {
+            return;
+        }
+        counts.computeIfAbsent(method.getName(), name -> new LongAdder()).increment();
+        total.increment();
+    }
+
+    public long getTotal() {
+        return total.sum();
+    }
+
+    /**
+     * Per-method call counts, sorted by method name
+     */
+    public Map<String, Long> snapshot() {
+        Map<String, Long> snapshot = new TreeMap<>();
+        counts.forEach((name, count) -> snapshot.put(name, count.sum()));
+        return snapshot;
+    }
+}
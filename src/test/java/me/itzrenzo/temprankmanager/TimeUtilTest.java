@@ -0,0 +1,57 @@
+package me.itzrenzo.temprankmanager;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TimeUtilTest {
+
+    @AfterEach
+    void resetClock() {
+        TimeUtil.setClock(null);
+    }
+
+    @Test
+    void parsesEveryUnit() {
+        assertEquals(30_000L, TimeUtil.parseTime("30s"));
+        assertEquals(5 * 60_000L, TimeUtil.parseTime("5m"));
+        assertEquals(2 * 3_600_000L, TimeUtil.parseTime("2H"));
+        assertEquals(7 * 86_400_000L, TimeUtil.parseTime("7d"));
+        assertEquals(3 * 30 * 86_400_000L, TimeUtil.parseTime("3mo"));
+    }
+
+    @Test
+    void rejectsMalformedTimes() {
+        assertEquals(-1, TimeUtil.parseTime(null));
+        assertEquals(-1, TimeUtil.parseTime(""));
+        assertEquals(-1, TimeUtil.parseTime("10"));
+        assertEquals(-1, TimeUtil.parseTime("1w"));
+        assertFalse(TimeUtil.isValidTime("0s"));
+        assertTrue(TimeUtil.isValidTime("1s"));
+    }
+
+    @Test
+    void formatsLargestTwoUnits() {
+        assertEquals("Expired", TimeUtil.formatTime(0));
+        assertEquals("45s", TimeUtil.formatTime(45_000L));
+        assertEquals("1m 5s", TimeUtil.formatTime(65_000L));
+        assertEquals("1d 2h", TimeUtil.formatTime(26 * 3_600_000L));
+        assertEquals("1mo", TimeUtil.formatTime(30 * 86_400_000L));
+    }
+
+    @Test
+    void startDelaysFollowThePluginClock() {
+        TimeUtil.setClock(Clock.fixed(Instant.ofEpochMilli(1_000_000L), ZoneOffset.UTC));
+
+        assertEquals(1_000_000L, TimeUtil.currentTimeMillis());
+        assertEquals(1_000_000L + 3_600_000L, TimeUtil.parseStart("1h"));
+        assertEquals(-1, TimeUtil.parseStart("tomorrow"));
+    }
+}
@@ -0,0 +1,104 @@
+package me.itzrenzo.temprankmanager;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class WriteQueueTest {
+
+    private static final Logger LOGGER = Logger.getLogger(WriteQueueTest.class.getName());
+
+    // One writer thread per lane, like the sharded SQLite provider
+    private final ExecutorService shard0 = Executors.newSingleThreadExecutor();
+    private final ExecutorService shard1 = Executors.newSingleThreadExecutor();
+
+    @AfterEach
+    void shutDown() {
+        shard0.shutdownNow();
+        shard1.shutdownNow();
+    }
+
+    @Test
+    void writesInDifferentLanesCommitAtTheSameTime() throws Exception {
+        WriteQueue queue = new WriteQueue(2, LOGGER);
+        // Neither commit can finish until the other one has started
+        CyclicBarrier bothCommitting = new CyclicBarrier(2);
+
+        CompletableFuture<Void> first = queue.submit(0, () -> CompletableFuture.runAsync(() -> await(bothCommitting), shard0));
+        CompletableFuture<Void> second = queue.submit(1, () -> CompletableFuture.runAsync(() -> await(bothCommitting), shard1));
+
+        CompletableFuture.allOf(first, second).get(5, TimeUnit.SECONDS);
+        queue.flush().get(5, TimeUnit.SECONDS);
+        assertEquals(0, queue.getPending());
+    }
+
+    @Test
+    void writesInOneLaneRunInSubmissionOrder() throws Exception {
+        WriteQueue queue = new WriteQueue(2, LOGGER);
+        List<Integer> committed = Collections.synchronizedList(new ArrayList<>());
+        for (int i = 0; i < 100; i++) {
+            int write = i;
+            // Alternate executors so only the queue can keep the order
+            ExecutorService executor = i % 2 == 0 ? shard0 : shard1;
+            queue.submit(0, () -> CompletableFuture.runAsync(() -> committed.add(write), executor));
+        }
+
+        queue.flush().get(5, TimeUnit.SECONDS);
+        for (int i = 0; i < 100; i++) {
+            assertEquals(i, committed.get(i));
+        }
+    }
+
+    @Test
+    void barrierWaitsForEveryLaneAndHoldsBackLaterWrites() throws Exception {
+        WriteQueue queue = new WriteQueue(2, LOGGER);
+        List<String> committed = Collections.synchronizedList(new ArrayList<>());
+        CompletableFuture<Void> gate = new CompletableFuture<>();
+
+        queue.submit(0, () -> gate.thenRun(() -> committed.add("lane 0")));
+        CompletableFuture<Void> backup = queue.submitBarrier(() -> CompletableFuture.runAsync(() -> committed.add("backup"), shard1));
+        CompletableFuture<Void> later = queue.submit(1, () -> CompletableFuture.runAsync(() -> committed.add("lane 1"), shard1));
+
+        Thread.sleep(100);
+        assertTrue(committed.isEmpty());
+        assertFalse(backup.isDone());
+        assertFalse(later.isDone());
+
+        gate.complete(null);
+        queue.flush().get(5, TimeUnit.SECONDS);
+        assertEquals(List.of("lane 0", "backup", "lane 1"), committed);
+    }
+
+    @Test
+    void failedWriteDoesNotHoldUpTheLane() throws Exception {
+        WriteQueue queue = new WriteQueue(1, LOGGER);
+        CompletableFuture<Void> failed = queue.submit(0, () -> CompletableFuture.failedFuture(new IllegalStateException("disk full")));
+        CompletableFuture<String> next = queue.submit(0, () -> CompletableFuture.completedFuture("saved"));
+
+        assertEquals("saved", next.get(5, TimeUnit.SECONDS));
+        assertTrue(failed.isCompletedExceptionally());
+        queue.flush().get(5, TimeUnit.SECONDS);
+        assertEquals(0, queue.getPending());
+    }
+
+    private static void await(CyclicBarrier barrier) {
+        try {
+            barrier.await(5, TimeUnit.SECONDS);
+        } catch (Exception e) {
+            throw new IllegalStateException("The other lane's write never started", e);
+        }
+    }
+}
@@ -0,0 +1,266 @@
+package me.itzrenzo.temprankmanager.permission;
+
+import net.luckperms.api.LuckPerms;
+import net.luckperms.api.model.data.DataMutateResult;
+import net.luckperms.api.model.data.NodeMap;
+import net.luckperms.api.model.user.User;
+import net.luckperms.api.model.user.UserManager;
+import net.luckperms.api.node.Node;
+import net.luckperms.api.node.NodeBuilderRegistry;
+import net.luckperms.api.node.types.InheritanceNode;
+import org.bukkit.OfflinePlayer;
+import org.bukkit.plugin.Plugin;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LuckPermsPermissionBackendTest {
+
+    private static final UUID PLAYER = UUID.fromString("8667ba71-b85a-4004-af54-457a9734eed7");
+
+    // LuckPerms runs modifyUser on its own pool; several threads, so only the backend can keep the order
+    private final ExecutorService luckPermsThreads = Executors.newFixedThreadPool(4);
+    // The player's nodes as LuckPerms would store them
+    private final List<Node> nodes = new CopyOnWriteArrayList<>();
+    // The player's nodes after each modifyUser call, in the order the calls were applied
+    private final List<List<String>> applied = new CopyOnWriteArrayList<>();
+    private final List<CompletableFuture<Void>> modifications = new CopyOnWriteArrayList<>();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger maxInFlight = new AtomicInteger();
+    // How long each modifyUser call takes, by call number; later calls default to no delay
+    private long[] delaysMillis = {};
+    // Whether LuckPerms has the user in memory, as for an online player
+    private volatile boolean userLoaded = true;
+
+    private OfflinePlayer player;
+    private LuckPermsPermissionBackend backend;
+
+    @BeforeEach
+    void setUp() {
+        NodeMap nodeMap = fake(NodeMap.class, Map.of(
+                "add", args -> {
+                    nodes.add((Node) args[0]);
+                    return DataMutateResult.SUCCESS;
+                },
+                "clear", args -> {
+                    @SuppressWarnings("unchecked")
+                    Predicate<? super Node> test = (Predicate<? super Node>) args[0];
+                    nodes.removeIf(test);
+                    return null;
+                }));
+        User user = fake(User.class, Map.of(
+                "data", args -> nodeMap,
+                "getNodes", args -> new ArrayList<>(nodes)));
+
+        UserManager userManager = fake(UserManager.class, Map.of("getUser", args -> userLoaded ? user : null, "modifyUser", args -> {
+            @SuppressWarnings("unchecked")
+            Consumer<? super User> change = (Consumer<? super User>) args[1];
+            int call = modifications.size();
+            long delay = call < delaysMillis.length ? delaysMillis[call] : 0;
+            CompletableFuture<Void> modification = CompletableFuture.runAsync(() -> {
+                maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+                sleep(delay);
+                change.accept(user);
+                applied.add(describe(nodes));
+                inFlight.decrementAndGet();
+            }, luckPermsThreads);
+            modifications.add(modification);
+            return modification;
+        }));
+        NodeBuilderRegistry registry = fake(NodeBuilderRegistry.class, Map.of("forInheritance", args -> inheritanceBuilder()));
+        LuckPerms luckPerms = fake(LuckPerms.class, Map.of(
+                "getUserManager", args -> userManager,
+                "getNodeBuilderRegistry", args -> registry));
+
+        Plugin plugin = fake(Plugin.class, Map.of("getLogger", args -> Logger.getLogger(LuckPermsPermissionBackendTest.class.getName())));
+        player = fake(OfflinePlayer.class, Map.of("getUniqueId", args -> PLAYER));
+        backend = new LuckPermsPermissionBackend(plugin, luckPerms);
+    }
+
+    @AfterEach
+    void shutDown() {
+        luckPermsThreads.shutdownNow();
+    }
+
+    @Test
+    void grantExpiryIsRoundedUpToWholeSeconds() {
+        backend.addGroupUntil(player, "VIP", 1_700_000_000_001L);
+        awaitModifications();
+        assertEquals(List.of("vip until 1700000001"), describe(nodes));
+
+        // Already on a second boundary, so nothing to round
+        backend.addGroupUntil(player, "VIP", 1_700_000_005_000L);
+        awaitModifications();
+        assertEquals(List.of("vip until 1700000005"), describe(nodes));
+    }
+
+    @Test
+    void pauseReplacesTheTimedNodeWithAPermanentOne() {
+        backend.addGroupUntil(player, "vip", 1_700_000_000_000L);
+        // What GroupChanges.grant asks for when the rank is paused
+        backend.addGroup(player, "VIP");
+        awaitModifications();
+
+        assertEquals(List.of("vip permanent"), describe(nodes));
+    }
+
+    @Test
+    void changesForOnePlayerApplyInTheOrderTheyWereMade() {
+        // Earlier calls take longest, so unordered calls would finish in reverse
+        delaysMillis = new long[] {150, 100, 50, 0};
+
+        backend.addGroupUntil(player, "vip", 1_700_000_000_000L);
+        backend.addGroup(player, "vip");
+        backend.addGroupUntil(player, "vip", 1_700_000_060_000L);
+        backend.removeGroup(player, "vip");
+        awaitModifications();
+
+        assertEquals(List.of(
+                List.of("vip until 1700000000"),
+                List.of("vip permanent"),
+                List.of("vip until 1700000060"),
+                List.of()), applied);
+        assertEquals(1, maxInFlight.get());
+    }
+
+    @Test
+    void closeWaitsForQueuedChanges() {
+        delaysMillis = new long[] {200, 200};
+
+        backend.addGroupUntil(player, "vip", 1_700_000_000_000L);
+        backend.addGroup(player, "vip");
+        backend.close();
+
+        assertEquals(2, applied.size());
+        assertEquals(List.of("vip permanent"), describe(nodes));
+    }
+
+    @Test
+    void groupEndingWithTheRankIsDroppedByLuckPermsItself() {
+        long rankEnds = 1_700_000_000_001L;
+        backend.addGroupUntil(player, "vip", rankEnds);
+        awaitModifications();
+
+        // The node runs to the end of that second, which still counts as ending with the rank
+        assertTrue(backend.dropsGroupBy(player, "VIP", rankEnds));
+        assertFalse(backend.dropsGroupBy(player, "VIP", rankEnds - 1_000));
+        assertTrue(backend.dropsGroupBy(player, "mvp", rankEnds));
+
+        backend.addGroup(player, "vip");
+        awaitModifications();
+        assertFalse(backend.dropsGroupBy(player, "vip", rankEnds));
+
+        // Without the user in memory there is nothing to go on
+        userLoaded = false;
+        assertFalse(backend.dropsGroupBy(player, "mvp", rankEnds));
+    }
+
+    @Test
+    void groupIsNotKnownToEndWhileChangesAreQueued() {
+        delaysMillis = new long[] {200};
+        backend.addGroup(player, "vip");
+
+        assertFalse(backend.dropsGroupBy(player, "vip", 1_700_000_000_000L));
+        awaitModifications();
+    }
+
+    /**
+     * Wait for every modifyUser call, including ones the backend only makes after an earlier one completes
+     */
+    private void awaitModifications() {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        int seen = -1;
+        while (seen != modifications.size() && System.nanoTime() < deadline) {
+            seen = modifications.size();
+            CompletableFuture.allOf(modifications.toArray(new CompletableFuture<?>[0])).join();
+            // The next queued call is made from the completion of the previous one
+            sleep(20);
+        }
+        assertTrue(modifications.stream().allMatch(CompletableFuture::isDone));
+    }
+
+    private static InheritanceNode.Builder inheritanceBuilder() {
+        String[] group = new String[1];
+        Long[] expiry = new Long[1];
+        InheritanceNode.Builder[] builder = new InheritanceNode.Builder[1];
+        builder[0] = fake(InheritanceNode.Builder.class, Map.of(
+                "group", args -> {
+                    group[0] = (String) args[0];
+                    return builder[0];
+                },
+                "expiry", args -> {
+                    expiry[0] = (Long) args[0];
+                    return builder[0];
+                },
+                "build", args -> inheritanceNode(group[0], expiry[0])));
+        return builder[0];
+    }
+
+    private static InheritanceNode inheritanceNode(String group, Long expirySeconds) {
+        Instant expiry = expirySeconds != null ? Instant.ofEpochSecond(expirySeconds) : null;
+        return fake(InheritanceNode.class, Map.of(
+                "getGroupName", args -> group,
+                "getExpiry", args -> expiry,
+                "hasExpiry", args -> expiry != null,
+                "hasExpired", args -> false));
+    }
+
+    private static List<String> describe(List<Node> nodes) {
+        List<String> described = new ArrayList<>();
+        for (Node node : nodes) {
+            InheritanceNode inheritance = (InheritanceNode) node;
+            described.add(inheritance.getGroupName() + (node.getExpiry() != null ? " until " + node.getExpiry().getEpochSecond() : " permanent"));
+        }
+        return described;
+    }
+
+    /**
+     * An implementation of the interface that answers the given methods by name and fails on any other
+     */
+    private static <T> T fake(Class<T> type, Map<String, Function<Object[], Object>> answers) {
+        Object proxy = Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] {type}, (self, method, args) -> {
+            if (method.getDeclaringClass() == Object.class) {
+                return switch (method.getName()) {
+                    case "equals" -> self == args[0];
+                    case "hashCode" -> System.identityHashCode(self);
+                    default -> type.getSimpleName() + " fake";
+                };
+            }
+            Function<Object[], Object> answer = answers.get(method.getName());
+            if (answer == null) {
+                throw new UnsupportedOperationException(type.getSimpleName() + "." + method.getName());
+            }
+            return answer.apply(args);
+        });
+        return type.cast(proxy);
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
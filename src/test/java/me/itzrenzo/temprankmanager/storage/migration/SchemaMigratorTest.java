@@ -0,0 +1,239 @@
+package me.itzrenzo.temprankmanager.storage.migration;
+
+import me.itzrenzo.temprankmanager.storage.UuidBytes;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Handler;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SchemaMigratorTest {
+
+    private static final Logger LOGGER = Logger.getLogger(SchemaMigratorTest.class.getName());
+
+    // More than one BinaryUuidKeyMigration batch, so the cursor has to advance
+    private static final int ROWS = 2_500;
+
+    @TempDir
+    Path dir;
+
+    private record Row(UUID playerUUID, String rankName, long expirationTimestamp, boolean paused, long timeLeftMillis) {
+    }
+
+    @Test
+    void upgradesVersionOneDatabaseWithoutLosingRows() throws SQLException {
+        try (Connection connection = open()) {
+            List<Row> fixture = createVersionOneFixture(connection);
+
+            int version = new SchemaMigrator(LOGGER, SchemaMigrator.defaultMigrations()).migrate(connection);
+
+            assertEquals(5, version);
+            assertEquals(fixture, readRows(connection));
+        }
+    }
+
+    @Test
+    void versionFiveKeysRowsByPlayerAndCaseInsensitiveRank() throws SQLException {
+        try (Connection connection = open()) {
+            createVersionOneFixture(connection);
+            new SchemaMigrator(LOGGER, SchemaMigrator.defaultMigrations()).migrate(connection);
+
+            List<String> keyColumns = new ArrayList<>();
+            try (Statement stmt = connection.createStatement();
+                 ResultSet rs = stmt.executeQuery("PRAGMA table_info(temp_ranks)")) {
+                while (rs.next()) {
+                    if (rs.getInt("pk") > 0) {
+                        keyColumns.add(rs.getInt("pk") - 1, rs.getString("name") + ":" + rs.getString("type"));
+                    }
+                }
+            }
+            assertEquals(List.of("player_uuid:BLOB", "rank_name:TEXT"), keyColumns);
+
+            Row existing = readRows(connection).get(0);
+            // A second rank for the same player is a new row...
+            insert(connection, existing.playerUUID(), "builder");
+            // ...but the same rank in different case is the same key
+            assertThrows(SQLException.class, () -> insert(connection, existing.playerUUID(), existing.rankName().toUpperCase()));
+        }
+    }
+
+    @Test
+    void migratingTwiceChangesNothing() throws SQLException {
+        try (Connection connection = open()) {
+            List<Row> fixture = createVersionOneFixture(connection);
+            SchemaMigrator migrator = new SchemaMigrator(LOGGER, SchemaMigrator.defaultMigrations());
+            migrator.migrate(connection);
+
+            assertEquals(5, migrator.migrate(connection));
+            assertEquals(5, SchemaMigrator.getCurrentVersion(connection));
+            assertEquals(fixture, readRows(connection));
+        }
+    }
+
+    @Test
+    void interruptedKeyMigrationResumesWithoutCopyingRowsTwice() throws SQLException {
+        List<Row> fixture;
+        try (Connection connection = open()) {
+            fixture = createVersionOneFixture(connection);
+        }
+
+        // Stop the server after the first batch has committed
+        try (Connection connection = open()) {
+            Connection crashing = failOnCommit(connection, 2);
+            SchemaMigrator migrator = new SchemaMigrator(LOGGER, SchemaMigrator.defaultMigrations());
+            assertThrows(SQLException.class, () -> migrator.migrate(crashing));
+        }
+
+        List<String> messages = new ArrayList<>();
+        Logger logger = Logger.getAnonymousLogger();
+        logger.setUseParentHandlers(false);
+        logger.addHandler(new Handler() {
+            @Override
+            public void publish(LogRecord record) {
+                messages.add(record.getMessage());
+            }
+
+            @Override
+            public void flush() {
+            }
+
+            @Override
+            public void close() {
+            }
+        });
+
+        try (Connection connection = open()) {
+            assertEquals(1, SchemaMigrator.getCurrentVersion(connection));
+            assertEquals(1_000, count(connection, "SELECT COUNT(*) FROM temp_ranks_binary"));
+
+            assertEquals(5, new SchemaMigrator(logger, SchemaMigrator.defaultMigrations()).migrate(connection));
+
+            int total = ROWS + 1;
+            assertTrue(messages.contains("Resuming UUID key migration at 1000/" + total + " rows"), messages::toString);
+            // The progress count only reaches the total if no batch was copied twice
+            assertTrue(messages.contains("Migrating UUID keys: " + total + "/" + total + " rows (100%)"), messages::toString);
+            assertEquals(fixture, readRows(connection));
+            assertEquals(0, count(connection, "SELECT COUNT(*) FROM sqlite_master WHERE name = 'schema_migration_progress'"));
+        }
+    }
+
+    private Connection open() throws SQLException {
+        return DriverManager.getConnection("jdbc:sqlite:" + dir.resolve("tempranks.db"));
+    }
+
+    /**
+     * A database as the plugin wrote it before schema versioning: text UUID primary key,
+     * one rank per player and no schema_version table
+     * @return the rows a correct migration must keep, in player order
+     */
+    private static List<Row> createVersionOneFixture(Connection connection) throws SQLException {
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute("""
+                CREATE TABLE temp_ranks (
+                    player_uuid TEXT PRIMARY KEY,
+                    rank_name TEXT NOT NULL,
+                    expiration_timestamp INTEGER NOT NULL,
+                    is_paused INTEGER NOT NULL DEFAULT 0,
+                    time_left_millis INTEGER NOT NULL DEFAULT 0
+                )
+                """);
+        }
+
+        Random random = new Random(42);
+        List<Row> rows = new ArrayList<>(ROWS);
+        try (PreparedStatement stmt = connection.prepareStatement("INSERT INTO temp_ranks VALUES (?, ?, ?, ?, ?)")) {
+            for (int i = 0; i < ROWS; i++) {
+                boolean paused = i % 7 == 0;
+                Row row = new Row(new UUID(random.nextLong(), random.nextLong()), i % 3 == 0 ? "VIP" : "mvp",
+                        1_700_000_000_000L + random.nextInt(1_000_000), paused, paused ? random.nextInt(86_400_000) : 0);
+                stmt.setString(1, row.playerUUID().toString());
+                stmt.setString(2, row.rankName());
+                stmt.setLong(3, row.expirationTimestamp());
+                stmt.setInt(4, row.paused() ? 1 : 0);
+                stmt.setLong(5, row.timeLeftMillis());
+                stmt.executeUpdate();
+                rows.add(row);
+            }
+            // Corrupt keys are dropped by the UUID key migration rather than failing it
+            stmt.setString(1, "not-a-uuid");
+            stmt.setString(2, "vip");
+            stmt.setLong(3, 0);
+            stmt.setInt(4, 0);
+            stmt.setLong(5, 0);
+            stmt.executeUpdate();
+        }
+        rows.sort((a, b) -> compareKeys(a.playerUUID(), b.playerUUID()));
+        return rows;
+    }
+
+    private static List<Row> readRows(Connection connection) throws SQLException {
+        List<Row> rows = new ArrayList<>();
+        try (Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT * FROM temp_ranks ORDER BY player_uuid, rank_name")) {
+            while (rs.next()) {
+                rows.add(new Row(UuidBytes.fromBytes(rs.getBytes("player_uuid")), rs.getString("rank_name"),
+                        rs.getLong("expiration_timestamp"), rs.getInt("is_paused") != 0, rs.getLong("time_left_millis")));
+            }
+        }
+        return rows;
+    }
+
+    private static long count(Connection connection, String query) throws SQLException {
+        try (Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery(query)) {
+            return rs.next() ? rs.getLong(1) : 0;
+        }
+    }
+
+    /**
+     * A view of the connection whose n-th commit fails, as if the process died before it
+     */
+    private static Connection failOnCommit(Connection connection, int failingCommit) {
+        AtomicInteger commits = new AtomicInteger();
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class}, (proxy, method, args) -> {
+            if (method.getName().equals("commit") && commits.incrementAndGet() == failingCommit) {
+                throw new SQLException("Simulated crash");
+            }
+            try {
+                return method.invoke(connection, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        });
+    }
+
+    private static void insert(Connection connection, UUID playerUUID, String rankName) throws SQLException {
+        try (PreparedStatement stmt = connection.prepareStatement("INSERT INTO temp_ranks (player_uuid, rank_name, expiration_timestamp) VALUES (?, ?, 0)")) {
+            stmt.setBytes(1, UuidBytes.toBytes(playerUUID));
+            stmt.setString(2, rankName);
+            stmt.executeUpdate();
+        }
+    }
+
+    /**
+     * The order SQLite sorts BLOB keys in: unsigned bytes, most significant first
+     */
+    private static int compareKeys(UUID a, UUID b) {
+        int high = Long.compareUnsigned(a.getMostSignificantBits(), b.getMostSignificantBits());
+        return high != 0 ? high : Long.compareUnsigned(a.getLeastSignificantBits(), b.getLeastSignificantBits());
+    }
+}